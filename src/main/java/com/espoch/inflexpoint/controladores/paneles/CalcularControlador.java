@@ -1,14 +1,27 @@
 package com.espoch.inflexpoint.controladores.paneles;
 
-import com.espoch.inflexpoint.modelos.calculos.AnalizadorFuncion;
+import com.espoch.inflexpoint.modelos.calculos.ClaveAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.ControlAnalisis;
 import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico;
+import com.espoch.inflexpoint.modelos.calculos.EjecucionAsincrona;
+import com.espoch.inflexpoint.modelos.calculos.EtapasEnVivo;
+import com.espoch.inflexpoint.modelos.calculos.Evaluador;
 import com.espoch.inflexpoint.modelos.calculos.GestorHistorial;
+import com.espoch.inflexpoint.modelos.calculos.PresupuestoEvaluacion;
 import com.espoch.inflexpoint.modelos.calculos.ResultadoAnalisis;
+import com.espoch.inflexpoint.modelos.dao.implementaciones.FuncionCacheImpl;
+import com.espoch.inflexpoint.modelos.dao.interfaces.IFuncion;
+import com.espoch.inflexpoint.modelos.entidades.Dominio;
+import com.espoch.inflexpoint.modelos.entidades.Funcion;
+import com.espoch.inflexpoint.modelos.excepciones.AnalisisCanceladoException;
 import com.espoch.inflexpoint.modelos.excepciones.CalculoNumericoException;
 import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
 import com.espoch.inflexpoint.util.FormulaRenderer;
 import com.espoch.inflexpoint.util.GraficadorCanvas;
 import com.espoch.inflexpoint.util.TecladoVirtual;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -20,10 +33,14 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import com.espoch.inflexpoint.util.VentanaUtil;
 
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controlador para la vista de cálculo.
@@ -38,6 +55,12 @@ import java.util.ResourceBundle;
 public class CalcularControlador implements Initializable {
     public VBox vboxResultado;
 
+    // Presupuesto del análisis: evaluaciones de f(x) y tiempo objetivo
+    private static final long PRESUPUESTO_EVALUACIONES = 20000;
+    private static final long LATENCIA_OBJETIVO_MS = 300;
+    // Pausa tras la última edición antes del análisis en vivo
+    private static final long RETARDO_EN_VIVO_MS = 350;
+
     // ===== Componentes FXML =====
 
     @FXML
@@ -50,10 +73,16 @@ public class CalcularControlador implements Initializable {
     private RadioButton chkPuntoInflexion;
     @FXML
     private RadioButton chkConcavidad;
+    @FXML
+    private RadioButton chkGraficarPrimera;
+    @FXML
+    private RadioButton chkGraficarSegunda;
 
     @FXML
     private TextField txtFuncion;
     @FXML
+    private Label lblEstadoFuncion;
+    @FXML
     private TextField txtMinX;
     @FXML
     private TextField txtMaxX;
@@ -64,6 +93,8 @@ public class CalcularControlador implements Initializable {
     private Button btnCalcular;
     @FXML
     private Button btnBorrar;
+    @FXML
+    private ProgressIndicator indicadorProgreso;
 
     @FXML
     private VBox vboxResultadosTexto;
@@ -72,18 +103,34 @@ public class CalcularControlador implements Initializable {
 
     // ===== Servicios y Utilidades =====
 
-    private AnalizadorFuncion analizador;
+    private IFuncion funcionDao;
     private GraficadorCanvas graficadorCanvas;
     private TecladoVirtual tecladoVirtual;
 
+    // Análisis en curso (se cancela si el usuario calcula otra función)
+    private ControlAnalisis controlActual;
+    private CompletableFuture<ResultadoAnalisis> tareaActual;
+
+    // Análisis en vivo: etapas ya calculadas y espera entre ediciones
+    private final EtapasEnVivo etapas = new EtapasEnVivo();
+    private PauseTransition esperaEdicion;
+
+    // Sección de derivadas ya renderizada y las derivadas que muestra
+    private VBox seccionDerivadas;
+    private String derivadasMostradas;
+
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         // Inicializar servicios
-        analizador = new AnalizadorFuncion();
+        // Con caché: lo ya analizado (por ejemplo desde el historial) no se recalcula
+        funcionDao = new FuncionCacheImpl();
+
+        // El indicador de progreso solo ocupa espacio mientras se ve
+        indicadorProgreso.managedProperty().bind(indicadorProgreso.visibleProperty());
 
         // Inicializar graficador con Canvas
         graficadorCanvas = new GraficadorCanvas(400, 300);
-        contenedorGrafica.getChildren().add(graficadorCanvas.getCanvas());
+        contenedorGrafica.getChildren().add(graficadorCanvas.getNodo());
 
         // Hacer el canvas responsivo escuchando el contenedor (NO bind() + setSize())
         contenedorGrafica.widthProperty().addListener((obs, oldVal, newVal) -> {
@@ -97,6 +144,26 @@ public class CalcularControlador implements Initializable {
             }
         });
 
+        // Derivadas superpuestas a f(x): solo cambian la gráfica, no el análisis
+        ChangeListener<Boolean> alElegirCurvas = (obs, oldVal, newVal) -> graficadorCanvas.mostrarCurvas(true,
+                chkGraficarPrimera.isSelected(), chkGraficarSegunda.isSelected());
+        chkGraficarPrimera.selectedProperty().addListener(alElegirCurvas);
+        chkGraficarSegunda.selectedProperty().addListener(alElegirCurvas);
+
+        // Análisis en vivo: cada edición reinicia la espera, de modo que solo
+        // se calcula cuando el usuario deja de escribir
+        lblEstadoFuncion.managedProperty().bind(lblEstadoFuncion.visibleProperty());
+        esperaEdicion = new PauseTransition(Duration.millis(RETARDO_EN_VIVO_MS));
+        esperaEdicion.setOnFinished(e -> calcularEnVivo());
+        ChangeListener<Object> alEditar = (obs, oldVal, newVal) -> esperaEdicion.playFromStart();
+        txtFuncion.textProperty().addListener(alEditar);
+        txtMinX.textProperty().addListener(alEditar);
+        txtMaxX.textProperty().addListener(alEditar);
+        chkPuntosCriticos.selectedProperty().addListener(alEditar);
+        chkIntervalos.selectedProperty().addListener(alEditar);
+        chkMaxMin.selectedProperty().addListener(alEditar);
+        chkPuntoInflexion.selectedProperty().addListener(alEditar);
+        chkConcavidad.selectedProperty().addListener(alEditar);
     }
 
     /**
@@ -105,6 +172,9 @@ public class CalcularControlador implements Initializable {
      */
     @FXML
     private void calcular(ActionEvent event) {
+        // El cálculo explícito reemplaza al análisis en vivo pendiente
+        esperaEdicion.stop();
+
         // 1. Obtener datos de entrada
         String expresion = txtFuncion.getText();
 
@@ -116,62 +186,233 @@ public class CalcularControlador implements Initializable {
         // 3. Limpiar resultados previos
         limpiarResultados();
 
+        // 4. Obtener rango
+        double minX;
+        double maxX;
         try {
-            // 4. Obtener rango
-            double minX = -10.0;
-            double maxX = 10.0;
-            try {
-                minX = Double.parseDouble(txtMinX.getText());
-                maxX = Double.parseDouble(txtMaxX.getText());
-                if (minX >= maxX) {
-                    mostrarAlerta("Rango Inválido", "El valor mínimo debe ser menor al máximo.");
-                    return;
-                }
-            } catch (NumberFormatException e) {
-                mostrarAlerta("Rango Inválido", "Ingrese valores numéricos válidos para el rango.");
+            minX = Double.parseDouble(txtMinX.getText());
+            maxX = Double.parseDouble(txtMaxX.getText());
+            if (minX >= maxX) {
+                mostrarAlerta("Rango Inválido", "El valor mínimo debe ser menor al máximo.");
                 return;
             }
+        } catch (NumberFormatException e) {
+            mostrarAlerta("Rango Inválido", "Ingrese valores numéricos válidos para el rango.");
+            return;
+        }
 
-            // 5. Llamar servicio de análisis
-            ResultadoAnalisis resultado = analizador.analizarEnRango(
-                    expresion,
-                    minX,
-                    maxX,
-                    0.1, // Paso por defecto
-                    chkPuntosCriticos.isSelected(),
-                    chkIntervalos.isSelected(),
-                    chkMaxMin.isSelected(),
-                    chkPuntoInflexion.isSelected(),
-                    chkConcavidad.isSelected());
-
-            // 6. Mostrar resultados textuales
-            mostrarResultadosTextuales(resultado);
-
-            // 6.1 Guardar en el historial
-            GestorHistorial.getInstancia().agregarExpresion(expresion);
+        // 5. Leer la expresión (si no cambió desde el análisis en vivo, se
+        // reutiliza la ya compilada)
+        try {
+            etapas.leer(expresion);
+        } catch (ExpresionInvalidaException e) {
+            mostrarErrorExpresion(e);
+            return;
+        }
+        mostrarEstadoFuncion(null);
 
-            // 7. Graficar usando Canvas interactivo
-            System.out.println("Intentando graficar: " + expresion);
-            try {
-                graficadorCanvas.graficar(expresion, resultado);
-                System.out.println("Gráfica completada exitosamente");
-            } catch (Exception e) {
-                System.out.println("Excepción al graficar: " + e.getMessage());
-                e.printStackTrace();
-                mostrarAlerta("Error en Gráfica",
-                        "No se pudo graficar la función: " + e.getMessage());
-            }
+        iniciarAnalisis(expresion, minX, maxX, false);
+    }
 
+    /**
+     * Análisis en vivo, cuando el usuario deja de escribir. No muestra
+     * alertas: los errores se indican bajo el campo de la función. Solo se
+     * recalculan las etapas cuyas entradas cambiaron (ver EtapasEnVivo).
+     */
+    private void calcularEnVivo() {
+        String expresion = txtFuncion.getText();
+        if (expresion == null || expresion.trim().isEmpty()) {
+            cancelarAnalisis();
+            mostrarEstadoFuncion(null);
+            return;
+        }
+
+        // Un rango a medio escribir se ignora hasta que sea válido
+        double minX;
+        double maxX;
+        try {
+            minX = Double.parseDouble(txtMinX.getText());
+            maxX = Double.parseDouble(txtMaxX.getText());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (minX >= maxX) {
+            return;
+        }
+
+        // 1. Lectura
+        try {
+            etapas.leer(expresion);
         } catch (ExpresionInvalidaException e) {
-            mostrarAlerta("Expresión Inválida",
-                    "La expresión ingresada no es válida:\n" + e.getMessage());
-        } catch (CalculoNumericoException e) {
+            cancelarAnalisis();
+            mostrarEstadoFuncion(e.getMessage());
+            return;
+        }
+        mostrarEstadoFuncion(null);
+
+        iniciarAnalisis(expresion, minX, maxX, true);
+    }
+
+    /**
+     * Muestra las derivadas y la gráfica de la expresión ya leída y lanza el
+     * análisis en modo progresivo: primero llega un resultado preliminar y
+     * luego el refinado (el paso se elige según el presupuesto). Se ejecuta
+     * fuera del hilo de la interfaz; el cálculo anterior, si sigue en curso,
+     * se cancela.
+     *
+     * @param enVivo true si lo pide el análisis en vivo: no se repite si las
+     *               entradas no cambiaron, no se guarda en el historial y los
+     *               errores no abren alertas
+     */
+    private void iniciarAnalisis(String expresion, double minX, double maxX, boolean enVivo) {
+        boolean calcPuntosCriticos = chkPuntosCriticos.isSelected();
+        boolean calcIntervalos = chkIntervalos.isSelected();
+        boolean calcMaxMin = chkMaxMin.isSelected();
+        boolean calcInflexion = chkPuntoInflexion.isSelected();
+        boolean calcConcavidad = chkConcavidad.isSelected();
+
+        PresupuestoEvaluacion presupuesto = new PresupuestoEvaluacion(PRESUPUESTO_EVALUACIONES, LATENCIA_OBJETIVO_MS);
+        ClaveAnalisis clave = ClaveAnalisis.dePresupuesto(expresion, minX, maxX, presupuesto,
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        if (enVivo && etapas.analisisVigente(clave)) {
+            return; // Nada cambió desde el último análisis
+        }
+
+        cancelarAnalisis();
+        ControlAnalisis control = new ControlAnalisis();
+        controlActual = control;
+        etapas.registrarAnalisis(clave);
+
+        // 2. Derivadas simbólicas: se muestran sin esperar al análisis (al
+        // cambiar solo el rango o las opciones siguen los resultados previos)
+        boolean expresionNueva = !etapas.graficaVigente();
+        if (!enVivo || expresionNueva) {
+            VBox derivadas = seccionDerivadas(etapas.getPrimeraDerivada(), etapas.getSegundaDerivada());
+            if (derivadas != null) {
+                vboxResultadosTexto.getChildren().setAll(derivadas);
+            } else {
+                vboxResultadosTexto.getChildren().clear();
+            }
+        }
+
+        // 3. Gráfica de la función; los puntos se marcan al llegar el análisis
+        if (expresionNueva) {
+            graficadorCanvas.graficar(expresion, etapas.getEvaluador(), null);
+            etapas.registrarGrafica();
+        }
+
+        // 4. Análisis completo. Si la misma función ya se analizó (por ejemplo
+        // desde el historial) el DAO entrega el resultado guardado
+        boolean guardarEnHistorial = !enVivo;
+        mostrarProgreso(true);
+        Funcion funcion = new Funcion(0, expresion, "x", null, new Dominio(minX, maxX));
+        Evaluador compilado = etapas.getEvaluador();
+        CompletableFuture<ResultadoAnalisis> tarea = EjecucionAsincrona.ejecutar(
+                () -> funcionDao.analizarProgresivo(
+                        funcion,
+                        compilado,
+                        presupuesto,
+                        control,
+                        calcPuntosCriticos,
+                        calcIntervalos,
+                        calcMaxMin,
+                        calcInflexion,
+                        calcConcavidad,
+                        resultado -> Platform.runLater(() -> aplicarResultado(control, expresion, resultado,
+                                guardarEnHistorial))),
+                EjecucionAsincrona.ejecutorPorDefecto());
+        tareaActual = tarea;
+        tarea.whenComplete((resultado, error) -> Platform.runLater(() -> terminarAnalisis(control, error, enVivo)));
+    }
+
+    // Cancela el análisis en curso (su resultado ya no se mostrará)
+    private void cancelarAnalisis() {
+        if (controlActual != null) {
+            controlActual.cancelar();
+            controlActual = null;
+        }
+        if (tareaActual != null) {
+            tareaActual.cancel(true);
+            tareaActual = null;
+        }
+        etapas.olvidarAnalisis();
+        mostrarProgreso(false);
+    }
+
+    /**
+     * Cierra un análisis en el hilo de la interfaz: oculta el progreso y
+     * muestra el error, si lo hubo (bajo el campo de la función si el
+     * análisis era en vivo). No hace nada si el análisis ya fue reemplazado
+     * por otro.
+     */
+    private void terminarAnalisis(ControlAnalisis control, Throwable error, boolean enVivo) {
+        if (control != controlActual) {
+            return;
+        }
+        tareaActual = null;
+        mostrarProgreso(false);
+
+        Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (causa == null || causa instanceof AnalisisCanceladoException
+                || causa instanceof CancellationException) {
+            // Sin error, o lo canceló otro cálculo: no hay nada que mostrar
+            return;
+        }
+        if (enVivo) {
+            mostrarEstadoFuncion(causa.getMessage());
+        } else if (causa instanceof ExpresionInvalidaException e) {
+            mostrarErrorExpresion(e);
+        } else if (causa instanceof CalculoNumericoException) {
             mostrarAlerta("Error de Cálculo",
-                    "Ocurrió un error durante el análisis:\n" + e.getMessage());
-        } catch (Exception e) {
+                    "Ocurrió un error durante el análisis:\n" + causa.getMessage());
+        } else {
             mostrarAlerta("Error Inesperado",
-                    "Ocurrió un error inesperado:\n" + e.getMessage());
+                    "Ocurrió un error inesperado:\n" + causa.getMessage());
+        }
+    }
+
+    // Lleva el cursor a donde está el error y lo muestra en una alerta
+    private void mostrarErrorExpresion(ExpresionInvalidaException e) {
+        if (e.getPosicion() >= 0 && e.getPosicion() <= txtFuncion.getLength()) {
+            txtFuncion.requestFocus();
+            txtFuncion.positionCaret(e.getPosicion());
+        }
+        mostrarAlerta("Expresión Inválida",
+                "La expresión ingresada no es válida:\n" + e.getMessage());
+    }
+
+    // Muestra (o, con null, oculta) un error bajo el campo de la función
+    private void mostrarEstadoFuncion(String mensaje) {
+        lblEstadoFuncion.setText(mensaje == null ? "" : mensaje);
+        lblEstadoFuncion.setVisible(mensaje != null);
+    }
+
+    private void mostrarProgreso(boolean visible) {
+        indicadorProgreso.setVisible(visible);
+    }
+
+    /**
+     * Muestra una versión del resultado del análisis progresivo. La función
+     * ya está graficada (ver iniciarAnalisis): solo se actualizan textos y
+     * puntos.
+     */
+    private void aplicarResultado(ControlAnalisis control, String expresion, ResultadoAnalisis resultado,
+            boolean guardarEnHistorial) {
+        // Ignorar resultados de un cálculo ya reemplazado
+        if (control != controlActual) {
+            return;
+        }
+
+        // 6. Mostrar resultados textuales
+        mostrarResultadosTextuales(resultado);
+
+        // 6.1 Guardar en el historial
+        if (guardarEnHistorial && !resultado.isPreliminar()) {
+            GestorHistorial.getInstancia().agregarExpresion(expresion);
         }
+
+        // 7. Marcar los puntos en la gráfica
+        graficadorCanvas.actualizarResultado(resultado);
     }
 
     // Válida que la entrada del usuario sea correcta.
@@ -201,6 +442,12 @@ public class CalcularControlador implements Initializable {
     private void mostrarResultadosTextuales(ResultadoAnalisis resultado) {
         vboxResultadosTexto.getChildren().clear();
 
+        if (resultado.isPreliminar()) {
+            Label lblPreliminar = new Label("Resultado preliminar, refinando...");
+            lblPreliminar.setStyle("-fx-text-fill: #999; -fx-font-style: italic;");
+            vboxResultadosTexto.getChildren().add(lblPreliminar);
+        }
+
         // 0. Mensajes de Accesibilidad / Avisos
         if (resultado.getMensajesAccesibilidad() != null && !resultado.getMensajesAccesibilidad().isEmpty()) {
             VBox alertBox = new VBox(5);
@@ -217,42 +464,17 @@ public class CalcularControlador implements Initializable {
         }
 
         // 1. Derivadas
-        if (resultado.getPrimeraDerivada() != null && !resultado.getPrimeraDerivada().isEmpty()) {
-            VBox section = crearSeccion("𝑓'(𝑥) DERIVADAS");
-
-            // Contenedor para las fórmulas
-            VBox formulasContainer = new VBox(5);
-            formulasContainer.setMinHeight(170); // Altura mínima para asegurar visibilidad
-            formulasContainer.setPadding(new javafx.geometry.Insets(0, 0, 15, 0)); // Espacio para la scrollbar
-
-            // Renderizar primera derivada
-            String latex1 = "f'(x) = " + DerivadorSimbolico.toLaTeX(resultado.getPrimeraDerivada());
-            formulasContainer.getChildren().add(FormulaRenderer.render(latex1));
-
-            if (resultado.getSegundaDerivada() != null && !resultado.getSegundaDerivada().isEmpty()) {
-                // Renderizar segunda derivada
-                String latex2 = "f''(x) = " + DerivadorSimbolico.toLaTeX(resultado.getSegundaDerivada());
-                formulasContainer.getChildren().add(FormulaRenderer.render(latex2));
-            }
-
-            // Envolver en ScrollPane horizontal
-            ScrollPane scrollDerivadas = new ScrollPane(formulasContainer);
-            scrollDerivadas.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-            scrollDerivadas.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-            scrollDerivadas.setPannable(true);
-            scrollDerivadas.setFitToHeight(false); // No forzar altura al viewport
-            scrollDerivadas.setMinHeight(180); // Asegurar espacio suficiente para 2 derivadas
-            scrollDerivadas.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
-            scrollDerivadas.getStyleClass().add("scroll-pane");
-
-            section.getChildren().add(scrollDerivadas);
-            vboxResultadosTexto.getChildren().add(section);
+        VBox derivadas = seccionDerivadas(resultado.getPrimeraDerivada(), resultado.getSegundaDerivada());
+        if (derivadas != null) {
+            vboxResultadosTexto.getChildren().add(derivadas);
         }
 
         // 2. Puntos Críticos
-        if (resultado.getPuntosCriticos() != null && resultado.getPuntosCriticos().length > 0) {
+        // (cada getter crea los objetos a partir de las tablas: se consulta una vez)
+        com.espoch.inflexpoint.modelos.entidades.PuntoCritico[] puntosCriticos = resultado.getPuntosCriticos();
+        if (puntosCriticos != null && puntosCriticos.length > 0) {
             VBox section = crearSeccion("PUNTOS CRÍTICOS");
-            for (com.espoch.inflexpoint.modelos.entidades.PuntoCritico pc : resultado.getPuntosCriticos()) {
+            for (com.espoch.inflexpoint.modelos.entidades.PuntoCritico pc : puntosCriticos) {
                 section.getChildren().add(crearEtiquetaDual(pc.getTipoPuntoCritico() + ":",
                         String.format("(%.4f, %.4f)", pc.getX(), pc.getY())));
             }
@@ -260,9 +482,10 @@ public class CalcularControlador implements Initializable {
         }
 
         // 3. Puntos de Inflexión
-        if (resultado.getPuntosInflexion() != null && resultado.getPuntosInflexion().length > 0) {
+        com.espoch.inflexpoint.modelos.entidades.PuntoCritico[] puntosInflexion = resultado.getPuntosInflexion();
+        if (puntosInflexion != null && puntosInflexion.length > 0) {
             VBox section = crearSeccion("PUNTOS DE INFLEXIÓN");
-            for (com.espoch.inflexpoint.modelos.entidades.PuntoCritico pi : resultado.getPuntosInflexion()) {
+            for (com.espoch.inflexpoint.modelos.entidades.PuntoCritico pi : puntosInflexion) {
                 section.getChildren().add(crearEtiquetaDual("Inflexión en:",
                         String.format("(%.4f, %.4f)", pi.getX(), pi.getY())));
             }
@@ -270,21 +493,20 @@ public class CalcularControlador implements Initializable {
         }
 
         // 4. Intervalos de Crecimiento/Decrecimiento
-        boolean hasCrecimiento = resultado.getIntervalosCrecimiento() != null
-                && resultado.getIntervalosCrecimiento().length > 0;
-        boolean hasDecr = resultado.getIntervalosDecrecimiento() != null
-                && resultado.getIntervalosDecrecimiento().length > 0;
+        com.espoch.inflexpoint.modelos.entidades.Intervalo[] crecimiento = resultado.getIntervalosCrecimiento();
+        com.espoch.inflexpoint.modelos.entidades.Intervalo[] decrecimiento = resultado.getIntervalosDecrecimiento();
+        boolean hasCrecimiento = crecimiento != null && crecimiento.length > 0;
+        boolean hasDecr = decrecimiento != null && decrecimiento.length > 0;
 
         if (hasCrecimiento || hasDecr) {
             VBox section = crearSeccion("INTERVALOS");
             if (hasCrecimiento) {
-                for (com.espoch.inflexpoint.modelos.entidades.Intervalo inter : resultado.getIntervalosCrecimiento()) {
+                for (com.espoch.inflexpoint.modelos.entidades.Intervalo inter : crecimiento) {
                     section.getChildren().add(crearEtiquetaDual("Creciente:", formatearIntervalo(inter)));
                 }
             }
             if (hasDecr) {
-                for (com.espoch.inflexpoint.modelos.entidades.Intervalo inter : resultado
-                        .getIntervalosDecrecimiento()) {
+                for (com.espoch.inflexpoint.modelos.entidades.Intervalo inter : decrecimiento) {
                     section.getChildren().add(crearEtiquetaDual("Decreciente:", formatearIntervalo(inter)));
                 }
             }
@@ -292,9 +514,10 @@ public class CalcularControlador implements Initializable {
         }
 
         // 5. Concavidad
-        if (resultado.getIntervalosConcavidad() != null && resultado.getIntervalosConcavidad().length > 0) {
+        com.espoch.inflexpoint.modelos.entidades.Intervalo[] concavidad = resultado.getIntervalosConcavidad();
+        if (concavidad != null && concavidad.length > 0) {
             VBox section = crearSeccion("CONCAVIDAD");
-            for (com.espoch.inflexpoint.modelos.entidades.Intervalo inter : resultado.getIntervalosConcavidad()) {
+            for (com.espoch.inflexpoint.modelos.entidades.Intervalo inter : concavidad) {
                 String label = inter.getTipoIntervalo().toString().contains("POSITIVA") ? "Cóncava (∪):"
                         : "Convexa (∩):";
                 section.getChildren().add(crearEtiquetaDual(label, formatearIntervalo(inter)));
@@ -317,6 +540,55 @@ public class CalcularControlador implements Initializable {
         }
     }
 
+    /**
+     * Sección de las derivadas. Se reutiliza mientras las derivadas no
+     * cambien, porque renderizar las fórmulas es lo más costoso de mostrar un
+     * resultado (cada versión del análisis y cada cambio de rango la repiten).
+     *
+     * @return La sección, o null si no hay derivadas
+     */
+    private VBox seccionDerivadas(String primera, String segunda) {
+        if (primera == null || primera.isEmpty()) {
+            return null;
+        }
+        String derivadas = primera + "\n" + segunda;
+        if (derivadas.equals(derivadasMostradas)) {
+            return seccionDerivadas;
+        }
+
+        VBox section = crearSeccion("𝑓'(𝑥) DERIVADAS");
+
+        // Contenedor para las fórmulas
+        VBox formulasContainer = new VBox(5);
+        formulasContainer.setMinHeight(170); // Altura mínima para asegurar visibilidad
+        formulasContainer.setPadding(new javafx.geometry.Insets(0, 0, 15, 0)); // Espacio para la scrollbar
+
+        // Renderizar primera derivada
+        String latex1 = "f'(x) = " + DerivadorSimbolico.toLaTeX(primera);
+        formulasContainer.getChildren().add(FormulaRenderer.render(latex1));
+
+        if (segunda != null && !segunda.isEmpty()) {
+            // Renderizar segunda derivada
+            String latex2 = "f''(x) = " + DerivadorSimbolico.toLaTeX(segunda);
+            formulasContainer.getChildren().add(FormulaRenderer.render(latex2));
+        }
+
+        // Envolver en ScrollPane horizontal
+        ScrollPane scrollDerivadas = new ScrollPane(formulasContainer);
+        scrollDerivadas.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        scrollDerivadas.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        scrollDerivadas.setPannable(true);
+        scrollDerivadas.setFitToHeight(false); // No forzar altura al viewport
+        scrollDerivadas.setMinHeight(180); // Asegurar espacio suficiente para 2 derivadas
+        scrollDerivadas.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
+        scrollDerivadas.getStyleClass().add("scroll-pane");
+
+        section.getChildren().add(scrollDerivadas);
+        seccionDerivadas = section;
+        derivadasMostradas = derivadas;
+        return section;
+    }
+
     private VBox crearSeccion(String title) {
         VBox card = new VBox(8);
         card.getStyleClass().add("results-card");
@@ -373,6 +645,7 @@ public class CalcularControlador implements Initializable {
      */
     @FXML
     private void borrar(ActionEvent event) {
+        cancelarAnalisis();
         txtFuncion.clear();
         chkPuntosCriticos.setSelected(false);
         chkIntervalos.setSelected(false);
@@ -382,6 +655,9 @@ public class CalcularControlador implements Initializable {
         txtMinX.setText("-10");
         txtMaxX.setText("10");
         limpiarResultados();
+        // Los cambios de arriba no deben lanzar un análisis en vivo
+        esperaEdicion.stop();
+        mostrarEstadoFuncion(null);
     }
 
     /**
@@ -1,17 +1,19 @@
 package com.espoch.inflexpoint.modelos.calculos;
 
-import com.espoch.inflexpoint.modelos.entidades.Intervalo;
-import com.espoch.inflexpoint.modelos.entidades.PuntoCritico;
+import com.espoch.inflexpoint.modelos.enumeraciones.EstrategiaRaices;
 import com.espoch.inflexpoint.modelos.enumeraciones.TipoIntervalo;
 import com.espoch.inflexpoint.modelos.enumeraciones.TipoPuntoCritico;
+import com.espoch.inflexpoint.modelos.excepciones.AnalisisCanceladoException;
 import com.espoch.inflexpoint.modelos.excepciones.CalculoNumericoException;
 import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
 import com.espoch.inflexpoint.util.ValidadorExpresion;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
@@ -27,7 +29,6 @@ public class AnalizadorFuncion {
 
     // Constantes para métodos numéricos
     private static final double PASO_DERIVADA = 0.0001;
-    private static final double TOLERANCIA_BISECCION = 1e-6;
     private static final int MAX_ITERACIONES_BISECCION = 50;
     private static final double TOLERANCIA_CERO = 1e-5;
 
@@ -35,6 +36,113 @@ public class AnalizadorFuncion {
     private static final double MIN_X_DEFECTO = -10.0;
     private static final double MAX_X_DEFECTO = 10.0;
     private static final double PASO_DEFECTO = 0.1;
+    private static final double PASO_SINGULARIDADES = 0.05;
+
+    // Periodicidad: se analiza un solo periodo si el rango cubre al menos dos
+    private static final double PERIODOS_MINIMOS = 2.0;
+    private static final double MUESTRAS_MINIMAS_PERIODO = 32.0;
+
+    // Análisis en flujo: muestras por bloque y margen para singularidades vecinas
+    private static final int MUESTRAS_POR_BLOQUE = 10000;
+    private static final double MARGEN_BLOQUE = 0.3;
+
+    // Análisis con presupuesto: reparto de evaluaciones entre fases
+    private static final double FRACCION_SINGULARIDADES = 0.15;
+    private static final double FRACCION_RAICES = 0.45;
+    private static final double FRACCION_MUESTREO = 0.10;
+    private static final double FRACCION_RESERVA = 0.10;
+    // Parte de la latencia objetivo que se dedica a evaluar f(x)
+    private static final double FRACCION_LATENCIA = 0.7;
+    private static final int MUESTRAS_MINIMAS_FASE = 64;
+    private static final int MUESTRAS_CALIBRACION = 256;
+    private static final int MUESTRAS_CALIBRACION_MINIMAS = 8;
+    private static final double FACTOR_REFINAMIENTO = 8.0;
+    // Evaluaciones aproximadas de las secciones por cada raíz o singularidad
+    private static final int COSTO_SECCIONES_POR_DIVISION = 12;
+
+    // Análisis progresivo: muestras de la versión preliminar
+    private static final int MUESTRAS_PRELIMINARES = 200;
+
+    // Análisis incremental: muestras por tramo y límites de lo que se conserva
+    private static final int MUESTRAS_POR_TRAMO = 100;
+    private static final int MAX_EXPRESIONES_INCREMENTALES = 8;
+    private static final int MAX_TRAMOS_INCREMENTALES = 4096;
+
+    /**
+     * Resolución de cada fase: paso para buscar raíces de f' y f'', paso del
+     * escaneo de singularidades y paso del muestreo de accesibilidad.
+     */
+    private record Resolucion(double pasoRaices, double pasoSingularidades, double pasoMuestreo) {
+    }
+
+    /**
+     * Resultados crudos de un tramo [k * ancho, (k + 1) * ancho] del análisis
+     * incremental (o de un trozo de borde del rango): singularidades y raíces
+     * de f' y f'' sin depurar (se depuran una vez en el rango completo) y el
+     * muestreo de accesibilidad del tramo completo.
+     */
+    private record Tramo(IndiceSingularidades singularidades, ListaReales raicesPrimera,
+            ListaReales raicesSegunda, ResumenMuestreo resumen) {
+    }
+
+    /**
+     * Tramos ya analizados de una expresión con un paso dado. Los tramos y
+     * las mallas de muestreo están anclados en el origen, así que no dependen
+     * del primer rango pedido: el mismo rango da siempre el mismo resultado.
+     */
+    private static final class TramosExpresion {
+        private final Map<Long, Tramo> tramos = new HashMap<>();
+    }
+
+    // Tramos por expresión y paso (las expresiones menos usadas se descartan)
+    private final Map<String, TramosExpresion> tramosPorExpresion = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TramosExpresion> eldest) {
+            return size() > MAX_EXPRESIONES_INCREMENTALES;
+        }
+    };
+
+    // Tolerancia en |f'| y |f''| para dar por encontrada una raíz
+    private final double toleranciaBiseccion;
+    private final EstrategiaRaices estrategia;
+
+    public AnalizadorFuncion() {
+        this(OpcionesAnalisis.TOLERANCIA_RAICES_DEFECTO);
+    }
+
+    /**
+     * @param toleranciaBiseccion Tolerancia de la bisección al buscar raíces
+     *                            de f' y f'' (ver
+     *                            {@link OpcionesAnalisis#conToleranciaRaices})
+     */
+    public AnalizadorFuncion(double toleranciaBiseccion) {
+        this(toleranciaBiseccion, EstrategiaRaices.AUTOMATICA);
+    }
+
+    /**
+     * @param toleranciaBiseccion Tolerancia de la bisección al buscar raíces
+     *                            de f' y f''
+     * @param estrategia          Búsqueda de raíces: AUTOMATICA usa las raíces
+     *                            exactas en polinomios y la malla en el resto
+     */
+    public AnalizadorFuncion(double toleranciaBiseccion, EstrategiaRaices estrategia) {
+        if (!(toleranciaBiseccion > 0) || Double.isInfinite(toleranciaBiseccion)) {
+            throw new IllegalArgumentException("La tolerancia debe ser un número positivo");
+        }
+        if (estrategia == null) {
+            throw new IllegalArgumentException("La estrategia no puede ser nula");
+        }
+        this.toleranciaBiseccion = toleranciaBiseccion;
+        this.estrategia = estrategia;
+    }
+
+    public double getToleranciaBiseccion() {
+        return toleranciaBiseccion;
+    }
+
+    public EstrategiaRaices getEstrategia() {
+        return estrategia;
+    }
 
     /**
      * Interfaz funcional para derivadas genéricas.
@@ -82,290 +190,1223 @@ public class AnalizadorFuncion {
             boolean calcConcavidad)
             throws ExpresionInvalidaException, CalculoNumericoException {
 
-        // Validar expresión
-        ValidadorExpresion.validar(expresion);
+        return analizarEnRango(expresion, minX, maxX, step, new ControlAnalisis(),
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+    }
+
+    /**
+     * Igual que {@link #analizarEnRango(String, double, double, double, boolean,
+     * boolean, boolean, boolean, boolean)} pero cancelable y con plazo.
+     *
+     * @param control Token de cancelación y plazo del análisis
+     * @return ResultadoAnalisis, marcado como incompleto si venció el plazo
+     * @throws AnalisisCanceladoException si el análisis fue cancelado
+     * @throws ExpresionInvalidaException si la expresión no puede ser parseada
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     */
+    public ResultadoAnalisis analizarEnRango(
+            String expresion,
+            double minX,
+            double maxX,
+            double step,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        // Validar y compilar la expresión (una sola lectura)
+        return analizarEnRango(expresion, ValidadorExpresion.validar(expresion), minX, maxX, step, control,
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+    }
+
+    // analizarEnRango con la expresión ya validada y compilada
+    private ResultadoAnalisis analizarEnRango(
+            String expresion,
+            Evaluador evaluador,
+            double minX,
+            double maxX,
+            double step,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        ResultadoAnalisis resultado = analizarNucleo(expresion, evaluador,
+                ClasificadorFuncion.clasificar(evaluador.getArbol()), minX, maxX,
+                new Resolucion(step, PASO_SINGULARIDADES, step), null, control,
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        marcarSiIncompleto(resultado, control);
+        return resultado;
+    }
+
+    /**
+     * Analiza la función eligiendo automáticamente la resolución de cada fase a
+     * partir de un presupuesto de evaluaciones y/o una latencia objetivo, en
+     * lugar de un paso fijo. El presupuesto sobrante se invierte en refinar
+     * las zonas donde se vieron cambios de signo o singularidades.
+     *
+     * @param presupuesto Presupuesto a respetar (no se modifica: el consumo se
+     *                    informa en el resultado)
+     * @return ResultadoAnalisis con el paso utilizado y el consumo del
+     *         presupuesto, con sus secciones ya calculadas
+     * @throws ExpresionInvalidaException si la expresión no puede ser parseada
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     */
+    public ResultadoAnalisis analizarConPresupuesto(
+            String expresion,
+            double minX,
+            double maxX,
+            PresupuestoEvaluacion presupuesto,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        return analizarConPresupuesto(expresion, minX, maxX, presupuesto, new ControlAnalisis(),
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+    }
+
+    /**
+     * Análisis con presupuesto, cancelable y con plazo.
+     *
+     * @param control Token de cancelación y plazo del análisis
+     * @throws AnalisisCanceladoException si el análisis fue cancelado
+     */
+    public ResultadoAnalisis analizarConPresupuesto(
+            String expresion,
+            double minX,
+            double maxX,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        return analizarConPresupuesto(expresion, ValidadorExpresion.validar(expresion), minX, maxX, presupuesto,
+                control, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+    }
+
+    // analizarConPresupuesto con la expresión ya validada y compilada
+    private ResultadoAnalisis analizarConPresupuesto(
+            String expresion,
+            Evaluador compilado,
+            double minX,
+            double maxX,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        // Se descuenta de una copia: el presupuesto del llamador no cambia
+        PresupuestoEvaluacion consumo = presupuesto.copiar();
+        Evaluador evaluador = new EvaluadorContado(compilado, consumo);
+
+        // Convertir la latencia objetivo en evaluaciones según el costo medido
+        if (consumo.getLatenciaObjetivoMs() > 0) {
+            double nanosPorEvaluacion = medirCostoEvaluacion(evaluador, minX, maxX, consumo.getLimite());
+            long porLatencia = (long) (consumo.getLatenciaObjetivoMs() * 1e6 * FRACCION_LATENCIA
+                    / nanosPorEvaluacion);
+            consumo.setLimite(Math.min(consumo.getLimite(), porLatencia));
+        }
+
+        // En funciones periódicas solo se recorre un periodo
+        ClaseFuncion clase = ClasificadorFuncion.clasificar(evaluador.getArbol());
+        double periodo = periodoAplicable(clase, minX, maxX);
+        double ancho = Double.isNaN(periodo) ? maxX - minX : periodo;
+        Resolucion resolucion = elegirResolucion(consumo.getRestantes(), ancho);
+
+        ResultadoAnalisis resultado = analizarNucleo(expresion, evaluador, clase, minX, maxX, resolucion,
+                consumo, control, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        // Las secciones también evalúan f(x): se calculan antes de informar el consumo
+        resultado.completarSecciones();
+        resultado.setPasoUtilizado(resolucion.pasoRaices());
+        resultado.setEvaluaciones(consumo.getEvaluaciones());
+        resultado.setPresupuestoAgotado(consumo.isAgotado());
+        if (consumo.isAgotado()) {
+            resultado.agregarMensajeAccesibilidad(String.format(
+                    "Presupuesto de evaluación agotado (paso %.4g). Algunos puntos pueden ser aproximados.",
+                    resolucion.pasoRaices()));
+        }
+        marcarSiIncompleto(resultado, control);
+        return resultado;
+    }
+
+    /**
+     * Análisis progresivo: entrega al oyente un resultado preliminar sobre una
+     * malla gruesa (unos milisegundos) y, a continuación, el resultado
+     * refinado con el presupuesto indicado. Permite mostrar algo de inmediato
+     * y actualizarlo en cuanto se tenga la versión definitiva. Cada versión
+     * llega con sus secciones ya calculadas, de modo que el oyente puede
+     * mostrarla en el hilo de la interfaz sin trabajo adicional.
+     *
+     * @param presupuesto Presupuesto del análisis refinado
+     * @param control     Token de cancelación y plazo de ambas fases
+     * @param oyente      Receptor de cada versión del resultado
+     * @return El resultado refinado (el mismo que recibe el oyente al final)
+     * @throws AnalisisCanceladoException si el análisis fue cancelado
+     * @throws ExpresionInvalidaException si la expresión no puede ser parseada
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     */
+    public ResultadoAnalisis analizarProgresivo(
+            String expresion,
+            double minX,
+            double maxX,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad,
+            OyenteAnalisis oyente)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+        return analizarProgresivo(expresion, ValidadorExpresion.validar(expresion), minX, maxX, presupuesto,
+                control, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad, oyente);
+    }
+
+    /**
+     * Igual que el anterior, con la expresión ya compilada (por ejemplo,
+     * durante el análisis en vivo, donde se leyó al escribirla). Solo se
+     * comprueban las indeterminaciones; el evaluador recibido no se usa desde
+     * el hilo del análisis.
+     */
+    public ResultadoAnalisis analizarProgresivo(
+            String expresion,
+            Evaluador compilado,
+            double minX,
+            double maxX,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad,
+            OyenteAnalisis oyente)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        Evaluador evaluador = ValidadorExpresion.validar(compilado);
+
+        // 1. Versión preliminar: malla gruesa de paso fijo, sin refinamiento
+        double pasoGrueso = (maxX - minX) / MUESTRAS_PRELIMINARES;
+        ResultadoAnalisis preliminar = analizarNucleo(expresion, evaluador,
+                ClasificadorFuncion.clasificar(evaluador.getArbol()), minX, maxX,
+                new Resolucion(pasoGrueso, Math.max(PASO_SINGULARIDADES, pasoGrueso / 2.0), pasoGrueso),
+                null, control, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        preliminar.setPasoUtilizado(pasoGrueso);
+        marcarSiIncompleto(preliminar, control);
+
+        // Si ya no queda tiempo, la versión preliminar es la definitiva
+        if (control.isPlazoVencido()) {
+            oyente.resultadoActualizado(preliminar.completarSecciones());
+            return preliminar;
+        }
+        preliminar.setPreliminar(true);
+        oyente.resultadoActualizado(preliminar.completarSecciones());
+
+        // 2. Versión refinada con el presupuesto completo
+        ResultadoAnalisis refinado = analizarConPresupuesto(expresion, evaluador, minX, maxX, presupuesto,
+                control, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        oyente.resultadoActualizado(refinado.completarSecciones());
+        return refinado;
+    }
+
+    /**
+     * Igual que {@link #analizarEnRango} pero conserva, por expresión y paso,
+     * los resultados de cada tramo de ancho fijo (MUESTRAS_POR_TRAMO pasos,
+     * con fronteras en múltiplos del ancho). Si luego solo cambia el rango,
+     * se analizan únicamente los tramos nuevos y los intervalos se vuelven a
+     * fusionar en las fronteras. Los trozos de los bordes del rango que no
+     * llenan un tramo se analizan justo entre los límites pedidos y no se
+     * conservan. Las funciones periódicas ya recorren un solo periodo y se
+     * delegan a {@link #analizarEnRango}.
+     * Las mallas están ancladas en el origen y las singularidades y raíces se
+     * depuran una sola vez sobre el rango completo, así que el resultado es
+     * el mismo que el de {@link #analizarEnRango} con el mismo paso.
+     *
+     * @param control Token de cancelación y plazo del análisis
+     * @return ResultadoAnalisis del rango completo
+     * @throws AnalisisCanceladoException si el análisis fue cancelado
+     * @throws ExpresionInvalidaException si la expresión no puede ser parseada
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     */
+    public ResultadoAnalisis analizarIncremental(
+            String expresion,
+            double minX,
+            double maxX,
+            double step,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        Evaluador evaluador = ValidadorExpresion.validar(expresion);
+        double ancho = step * MUESTRAS_POR_TRAMO;
+        ClaseFuncion clase = ClasificadorFuncion.clasificar(evaluador.getArbol());
+        if ((maxX - minX) / ancho > MAX_TRAMOS_INCREMENTALES
+                || !Double.isNaN(periodoAplicable(clase, minX, maxX))) {
+            return analizarEnRango(expresion, evaluador, minX, maxX, step, control,
+                    calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        }
+
+        TramosExpresion previos;
+        synchronized (tramosPorExpresion) {
+            previos = tramosPorExpresion.computeIfAbsent(expresion.trim() + "|" + step,
+                    k -> new TramosExpresion());
+        }
+        Map<Long, Tramo> tramos = previos.tramos;
+        // Tramos completos dentro del rango; lo que sobra a cada lado es un
+        // borde. Las fronteras se calculan como puntos de la malla del paso.
+        long primero = (long) Math.ceil(minX / ancho);
+        if (primero * MUESTRAS_POR_TRAMO * step < minX) {
+            primero++;
+        }
+        long ultimo = (long) Math.floor(maxX / ancho) - 1;
+        if ((ultimo + 1) * MUESTRAS_POR_TRAMO * step > maxX) {
+            ultimo--;
+        }
+
+        boolean conDominio = clase.isAlgebraica();
+        Polinomio exactaPrimera = derivadaExacta(clase, 1);
+        Polinomio exactaSegunda = derivadaExacta(clase, 2);
+        IndiceSingularidades singularidades = new IndiceSingularidades();
+        ListaReales raicesPrimera = new ListaReales();
+        ListaReales raicesSegunda = new ListaReales();
+        ResumenMuestreo resumen = new ResumenMuestreo();
 
-        // Crear evaluador
-        Evaluador evaluador;
         try {
-            evaluador = new Evaluador(expresion);
+            if (primero > ultimo) {
+                // El rango no llena ningún tramo: se analiza entero
+                combinarTramo(analizarTramo(evaluador, clase, minX, maxX, step, conDominio, control),
+                        minX, maxX, singularidades, raicesPrimera, raicesSegunda, resumen);
+            } else {
+                double inicioTramos = primero * MUESTRAS_POR_TRAMO * step;
+                double finTramos = (ultimo + 1) * MUESTRAS_POR_TRAMO * step;
+                if (inicioTramos > minX) {
+                    combinarTramo(analizarTramo(evaluador, clase, minX, inicioTramos, step, conDominio, control),
+                            minX, maxX, singularidades, raicesPrimera, raicesSegunda, resumen);
+                }
+                for (long k = primero; k <= ultimo; k++) {
+                    Tramo tramo;
+                    synchronized (tramos) {
+                        tramo = tramos.get(k);
+                    }
+                    if (tramo == null) {
+                        tramo = analizarTramo(evaluador, clase, k * MUESTRAS_POR_TRAMO * step,
+                                (k + 1) * MUESTRAS_POR_TRAMO * step, step, conDominio, control);
+                        // Un tramo cortado por el plazo no se conserva
+                        if (!control.isPlazoVencido()) {
+                            synchronized (tramos) {
+                                if (tramos.size() >= MAX_TRAMOS_INCREMENTALES) {
+                                    tramos.clear();
+                                }
+                                tramos.put(k, tramo);
+                            }
+                        }
+                    }
+                    combinarTramo(tramo, minX, maxX, singularidades, raicesPrimera, raicesSegunda, resumen);
+                }
+                if (finTramos < maxX) {
+                    combinarTramo(analizarTramo(evaluador, clase, finTramos, maxX, step, conDominio, control),
+                            minX, maxX, singularidades, raicesPrimera, raicesSegunda, resumen);
+                }
+            }
+
+            // Las raíces de las derivadas exactas se calculan en todo el rango
+            quitarRepetidas(raicesPrimera, 0, step);
+            quitarRepetidas(raicesSegunda, 0, step);
+            if (exactaPrimera != null) {
+                encontrarRaices(null, exactaPrimera, minX, maxX, step, raicesPrimera, control);
+            }
+            if (exactaSegunda != null) {
+                encontrarRaices(null, exactaSegunda, minX, maxX, step, raicesSegunda, control);
+            }
+        } catch (AnalisisCanceladoException e) {
+            throw e;
         } catch (Exception e) {
-            throw new ExpresionInvalidaException("Error al parsear la expresión", e);
+            throw new CalculoNumericoException(
+                    "Error durante el análisis numérico: " + e.getMessage(), e);
         }
 
-        // Colecciones para resultados
-        PuntoCritico[] puntosCriticos = new PuntoCritico[0];
-        PuntoCritico[] puntosInflexion = new PuntoCritico[0];
-        Intervalo[] intervalosCrecimiento = new Intervalo[0];
-        Intervalo[] intervalosDecrecimiento = new Intervalo[0];
-        Intervalo[] intervalosConcavidad = new Intervalo[0];
-        // Detectar y procesar singularidades (Asíntotas, NaN, etc.) primero para
-        // usarlas en el filtrado
-        List<Singularidad> singularidades = identificarSingularidades(evaluador, minX, maxX);
+        ResultadoAnalisis resultado = construirResultado(expresion, evaluador, clase, minX, maxX, Double.NaN, maxX,
+                step, step, singularidades.depurar(0.3), raicesPrimera, raicesSegunda, resumen, control,
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        marcarSiIncompleto(resultado, control);
+        return resultado;
+    }
+
+    /**
+     * Analiza el tramo [a, b] del análisis incremental: las singularidades y
+     * los cambios de signo de los puntos de la malla en (a, b] (los de a son
+     * del tramo anterior) y el muestreo de [a, b]. Las raíces de derivadas
+     * exactas no se buscan aquí.
+     */
+    private Tramo analizarTramo(Evaluador evaluador, ClaseFuncion clase, double a, double b, double step,
+            boolean conDominio, ControlAnalisis control) throws Exception {
+        IndiceSingularidades singularidades = new IndiceSingularidades();
+        if (!clase.esContinua()) {
+            escanearSingularidades(evaluador, a, b, PASO_SINGULARIDADES, singularidades, control);
+        }
+        ListaReales raicesPrimera = new ListaReales();
+        if (derivadaExacta(clase, 1) == null) {
+            agregarCambiosDeSigno(x -> derivada(evaluador, x), a, b, step, raicesPrimera, control);
+        }
+        ListaReales raicesSegunda = new ListaReales();
+        if (derivadaExacta(clase, 2) == null) {
+            agregarCambiosDeSigno(x -> segundaDerivada(evaluador, x), a, b, step, raicesSegunda, control);
+        }
+        return new Tramo(singularidades, raicesPrimera, raicesSegunda,
+                muestrear(evaluador, a, b, step, conDominio, control));
+    }
 
+    // Agrega lo que un tramo tiene dentro del rango a los resultados del rango
+    // (las singularidades vienen en el orden del escaneo, no ordenadas)
+    private void combinarTramo(Tramo tramo, double minX, double maxX, IndiceSingularidades singularidades,
+            ListaReales raicesPrimera, ListaReales raicesSegunda, ResumenMuestreo resumen) {
+        IndiceSingularidades delTramo = tramo.singularidades();
+        for (int i = 0; i < delTramo.tamanio(); i++) {
+            if (delTramo.getX(i) >= minX && delTramo.getX(i) <= maxX) {
+                singularidades.agregar(delTramo.getX(i), delTramo.getTipo(i));
+            }
+        }
+        raicesPrimera.agregarTodos(tramo.raicesPrimera());
+        raicesSegunda.agregarTodos(tramo.raicesSegunda());
+        resumen.combinar(tramo.resumen());
+    }
+
+    // Si venció el plazo, el resultado es parcial y se avisa al usuario
+    private void marcarSiIncompleto(ResultadoAnalisis resultado, ControlAnalisis control) {
+        if (control.isPlazoVencido()) {
+            resultado.setIncompleto(true);
+            resultado.agregarMensajeAccesibilidad(
+                    "El análisis se detuvo al alcanzar el tiempo límite. Los resultados son parciales.");
+        }
+    }
+
+    /**
+     * Núcleo del análisis compartido por el modo de paso fijo y el modo con
+     * presupuesto (presupuesto != null habilita el refinamiento). Si vence el
+     * plazo del control, cada fase restante termina en cuanto empieza y el
+     * resultado se marca como incompleto.
+     */
+    private ResultadoAnalisis analizarNucleo(
+            String expresion,
+            Evaluador evaluador,
+            ClaseFuncion clase,
+            double minX,
+            double maxX,
+            Resolucion resolucion,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws CalculoNumericoException {
+
+        double step = resolucion.pasoRaices();
+
+        // Si la función es periódica basta analizar un solo periodo [minX, finBase]
+        // y replicar los resultados en todo el rango solicitado
+        double periodo = periodoAplicable(clase, minX, maxX);
+        boolean periodica = !Double.isNaN(periodo);
+        double finBase = periodica ? minX + periodo : maxX;
+        // (con presupuesto la resolución ya se eligió para un periodo)
+        boolean minimoPeriodo = periodica && presupuesto == null;
+        double pasoBase = minimoPeriodo ? Math.min(step, periodo / MUESTRAS_MINIMAS_PERIODO) : step;
+        double pasoSingularidades = resolucion.pasoSingularidades();
+        double pasoMuestreo = minimoPeriodo
+                ? Math.min(resolucion.pasoMuestreo(), periodo / MUESTRAS_MINIMAS_PERIODO)
+                : resolucion.pasoMuestreo();
+
+        // Detectar y procesar singularidades (Asíntotas, NaN, etc.) primero para
+        // usarlas en el filtrado (una función continua en toda la recta no tiene)
+        IndiceSingularidades singularidadesBase = clase.esContinua() ? new IndiceSingularidades()
+                : periodica
+                ? reducirSingularidadesAlPeriodo(identificarSingularidades(evaluador,
+                        minX - pasoBase, finBase + pasoBase, pasoSingularidades, control), minX, periodo)
+                : identificarSingularidades(evaluador, minX, maxX, pasoSingularidades, control);
+
+        ListaReales raicesPrimeraDerivada;
+        ListaReales raicesSegundaDerivada;
+        FuncionDerivada primera = x -> derivada(evaluador, x);
+        FuncionDerivada segunda = x -> segundaDerivada(evaluador, x);
+        // En polinomios las raíces de f' y f'' se obtienen exactas, sin malla
+        Polinomio exactaPrimera = derivadaExacta(clase, 1);
+        Polinomio exactaSegunda = derivadaExacta(clase, 2);
+
+        // Con presupuesto la búsqueda de raíces (bisección y refinamiento
+        // incluidos) se corta al llegar a lo que deja libre el muestreo final
+        // y la reserva de las secciones
+        long muestrasFinales = (long) ((finBase - minX) / pasoMuestreo) + 1;
+        ControlPresupuesto controlRaices = presupuesto == null ? null
+                : new ControlPresupuesto(control, presupuesto, presupuesto.getLimite() - muestrasFinales * 6
+                        - (long) (presupuesto.getLimite() * FRACCION_RESERVA));
+        ControlAnalisis controlBusqueda = controlRaices == null ? control : controlRaices;
         try {
-            // CALCULAR SIEMPRE LAS RAÍCES para poder dividir los intervalos correctamente,
-            // incluso si el usuario no pide ver los puntos críticos.
-            List<Double> raicesPrimeraDerivada = encontrarRaices(
-                    x -> derivada(evaluador, x), minX, maxX, step);
+            // Las raíces de f' se calculan si se pide cualquier sección que las use
+            // (los intervalos se dividen en ellas aunque no se muestren los
+            // puntos críticos); las de f'' solo para inflexión o concavidad.
+            boolean conPrimera = calcPuntosCriticos || calcMaxMin || calcIntervalos;
+            boolean conSegunda = calcInflexion || calcConcavidad;
+
+            raicesPrimeraDerivada = !conPrimera ? new ListaReales()
+                    : periodica
+                            ? reducirAlPeriodo(encontrarRaices(primera, exactaPrimera,
+                                    minX - pasoBase, finBase + pasoBase, pasoBase, controlBusqueda), minX, periodo,
+                                    pasoBase / 2.0)
+                            : encontrarRaices(primera, exactaPrimera, minX, maxX, step, controlBusqueda);
+
+            raicesSegundaDerivada = !conSegunda ? new ListaReales()
+                    : periodica
+                            ? reducirAlPeriodo(encontrarRaices(segunda, exactaSegunda,
+                                    minX - pasoBase, finBase + pasoBase, pasoBase, controlBusqueda), minX, periodo,
+                                    pasoBase / 2.0)
+                            : encontrarRaices(segunda, exactaSegunda, minX, maxX, step, controlBusqueda);
+
+            // Con presupuesto: invertir lo que sobra (descontando el muestreo final) en
+            // refinar alrededor de singularidades y cambios de signo (las raíces
+            // exactas no se refinan)
+            if (presupuesto != null) {
+                long disponible = controlRaices.getRestantes();
+                double pasoFino = pasoBase / FACTOR_REFINAMIENTO;
+                boolean completo = true;
+
+                completo &= refinarSingularidades(evaluador, singularidadesBase, pasoSingularidades,
+                        presupuesto, disponible / 4, controlBusqueda);
+                if (conPrimera && exactaPrimera == null) {
+                    ListaReales refinadas = new ListaReales(raicesPrimeraDerivada.tamanio());
+                    completo &= refinarRaices(primera, raicesPrimeraDerivada, singularidadesBase, minX, finBase,
+                            pasoBase, 2, presupuesto, disponible * 3 / 8, refinadas, controlBusqueda);
+                    raicesPrimeraDerivada = periodica
+                            ? reducirAlPeriodo(refinadas, minX, periodo, pasoFino / 2.0)
+                            : refinadas;
+                }
+                if (conSegunda && exactaSegunda == null) {
+                    ListaReales refinadas = new ListaReales(raicesSegundaDerivada.tamanio());
+                    completo &= refinarRaices(segunda, raicesSegundaDerivada, singularidadesBase, minX, finBase,
+                            pasoBase, 3, presupuesto, disponible * 3 / 8, refinadas, controlBusqueda);
+                    raicesSegundaDerivada = periodica
+                            ? reducirAlPeriodo(refinadas, minX, periodo, pasoFino / 2.0)
+                            : refinadas;
+                }
 
-            // Filtrar raíces que están en singularidades
-            List<Double> raicesPrimeraFiltradas = new ArrayList<>();
-            for (double r : raicesPrimeraDerivada) {
-                if (!esPuntoEnSingularidad(r, singularidades)) {
-                    raicesPrimeraFiltradas.add(r);
+                if (!completo || controlRaices.isAgotado()) {
+                    presupuesto.marcarAgotado();
                 }
             }
+        } catch (AnalisisCanceladoException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CalculoNumericoException(
+                    "Error durante el análisis numérico: " + e.getMessage(), e);
+        }
 
-            // Encontrar puntos críticos (para visualización)
-            if (calcPuntosCriticos || calcMaxMin) {
-                if (calcMaxMin) {
-                    puntosCriticos = clasificarPuntosCriticos(evaluador, raicesPrimeraFiltradas);
-                } else {
-                    puntosCriticos = crearPuntosCriticos(evaluador, raicesPrimeraFiltradas, null);
-                }
+        // Con presupuesto el muestreo final se ralea si lo que queda no alcanza
+        // para él y para las secciones (que cuestan según las divisiones)
+        if (presupuesto != null) {
+            long divisiones = singularidadesBase.tamanio() + raicesPrimeraDerivada.tamanio()
+                    + raicesSegundaDerivada.tamanio() + 1;
+            long muestrasPosibles = (presupuesto.getRestantes() - divisiones * COSTO_SECCIONES_POR_DIVISION) / 6;
+            if (muestrasPosibles < muestrasFinales) {
+                pasoMuestreo = (finBase - minX) / Math.max(2, muestrasPosibles);
+                presupuesto.marcarAgotado();
             }
+        }
+
+        return construirResultado(expresion, evaluador, clase, minX, maxX, periodo, finBase, pasoBase, pasoMuestreo,
+                singularidadesBase, raicesPrimeraDerivada, raicesSegundaDerivada, null, control,
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+    }
+
+    /**
+     * Segunda mitad del análisis: a partir de las singularidades y las raíces
+     * de f' y f'' ya encontradas en [minX, finBase], arma un resultado
+     * diferido. Aquí solo se hace el muestreo de accesibilidad (decide si la
+     * función es constante, lineal o cuadrática); la clasificación de puntos,
+     * los intervalos, las derivadas simbólicas y los mensajes se calculan en
+     * {@link ContextoAnalisis} la primera vez que se consultan.
+     *
+     * @param resumen Muestreo de accesibilidad ya realizado, o null para
+     *                hacerlo aquí
+     */
+    private ResultadoAnalisis construirResultado(
+            String expresion,
+            Evaluador evaluador,
+            ClaseFuncion clase,
+            double minX,
+            double maxX,
+            double periodo,
+            double finBase,
+            double pasoBase,
+            double pasoMuestreo,
+            IndiceSingularidades singularidadesBase,
+            ListaReales raicesPrimeraDerivada,
+            ListaReales raicesSegundaDerivada,
+            ResumenMuestreo resumen,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws CalculoNumericoException {
+
+        // Sin tiempo para los chequeos de accesibilidad: entregar lo que hay
+        boolean conAccesibilidad = control.continuar();
+
+        // Validar si la función es constante, lineal o cuadrática en el rango (el
+        // análisis incremental entrega el muestreo ya hecho por tramos)
+        if (conAccesibilidad && resumen == null) {
+            resumen = muestrear(evaluador, minX, finBase, pasoMuestreo, clase.isAlgebraica(), control);
+        }
+
+        ContextoAnalisis contexto = new ContextoAnalisis(expresion, evaluador, clase, minX, maxX, periodo, finBase,
+                pasoBase, pasoMuestreo, singularidadesBase, raicesPrimeraDerivada, raicesSegundaDerivada,
+                conAccesibilidad ? resumen : null,
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
 
-            // Encontrar puntos de inflexión
-            List<Double> raicesSegundaDerivada = encontrarRaices(
-                    x -> segundaDerivada(evaluador, x), minX, maxX, step);
+        ResultadoAnalisis resultado = new ResultadoAnalisis(contexto);
+        if (conAccesibilidad && resumen.interrumpido) {
+            resultado.setIncompleto(true);
+        }
+        return resultado;
+    }
+
+    // Forma de la función según el muestreo de f' y f''
+    private enum FormaFuncion {
+        CONSTANTE, LINEAL, CUADRATICA, GENERAL
+    }
 
-            // Filtrar raíces: cambio de signo real Y no estar en singularidad
-            List<Double> raicesSegundaFiltradas = new ArrayList<>();
-            for (double raiz : raicesSegundaDerivada) {
-                if (!esPuntoEnSingularidad(raiz, singularidades) &&
-                        verificarCambioSigno(x -> segundaDerivada(evaluador, x), raiz, step / 10.0)) {
-                    raicesSegundaFiltradas.add(raiz);
+    /**
+     * Contexto compartido de un análisis ya recorrido: las secciones del
+     * resultado se calculan a partir de él la primera vez que se consultan y
+     * quedan memorizadas, de modo que las que nadie lee no cuestan nada.
+     * Las secciones no solicitadas en las opciones son siempre vacías. Es
+     * seguro consultarlo desde varios hilos.
+     */
+    private final class ContextoAnalisis implements ResultadoAnalisis.Secciones {
+        private final String expresion;
+        private final Evaluador evaluador;
+        private final ClaseFuncion clase;
+        private final double minX;
+        private final double maxX;
+        private final double periodo;
+        private final boolean periodica;
+        private final double finBase;
+        private final double pasoBase;
+        private final double pasoMuestreo;
+        private final IndiceSingularidades singularidadesBase;
+        private final ListaReales raicesPrimeraDerivada;
+        private final ListaReales raicesSegundaDerivada;
+        // null si venció el plazo antes del muestreo de accesibilidad
+        private final ResumenMuestreo resumen;
+        private final FormaFuncion forma;
+        private final boolean calcPuntosCriticos;
+        private final boolean calcIntervalos;
+        private final boolean calcMaxMin;
+        private final boolean calcInflexion;
+        private final boolean calcConcavidad;
+
+        // Secciones ya calculadas
+        private IndiceSingularidades singularidades;
+        private IndiceSingularidades singularidadesVecinas;
+        private ListaReales raicesPrimeraFiltradas;
+        private ListaReales raicesSegundaFiltradas;
+        // Búfer reutilizado para las divisiones de los intervalos
+        private final ListaReales divisiones = new ListaReales();
+        private TablaPuntos puntosCriticos;
+        private TablaPuntos puntosInflexion;
+        private TablaIntervalos intervalosCrecimiento;
+        private TablaIntervalos intervalosDecrecimiento;
+        private TablaIntervalos intervalosConcavidad;
+        private String primeraDerivada;
+        private String segundaDerivada;
+        private List<String> mensajes;
+
+        ContextoAnalisis(String expresion, Evaluador evaluador, ClaseFuncion clase, double minX, double maxX,
+                double periodo,
+                double finBase, double pasoBase, double pasoMuestreo, IndiceSingularidades singularidadesBase,
+                ListaReales raicesPrimeraDerivada, ListaReales raicesSegundaDerivada, ResumenMuestreo resumen,
+                boolean calcPuntosCriticos, boolean calcIntervalos, boolean calcMaxMin, boolean calcInflexion,
+                boolean calcConcavidad) {
+            this.expresion = expresion;
+            this.evaluador = evaluador;
+            this.clase = clase;
+            this.minX = minX;
+            this.maxX = maxX;
+            this.periodo = periodo;
+            this.periodica = !Double.isNaN(periodo);
+            this.finBase = finBase;
+            this.pasoBase = pasoBase;
+            this.pasoMuestreo = pasoMuestreo;
+            this.singularidadesBase = singularidadesBase;
+            this.raicesPrimeraDerivada = raicesPrimeraDerivada;
+            this.raicesSegundaDerivada = raicesSegundaDerivada;
+            this.resumen = resumen;
+            this.calcPuntosCriticos = calcPuntosCriticos;
+            this.calcIntervalos = calcIntervalos;
+            this.calcMaxMin = calcMaxMin;
+            this.calcInflexion = calcInflexion;
+            this.calcConcavidad = calcConcavidad;
+
+            if (resumen == null) {
+                forma = FormaFuncion.GENERAL;
+            } else if (resumen.derivadaCero()) {
+                forma = FormaFuncion.CONSTANTE;
+            } else if (resumen.segundaDerivadaCero()) {
+                forma = FormaFuncion.LINEAL;
+            } else if (resumen.segundaDerivadaConstante() && !clase.isRacional() && !clase.isAlgebraica()
+                    && !clase.isTrigonometrica() && !clase.isLogaritmica()) {
+                forma = FormaFuncion.CUADRATICA;
+            } else {
+                forma = FormaFuncion.GENERAL;
+            }
+        }
+
+        @Override
+        public synchronized TablaPuntos puntosCriticos() {
+            if (puntosCriticos == null) {
+                // Encontrar puntos críticos (para visualización)
+                if (!(calcPuntosCriticos || calcMaxMin) || forma == FormaFuncion.CONSTANTE
+                        || forma == FormaFuncion.LINEAL) {
+                    puntosCriticos = new TablaPuntos();
+                } else {
+                    puntosCriticos = calcMaxMin
+                            ? clasificarPuntosCriticos(evaluador, raicesPrimeraFiltradas())
+                            : crearPuntosCriticos(evaluador, raicesPrimeraFiltradas(), null);
+                    if (periodica) {
+                        puntosCriticos = teselarPuntos(puntosCriticos, minX, maxX, periodo);
+                    }
                 }
             }
+            return puntosCriticos;
+        }
 
-            if (calcInflexion) {
-                puntosInflexion = crearPuntosCriticos(
-                        evaluador, raicesSegundaFiltradas, TipoPuntoCritico.INFLEXION);
+        @Override
+        public synchronized TablaPuntos puntosInflexion() {
+            if (puntosInflexion == null) {
+                if (!calcInflexion || forma != FormaFuncion.GENERAL) {
+                    puntosInflexion = new TablaPuntos();
+                } else {
+                    puntosInflexion = crearPuntosCriticos(
+                            evaluador, raicesSegundaFiltradas(), TipoPuntoCritico.INFLEXION);
+                    if (periodica) {
+                        puntosInflexion = teselarPuntos(puntosInflexion, minX, maxX, periodo);
+                    }
+                }
             }
+            return puntosInflexion;
+        }
 
-            // Calcular intervalos de monotonía si se solicita
-            if (calcIntervalos) {
-                // Usar TODAS las raíces detectadas para dividir los intervalos, no solo los
-                // clasificados
-                Intervalo[] intervalosMonotonia = calcularIntervalosMonotonia(
-                        evaluador, raicesPrimeraFiltradas, singularidades, minX, maxX);
+        @Override
+        public synchronized TablaIntervalos intervalosCrecimiento() {
+            calcularMonotonia();
+            return intervalosCrecimiento;
+        }
 
-                // Separar en crecientes y decrecientes
-                List<Intervalo> crecientes = new ArrayList<>();
-                List<Intervalo> decrecientes = new ArrayList<>();
+        @Override
+        public synchronized TablaIntervalos intervalosDecrecimiento() {
+            calcularMonotonia();
+            return intervalosDecrecimiento;
+        }
 
-                for (Intervalo intervalo : intervalosMonotonia) {
-                    if (intervalo.getTipoIntervalo() == TipoIntervalo.CRECIENTE) {
-                        crecientes.add(intervalo);
-                    } else {
-                        decrecientes.add(intervalo);
+        @Override
+        public synchronized TablaIntervalos intervalosConcavidad() {
+            if (intervalosConcavidad == null) {
+                if (!calcConcavidad || forma == FormaFuncion.CONSTANTE || forma == FormaFuncion.LINEAL) {
+                    intervalosConcavidad = new TablaIntervalos();
+                } else {
+                    TablaIntervalos subintervalos = subintervalosConcavidad(
+                            evaluador, raicesSegundaFiltradas(), singularidadesBase, minX, finBase, divisiones);
+                    if (periodica) {
+                        subintervalos = teselarIntervalos(subintervalos, minX, maxX, periodo);
                     }
+                    intervalosConcavidad = fusionarIntervalos(subintervalos, singularidades(), minX, maxX);
                 }
+            }
+            return intervalosConcavidad;
+        }
 
-                intervalosCrecimiento = crecientes.toArray(new Intervalo[0]);
-                intervalosDecrecimiento = decrecientes.toArray(new Intervalo[0]);
+        @Override
+        public synchronized String primeraDerivada() {
+            if (primeraDerivada == null) {
+                primeraDerivada = DerivadorSimbolico.derivar(evaluador.getArbol());
             }
+            return primeraDerivada;
+        }
 
-            // Calcular intervalos de concavidad si se solicita
-            if (calcConcavidad) {
-                intervalosConcavidad = calcularIntervalosConcavidad(
-                        evaluador, raicesSegundaFiltradas, singularidades, minX, maxX);
+        @Override
+        public synchronized String segundaDerivada() {
+            if (segundaDerivada == null) {
+                segundaDerivada = DerivadorSimbolico.derivarSegunda(evaluador.getArbol());
             }
+            return segundaDerivada;
+        }
 
-        } catch (Exception e) {
-            throw new CalculoNumericoException(
-                    "Error durante el análisis numérico: " + e.getMessage(), e);
+        @Override
+        public synchronized List<String> mensajesAccesibilidad() {
+            if (mensajes == null) {
+                mensajes = new ArrayList<>();
+                agregarMensajes(mensajes);
+            }
+            return mensajes;
+        }
+
+        @Override
+        public synchronized long bytesAproximados() {
+            // El árbol del evaluador se estima por la longitud de la expresión
+            long total = 256 + 48L * expresion.length();
+            total += singularidadesBase.bytesAproximados();
+            total += raicesPrimeraDerivada.bytesAproximados() + raicesSegundaDerivada.bytesAproximados();
+            total += divisiones.bytesAproximados();
+            if (singularidades != null && singularidades != singularidadesBase) {
+                total += singularidades.bytesAproximados();
+            }
+            if (singularidadesVecinas != null && singularidadesVecinas != singularidadesBase) {
+                total += singularidadesVecinas.bytesAproximados();
+            }
+            total += raicesPrimeraFiltradas == null ? 0 : raicesPrimeraFiltradas.bytesAproximados();
+            total += raicesSegundaFiltradas == null ? 0 : raicesSegundaFiltradas.bytesAproximados();
+            total += puntosCriticos == null ? 0 : puntosCriticos.bytesAproximados();
+            total += puntosInflexion == null ? 0 : puntosInflexion.bytesAproximados();
+            total += intervalosCrecimiento == null ? 0 : intervalosCrecimiento.bytesAproximados();
+            total += intervalosDecrecimiento == null ? 0 : intervalosDecrecimiento.bytesAproximados();
+            total += intervalosConcavidad == null ? 0 : intervalosConcavidad.bytesAproximados();
+            total += ResultadoAnalisis.bytesTexto(primeraDerivada) + ResultadoAnalisis.bytesTexto(segundaDerivada);
+            if (mensajes != null) {
+                for (String mensaje : mensajes) {
+                    total += ResultadoAnalisis.bytesTexto(mensaje);
+                }
+            }
+            return total;
         }
 
-        // Calcular derivadas simbólicas
-        String d1 = DerivadorSimbolico.derivar(expresion);
-        String d2 = DerivadorSimbolico.derivarSegunda(expresion);
+        // Intervalos de crecimiento y decrecimiento (se calculan juntos)
+        private void calcularMonotonia() {
+            if (intervalosCrecimiento != null) {
+                return;
+            }
+            if (!calcIntervalos || forma == FormaFuncion.CONSTANTE) {
+                intervalosCrecimiento = new TablaIntervalos();
+                intervalosDecrecimiento = new TablaIntervalos();
+                return;
+            }
+
+            // Usar TODAS las raíces detectadas para dividir los intervalos, no solo los
+            // clasificados
+            TablaIntervalos subintervalos = subintervalosMonotonia(
+                    evaluador, raicesPrimeraFiltradas(), singularidadesBase, minX, finBase, divisiones);
+            if (periodica) {
+                subintervalos = teselarIntervalos(subintervalos, minX, maxX, periodo);
+            }
+            TablaIntervalos intervalosMonotonia = fusionarIntervalos(subintervalos, singularidades(), minX, maxX);
+
+            // Separar en crecientes y decrecientes
+            TablaIntervalos crecientes = new TablaIntervalos();
+            TablaIntervalos decrecientes = new TablaIntervalos();
+
+            for (int i = 0; i < intervalosMonotonia.tamanio(); i++) {
+                TablaIntervalos destino = intervalosMonotonia.getTipo(i) == TipoIntervalo.CRECIENTE
+                        ? crecientes
+                        : decrecientes;
+                destino.agregar(intervalosMonotonia.getInicio(i), intervalosMonotonia.getFin(i),
+                        intervalosMonotonia.getTipo(i));
+            }
 
-        // Crear y retornar resultado
-        ResultadoAnalisis resultado = new ResultadoAnalisis(
-                puntosCriticos,
-                puntosInflexion,
-                intervalosCrecimiento,
-                intervalosDecrecimiento,
-                intervalosConcavidad,
-                d1,
-                d2);
+            intervalosCrecimiento = crecientes;
+            intervalosDecrecimiento = decrecientes;
+        }
 
-        // --- LÓGICA DE ACCESIBILIDAD ---
-        // Validar si la función es constante o lineal en el rango para informar al
-        // usuario
-        // Validar si la función es constante, lineal o cuadrática en el rango
-        boolean siempreDerivadaCero = true;
-        boolean siempreSegundaDerivadaCero = true;
-        double valorReferenciaD2 = Double.NaN;
-        boolean siempreSegundaDerivadaConstante = true;
-
-        for (double x = minX; x <= maxX; x += step) {
-            double valD1 = derivada(evaluador, x);
-            double valD2 = segundaDerivada(evaluador, x);
+        private IndiceSingularidades singularidades() {
+            if (singularidades == null) {
+                singularidades = periodica
+                        ? teselarSingularidades(singularidadesBase, minX, maxX, periodo)
+                        : singularidadesBase;
+            }
+            return singularidades;
+        }
 
-            if (Double.isFinite(valD1)) {
-                if (Math.abs(valD1) >= TOLERANCIA_CERO) {
-                    siempreDerivadaCero = false;
-                }
+        // Copias en los periodos contiguos para filtrar raíces cerca de los bordes
+        private IndiceSingularidades singularidadesVecinas() {
+            if (singularidadesVecinas == null) {
+                singularidadesVecinas = periodica
+                        ? teselarSingularidades(singularidadesBase, minX - periodo, finBase + periodo, periodo)
+                        : singularidadesBase;
             }
-            if (Double.isFinite(valD2)) {
-                if (Math.abs(valD2) >= TOLERANCIA_CERO) {
-                    siempreSegundaDerivadaCero = false;
-                }
+            return singularidadesVecinas;
+        }
 
-                if (Double.isNaN(valorReferenciaD2)) {
-                    valorReferenciaD2 = valD2;
-                } else if (Math.abs(valD2 - valorReferenciaD2) >= 1e-3) {
-                    // Relaxamos la tolerancia para la segunda derivada ya que es más ruidosa
-                    siempreSegundaDerivadaConstante = false;
+        // Filtrar raíces que están en singularidades
+        private ListaReales raicesPrimeraFiltradas() {
+            if (raicesPrimeraFiltradas == null) {
+                raicesPrimeraFiltradas = new ListaReales(raicesPrimeraDerivada.tamanio());
+                for (int i = 0; i < raicesPrimeraDerivada.tamanio(); i++) {
+                    double r = raicesPrimeraDerivada.get(i);
+                    if (!esPuntoEnSingularidad(r, singularidadesVecinas())) {
+                        raicesPrimeraFiltradas.agregar(r);
+                    }
                 }
             }
+            return raicesPrimeraFiltradas;
         }
 
-        // Si nunca encontramos un valor finito para D2, no podemos decir que sea
-        // constante
-        if (Double.isNaN(valorReferenciaD2)) {
-            siempreSegundaDerivadaConstante = false;
+        // Filtrar raíces: cambio de signo real Y no estar en singularidad
+        private ListaReales raicesSegundaFiltradas() {
+            if (raicesSegundaFiltradas == null) {
+                raicesSegundaFiltradas = new ListaReales(raicesSegundaDerivada.tamanio());
+                FuncionDerivada segunda = x -> AnalizadorFuncion.this.segundaDerivada(evaluador, x);
+                for (int i = 0; i < raicesSegundaDerivada.tamanio(); i++) {
+                    double raiz = raicesSegundaDerivada.get(i);
+                    if (!esPuntoEnSingularidad(raiz, singularidadesVecinas()) &&
+                            verificarCambioSigno(segunda, raiz, pasoBase / 10.0)) {
+                        raicesSegundaFiltradas.agregar(raiz);
+                    }
+                }
+            }
+            return raicesSegundaFiltradas;
         }
 
-        // Procesar singularidades para mensajes de accesibilidad
-        procesarSingularidades(singularidades, resultado);
+        // --- LÓGICA DE ACCESIBILIDAD ---
+        private void agregarMensajes(List<String> mensajes) {
+            // Procesar singularidades para mensajes de accesibilidad (en funciones
+            // periódicas, las de todo el rango, igual que en las tablas)
+            procesarSingularidades(singularidades(), mensajes);
+            if (resumen == null) {
+                return;
+            }
 
-        if (siempreDerivadaCero) {
-            resultado.setPuntosCriticos(new PuntoCritico[0]);
-            resultado.setIntervalosCrecimiento(new Intervalo[0]);
-            resultado.setIntervalosDecrecimiento(new Intervalo[0]);
-            resultado.setPuntosInflexion(new PuntoCritico[0]);
-            resultado.setIntervalosConcavidad(new Intervalo[0]);
-            resultado.agregarMensajeAccesibilidad(
-                    "Esta es una función constante. No tiene puntos críticos, extremos ni intervalos de crecimiento/decrecimiento.");
-            return resultado;
-        } else if (siempreSegundaDerivadaCero) {
-            resultado.setPuntosInflexion(new PuntoCritico[0]);
-            resultado.setIntervalosConcavidad(new Intervalo[0]);
-            resultado.setPuntosCriticos(new PuntoCritico[0]);
-            // Mantener los intervalos calculados previamente
-            resultado.agregarMensajeAccesibilidad(
-                    "Esta es una función lineal. No tiene puntos de inflexión, críticos ni concavidad definida.");
-            return resultado;
-        }
+            if (forma == FormaFuncion.CONSTANTE) {
+                mensajes.add(
+                        "Esta es una función constante. No tiene puntos críticos, extremos ni intervalos de crecimiento/decrecimiento.");
+                return;
+            } else if (forma == FormaFuncion.LINEAL) {
+                mensajes.add(
+                        "Esta es una función lineal. No tiene puntos de inflexión, críticos ni concavidad definida.");
+                return;
+            }
+
+            // --- DETECCIÓN DE FUNCIONES TRIGONOMÉTRICAS ---
+            if (clase.isTrigonometrica()) {
+                mensajes.add("Esta es una función trigonométrica.");
+
+                if (periodica) {
+                    mensajes.add(String.format(
+                            "Periodo detectado: %.4f. El análisis se realizó sobre un periodo y se replicó en todo el rango.",
+                            periodo));
+                }
+
+                if (clase.usa("sin") || clase.usa("cos")) {
+                    mensajes.add(
+                            "Las funciones seno y coseno son periódicas con un periodo de 2π (aprox. 6.28).");
+                    mensajes.add(
+                            "Debido a su periodicidad, los puntos críticos y de inflexión se repiten infinitamente.");
+                }
 
-        // --- DETECCIÓN DE FUNCIONES TRIGONOMÉTRICAS ---
-        if (esTrigonometrica(expresion)) {
-            resultado.agregarMensajeAccesibilidad("Esta es una función trigonométrica.");
+                if (clase.usa("tan") || clase.usa("sec")) {
+                    mensajes.add(
+                            "Las funciones tangente y secante tienen asíntotas verticales en (2k+1)π/2.");
+                    mensajes.add("El dominio está restringido y presenta saltos infinitos.");
+                }
+
+                if (clase.usa("cot") || clase.usa("csc")) {
+                    mensajes.add(
+                            "Las funciones cotangente y cosecante tienen asíntotas verticales en kπ.");
+                    mensajes.add("El dominio está restringido en múltiplos de π.");
+                }
+
+                if (clase.usa("tan") || clase.usa("cot")) {
+                    mensajes.add(
+                            "El periodo de las funciones tangente y cotangente es π (aprox. 3.14).");
+                }
+            }
+
+            // --- DETECCIÓN DE FUNCIONES LOGARÍTMICAS ---
+            if (clase.isLogaritmica()) {
+                mensajes.add("Esta es una función logarítmica.");
+                mensajes.add(
+                        "El dominio está restringido: el argumento del logaritmo debe ser estrictamente mayor que cero.");
+                mensajes.add(
+                        "Presenta una asíntota vertical en el valor donde el argumento es igual a cero.");
+            }
+
+            if (clase.isAlgebraica()) {
+                // Dominio en el intervalo de análisis
+                boolean tieneNaN = resumen.tieneNaN;
+                double primerX = resumen.primerX, ultimoX = resumen.ultimoX;
+
+                if (tieneNaN && periodica) {
+                    mensajes.add(
+                            "Función irracional. Dominio restringido a tramos que se repiten en cada periodo.");
+                } else if (tieneNaN && !Double.isNaN(primerX)) {
+                    String inicio = (Math.abs(primerX - minX) < pasoMuestreo * 1.5) ? "-∞"
+                            : String.format("%.2f", primerX);
+                    String fin = (Math.abs(ultimoX - maxX) < pasoMuestreo * 1.5) ? "+∞"
+                            : String.format("%.2f", ultimoX);
+                    mensajes.add(String.format(
+                            "Función irracional. Dominio restringido: [%s, %s].", inicio, fin));
+                } else if (!tieneNaN) {
+                    mensajes.add("Función irracional de dominio continuo (posible raíz impar).");
+                }
+            }
 
-            if (expresion.contains("sin") || expresion.contains("cos") || expresion.contains("sen")) {
-                resultado.agregarMensajeAccesibilidad(
-                        "Las funciones seno y coseno son periódicas con un periodo de 2π (aprox. 6.28).");
-                resultado.agregarMensajeAccesibilidad(
-                        "Debido a su periodicidad, los puntos críticos y de inflexión se repiten infinitamente.");
+            if (clase.isRacional()) {
+                mensajes.add(
+                        "Función racional. Puede presentar asíntotas verticales donde el denominador se anula.");
             }
 
-            if (expresion.contains("tan") || expresion.contains("sec")) {
-                resultado.agregarMensajeAccesibilidad(
-                        "Las funciones tangente y secante tienen asíntotas verticales en (2k+1)π/2.");
-                resultado.agregarMensajeAccesibilidad("El dominio está restringido y presenta saltos infinitos.");
+            if (forma == FormaFuncion.CUADRATICA) {
+                mensajes.add(
+                        "Esta es una función cuadrática (parábola). No tiene puntos de inflexión.");
+            } else if (clase.esPolinomio()) {
+                int grado = clase.getGrado();
+                String msg = "Esta es una función polinómica";
+                if (grado > 2)
+                    msg += " de grado " + grado;
+                msg += ". Es continua y derivable en todo su dominio.";
+                mensajes.add(msg);
+
+                if (grado > 0) {
+                    if (grado % 2 == 0) {
+                        mensajes.add("Al ser de grado par, posee al menos un extremo absoluto.");
+                    } else if (grado >= 3) {
+                        mensajes.add("Al ser de grado impar, posee al menos una raíz real.");
+                    }
+                }
             }
+        }
+    }
+
+    /**
+     * Analiza la función recorriendo el rango por bloques y entrega cada punto,
+     * singularidad e intervalo fusionado al consumidor en cuanto queda
+     * definitivo. La memoria usada es proporcional al tamaño del bloque y no al
+     * del rango, por lo que admite rangos muy amplios.
+     * No genera derivadas simbólicas ni mensajes de accesibilidad.
+     *
+     * @param consumidor Receptor de los resultados, en orden creciente de x
+     * @throws ExpresionInvalidaException si la expresión no puede ser parseada
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     */
+    public void analizarEnFlujo(
+            String expresion,
+            double minX,
+            double maxX,
+            double step,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad,
+            ConsumidorAnalisis consumidor)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        analizarEnFlujo(expresion, minX, maxX, step, calcPuntosCriticos, calcIntervalos, calcMaxMin,
+                calcInflexion, calcConcavidad, consumidor, new ControlAnalisis());
+    }
 
-            if (expresion.contains("cot") || expresion.contains("csc")) {
-                resultado.agregarMensajeAccesibilidad(
-                        "Las funciones cotangente y cosecante tienen asíntotas verticales en kπ.");
-                resultado.agregarMensajeAccesibilidad("El dominio está restringido en múltiplos de π.");
-            }
+    /**
+     * Análisis en flujo cancelable y con plazo. Si vence el plazo se deja de
+     * recorrer el rango y se invoca {@link ConsumidorAnalisis#finalizar()} con
+     * lo entregado hasta ese momento.
+     *
+     * @param control Token de cancelación y plazo del análisis
+     * @throws AnalisisCanceladoException si el análisis fue cancelado
+     */
+    public void analizarEnFlujo(
+            String expresion,
+            double minX,
+            double maxX,
+            double step,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad,
+            ConsumidorAnalisis consumidor,
+            ControlAnalisis control)
+            throws ExpresionInvalidaException, CalculoNumericoException {
 
-            if (expresion.contains("tan") || expresion.contains("cot")) {
-                resultado.agregarMensajeAccesibilidad(
-                        "El periodo de las funciones tangente y cotangente es π (aprox. 3.14).");
-            }
-        }
+        Evaluador evaluador = ValidadorExpresion.validar(expresion);
+
+        double anchoBloque = step * MUESTRAS_POR_BLOQUE;
+        ClaseFuncion clase = ClasificadorFuncion.clasificar(evaluador.getArbol());
+        FusionadorIntervalos monotonia = new FusionadorIntervalos(minX, maxX,
+                (a, b, tipo) -> consumidor.intervaloMonotonia(TablaIntervalos.aIntervalo(a, b, tipo)));
+        FusionadorIntervalos concavidad = new FusionadorIntervalos(minX, maxX,
+                (a, b, tipo) -> consumidor.intervaloConcavidad(TablaIntervalos.aIntervalo(a, b, tipo)));
+
+        // Búferes reutilizados en cada bloque
+        FuncionDerivada primera = x -> derivada(evaluador, x);
+        FuncionDerivada segunda = x -> segundaDerivada(evaluador, x);
+        Polinomio exactaPrimera = derivadaExacta(clase, 1);
+        Polinomio exactaSegunda = derivadaExacta(clase, 2);
+        ListaReales encontradas = new ListaReales();
+        ListaReales raicesPrimera = new ListaReales();
+        ListaReales raicesSegunda = new ListaReales();
+        ListaReales divisiones = new ListaReales();
+
+        // Últimos elementos entregados, para no repetirlos en la frontera entre bloques
+        double ultimaRaizPrimera = Double.NEGATIVE_INFINITY;
+        double ultimaRaizSegunda = Double.NEGATIVE_INFINITY;
+        double ultimaAsintota = Double.NEGATIVE_INFINITY;
+        double ultimoIndefinido = Double.NEGATIVE_INFINITY;
 
-        // --- DETECCIÓN DE FUNCIONES LOGARÍTMICAS ---
-        if (esLogaritmica(expresion)) {
-            resultado.agregarMensajeAccesibilidad("Esta es una función logarítmica.");
-            resultado.agregarMensajeAccesibilidad(
-                    "El dominio está restringido: el argumento del logaritmo debe ser estrictamente mayor que cero.");
-            resultado.agregarMensajeAccesibilidad(
-                    "Presenta una asíntota vertical en el valor donde el argumento es igual a cero.");
-        }
+        try {
+            double inicio = minX;
+            while (inicio < maxX && control.continuar()) {
+                double fin = Math.min(inicio + anchoBloque, maxX);
+
+                // Singularidades del bloque con un margen a cada lado para filtrar
+                // raíces y fusiones cerca de la frontera
+                IndiceSingularidades vecinas = clase.esContinua() ? new IndiceSingularidades()
+                        : identificarSingularidades(evaluador, Math.max(minX, inicio - MARGEN_BLOQUE),
+                                Math.min(maxX, fin + MARGEN_BLOQUE), control);
+                IndiceSingularidades delBloque = new IndiceSingularidades();
+                for (int i = vecinas.primeraDesde(inicio); i < vecinas.tamanio(); i++) {
+                    double x = vecinas.getX(i);
+                    if (x > fin || (x == fin && fin < maxX)) {
+                        break;
+                    }
+                    delBloque.agregar(x, vecinas.getTipo(i));
+                    if (vecinas.getTipo(i) == IndiceSingularidades.ASINTOTA && x - ultimaAsintota >= 0.3) {
+                        consumidor.asintota(x);
+                        ultimaAsintota = x;
+                    } else if (vecinas.getTipo(i) == IndiceSingularidades.INDEFINIDO
+                            && x - ultimoIndefinido >= 0.3) {
+                        consumidor.zonaIndefinida(x);
+                        ultimoIndefinido = x;
+                    }
+                }
 
-        if (esIrracional(expresion)) {
-            // Detectar dominio y rango en el intervalo de análisis
-            boolean tieneNaN = false;
-            double primerX = Double.NaN, ultimoX = Double.NaN;
-            double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                raicesPrimera.limpiar();
+                encontradas.limpiar();
+                encontrarRaices(primera, exactaPrimera, inicio, fin, step, encontradas, control);
+                for (int i = 0; i < encontradas.tamanio(); i++) {
+                    double r = encontradas.get(i);
+                    if (r - ultimaRaizPrimera > step / 2.0 && !esPuntoEnSingularidad(r, vecinas)) {
+                        raicesPrimera.agregar(r);
+                        ultimaRaizPrimera = r;
+                    }
+                }
 
-            for (double x = minX; x <= maxX; x += step) {
-                try {
-                    double val = evaluador.evaluar(x);
-                    if (Double.isNaN(val)) {
-                        tieneNaN = true;
-                    } else if (Double.isFinite(val)) {
-                        if (Double.isNaN(primerX))
-                            primerX = x;
-                        ultimoX = x;
-                        if (val < minY)
-                            minY = val;
-                        if (val > maxY)
-                            maxY = val;
+                if (calcPuntosCriticos || calcMaxMin) {
+                    TablaPuntos puntos = calcMaxMin
+                            ? clasificarPuntosCriticos(evaluador, raicesPrimera)
+                            : crearPuntosCriticos(evaluador, raicesPrimera, null);
+                    for (int i = 0; i < puntos.tamanio(); i++) {
+                        consumidor.puntoCritico(puntos.getPunto(i));
                     }
-                } catch (Exception e) {
-                    tieneNaN = true;
                 }
-            }
 
-            if (tieneNaN && !Double.isNaN(primerX)) {
-                String inicio = (Math.abs(primerX - minX) < step * 1.5) ? "-∞" : String.format("%.2f", primerX);
-                String fin = (Math.abs(ultimoX - maxX) < step * 1.5) ? "+∞" : String.format("%.2f", ultimoX);
-                resultado.agregarMensajeAccesibilidad(String.format(
-                        "Función irracional. Dominio restringido: [%s, %s].", inicio, fin));
-            } else if (!tieneNaN) {
-                resultado.agregarMensajeAccesibilidad("Función irracional de dominio continuo (posible raíz impar).");
-            }
-        }
+                raicesSegunda.limpiar();
+                if (calcInflexion || calcConcavidad) {
+                    encontradas.limpiar();
+                    encontrarRaices(segunda, exactaSegunda, inicio, fin, step, encontradas, control);
+                    for (int i = 0; i < encontradas.tamanio(); i++) {
+                        double r = encontradas.get(i);
+                        if (r - ultimaRaizSegunda > step / 2.0 && !esPuntoEnSingularidad(r, vecinas)
+                                && verificarCambioSigno(segunda, r, step / 10.0)) {
+                            raicesSegunda.agregar(r);
+                            ultimaRaizSegunda = r;
+                        }
+                    }
+                }
 
-        if (esRacional(expresion)) {
-            resultado.agregarMensajeAccesibilidad(
-                    "Función racional. Puede presentar asíntotas verticales donde el denominador se anula.");
-        }
+                if (calcInflexion) {
+                    TablaPuntos puntos = crearPuntosCriticos(evaluador, raicesSegunda, TipoPuntoCritico.INFLEXION);
+                    for (int i = 0; i < puntos.tamanio(); i++) {
+                        consumidor.puntoInflexion(puntos.getPunto(i));
+                    }
+                }
 
-        if (siempreSegundaDerivadaConstante && !esRacional(expresion) && !esIrracional(expresion)
-                && !esTrigonometrica(expresion) && !esLogaritmica(expresion)) {
-            resultado.setPuntosInflexion(new PuntoCritico[0]);
-            resultado.agregarMensajeAccesibilidad(
-                    "Esta es una función cuadrática (parábola). No tiene puntos de inflexión.");
-        } else if (esPolinomio(expresion)) {
-            int grado = detectarGradoProbable(evaluador, minX, maxX);
-            String msg = "Esta es una función polinómica";
-            if (grado > 2)
-                msg += " de grado " + grado;
-            msg += ". Es continua y derivable en todo su dominio.";
-            resultado.agregarMensajeAccesibilidad(msg);
+                if (calcIntervalos) {
+                    monotonia.agregarTodos(
+                            subintervalosMonotonia(evaluador, raicesPrimera, delBloque, inicio, fin, divisiones),
+                            vecinas);
+                }
 
-            if (grado > 0) {
-                if (grado % 2 == 0) {
-                    resultado.agregarMensajeAccesibilidad("Al ser de grado par, posee al menos un extremo absoluto.");
-                } else if (grado >= 3) {
-                    resultado.agregarMensajeAccesibilidad("Al ser de grado impar, posee al menos una raíz real.");
+                if (calcConcavidad) {
+                    concavidad.agregarTodos(
+                            subintervalosConcavidad(evaluador, raicesSegunda, delBloque, inicio, fin, divisiones),
+                            vecinas);
                 }
+
+                inicio = fin;
             }
+
+            monotonia.cerrar();
+            concavidad.cerrar();
+        } catch (AnalisisCanceladoException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CalculoNumericoException(
+                    "Error durante el análisis numérico: " + e.getMessage(), e);
         }
 
-        return resultado;
+        consumidor.finalizar();
     }
 
     /**
      * Encuentra raíces de una función derivada en un rango.
      * Método genérico que elimina duplicación de código.
+     *
+     * @param exacta La derivada como polinomio, o null: si se conoce, sus
+     *               raíces se calculan directamente en lugar de recorrer la
+     *               malla
      */
-    private List<Double> encontrarRaices(
-            FuncionDerivada funcion, double minX, double maxX, double step) {
+    private ListaReales encontrarRaices(FuncionDerivada funcion, Polinomio exacta, double minX, double maxX,
+            double step, ControlAnalisis control) throws AnalisisCanceladoException {
+        ListaReales raices = new ListaReales();
+        encontrarRaices(funcion, exacta, minX, maxX, step, raices, control);
+        return raices;
+    }
 
-        List<Double> raices = new ArrayList<>();
+    // Igual, pero agrega las raíces al final de 'raices' (sin reservar memoria)
+    private void encontrarRaices(FuncionDerivada funcion, Polinomio exacta, double minX, double maxX,
+            double step, ListaReales raices, ControlAnalisis control) throws AnalisisCanceladoException {
+        if (exacta != null) {
+            control.continuar();
+            exacta.agregarRaices(minX, maxX, raices);
+            return;
+        }
+
+        int primera = raices.tamanio();
+        agregarCambiosDeSigno(funcion, minX, maxX, step, raices, control);
+        quitarRepetidas(raices, primera, step);
+    }
+
+    /**
+     * Agrega a 'raices', sin quitar repetidas, la raíz de cada cambio de
+     * signo entre puntos consecutivos: minX y los de la malla anclada en el
+     * origen (x = k * step) que caen en (minX, maxX].
+     */
+    private void agregarCambiosDeSigno(FuncionDerivada funcion, double minX, double maxX, double step,
+            ListaReales raices, ControlAnalisis control) throws AnalisisCanceladoException {
+        long k = indiceSiguiente(minX, step);
+        double prevX = minX;
         double prevValor = funcion.calcular(minX);
 
-        for (double x = minX + step; x <= maxX; x += step) {
+        for (double x = k * step; x <= maxX && control.continuar(); x = ++k * step) {
             double valorActual = funcion.calcular(x);
 
             // Detectar cambio de signo, pero solo si no son NaN
@@ -374,30 +1415,40 @@ public class AnalizadorFuncion {
             if (!Double.isNaN(valorActual) && !Double.isNaN(prevValor) &&
                     Math.signum(valorActual) != Math.signum(prevValor)) {
                 if (Math.abs(valorActual) > TOLERANCIA_CERO || Math.abs(prevValor) > TOLERANCIA_CERO) {
-                    double raiz = biseccion(funcion, x - step, x);
+                    double raiz = biseccion(funcion, prevX, x, control);
                     if (!Double.isNaN(raiz)) {
-                        // Evitar duplicados (especialmente en fronteras de intervalos)
-                        if (raices.isEmpty() || Math.abs(raiz - raices.getLast()) > step / 2.0) {
-                            raices.add(raiz);
-                        }
+                        raices.agregar(raiz);
                     }
                 }
             }
 
+            prevX = x;
             prevValor = valorActual;
         }
+    }
 
-        return raices;
+    // Quita, desde 'primera', las raíces a menos de step / 2 de la anterior
+    // que se conservó (especialmente en fronteras de intervalos)
+    private static void quitarRepetidas(ListaReales raices, int primera, double step) {
+        int conservadas = primera;
+        for (int i = primera; i < raices.tamanio(); i++) {
+            double raiz = raices.get(i);
+            if (conservadas == primera || Math.abs(raiz - raices.get(conservadas - 1)) > step / 2.0) {
+                raices.reemplazar(conservadas++, raiz);
+            }
+        }
+        raices.truncar(conservadas);
     }
 
-    private double biseccion(FuncionDerivada funcion, double a, double b) {
+    private double biseccion(FuncionDerivada funcion, double a, double b, ControlAnalisis control)
+            throws AnalisisCanceladoException {
         double fa = funcion.calcular(a);
         double fb = funcion.calcular(b);
 
         // Si ya es casi cero en los extremos, retornar el extremo
-        if (Math.abs(fa) < TOLERANCIA_BISECCION)
+        if (Math.abs(fa) < toleranciaBiseccion)
             return a;
-        if (Math.abs(fb) < TOLERANCIA_BISECCION)
+        if (Math.abs(fb) < toleranciaBiseccion)
             return b;
 
         // Verificar que hay cambio de signo y no son NaN
@@ -406,12 +1457,13 @@ public class AnalizadorFuncion {
         }
 
         double c = a;
-        for (int i = 0; i < MAX_ITERACIONES_BISECCION; i++) {
+        // Si vence el plazo se retorna la mejor aproximación hasta el momento
+        for (int i = 0; i < MAX_ITERACIONES_BISECCION && control.continuar(); i++) {
             c = (a + b) / 2;
             double fc = funcion.calcular(c);
 
             // Converged
-            if (Math.abs(fc) < TOLERANCIA_BISECCION) {
+            if (Math.abs(fc) < toleranciaBiseccion) {
                 return c;
             }
 
@@ -449,23 +1501,18 @@ public class AnalizadorFuncion {
         return Math.signum(v1) * Math.signum(v2) < 0;
     }
 
-    private boolean esPuntoEnSingularidad(double x, List<Singularidad> singularidades) {
-        for (Singularidad s : singularidades) {
-            if (Math.abs(x - s.x) < 0.1) {
-                return true;
-            }
-        }
-        return false;
+    private boolean esPuntoEnSingularidad(double x, IndiceSingularidades singularidades) {
+        return singularidades.hayCerca(x, 0.1);
     }
 
-    private PuntoCritico[] clasificarPuntosCriticos(Evaluador evaluador, List<Double> raices) {
-        if (raices == null || raices.isEmpty()) {
-            return new PuntoCritico[0];
+    private TablaPuntos clasificarPuntosCriticos(Evaluador evaluador, ListaReales raices) {
+        if (raices == null || raices.estaVacia()) {
+            return new TablaPuntos();
         }
 
-        List<PuntoCritico> puntosList = new ArrayList<>();
+        TablaPuntos puntos = new TablaPuntos(raices.tamanio());
 
-        for (int i = 0; i < raices.size(); i++) {
+        for (int i = 0; i < raices.tamanio(); i++) {
             double x = raices.get(i);
             double y;
             try {
@@ -491,23 +1538,23 @@ public class AnalizadorFuncion {
                 tipo = null;
             }
 
-            puntosList.add(new PuntoCritico(x, y, tipo));
+            puntos.agregar(x, y, tipo);
         }
 
-        return puntosList.toArray(new PuntoCritico[0]);
+        return puntos;
     }
 
     // Crea puntos críticos con un tipo específico (o null)
-    private PuntoCritico[] crearPuntosCriticos(
-            Evaluador evaluador, List<Double> raices, TipoPuntoCritico tipo) {
+    private TablaPuntos crearPuntosCriticos(
+            Evaluador evaluador, ListaReales raices, TipoPuntoCritico tipo) {
 
-        if (raices.isEmpty()) {
-            return new PuntoCritico[0];
+        if (raices.estaVacia()) {
+            return new TablaPuntos();
         }
 
-        List<PuntoCritico> puntosList = new ArrayList<>();
+        TablaPuntos puntos = new TablaPuntos(raices.tamanio());
 
-        for (int i = 0; i < raices.size(); i++) {
+        for (int i = 0; i < raices.tamanio(); i++) {
             double x = raices.get(i);
             double y;
             try {
@@ -518,31 +1565,48 @@ public class AnalizadorFuncion {
 
             // Validar que el valor sea finito para evitar reportar falsos positivos
             if (Double.isFinite(y)) {
-                puntosList.add(new PuntoCritico(x, y, tipo));
+                puntos.agregar(x, y, tipo);
             }
         }
 
-        return puntosList.toArray(new PuntoCritico[0]);
+        return puntos;
     }
 
-    // Calcula intervalos de monotonía (crecimiento/decrecimiento)
-    private Intervalo[] calcularIntervalosMonotonia(Evaluador evaluador, List<Double> raices,
-            List<Singularidad> singularidades, double minX, double maxX) {
+    /**
+     * Deja en 'divisiones' (búfer reutilizable) los bordes, raíces y
+     * singularidades ordenados y sin repetir.
+     */
+    private static void ordenarDivisiones(ListaReales raices, IndiceSingularidades singularidades, double minX,
+            double maxX, ListaReales divisiones) {
+        divisiones.limpiar();
+        divisiones.agregar(minX);
+        divisiones.agregarTodos(raices);
+        for (int i = 0; i < singularidades.tamanio(); i++)
+            divisiones.agregar(singularidades.getX(i));
+        divisiones.agregar(maxX);
+        divisiones.ordenar();
+
+        // Quitar repetidos exactos (mismo criterio que Double.compare)
+        int unicos = 0;
+        for (int i = 0; i < divisiones.tamanio(); i++) {
+            double d = divisiones.get(i);
+            if (unicos == 0 || Double.compare(d, divisiones.get(unicos - 1)) != 0) {
+                divisiones.reemplazar(unicos++, d);
+            }
+        }
+        divisiones.truncar(unicos);
+    }
 
-        TreeSet<Double> setDivisiones = new TreeSet<>();
-        setDivisiones.add(minX);
-        for (Double r : raices)
-            setDivisiones.add(r);
-        for (Singularidad s : singularidades)
-            setDivisiones.add(s.x);
-        setDivisiones.add(maxX);
+    // Calcula intervalos de monotonía (crecimiento/decrecimiento) sin fusionar
+    private TablaIntervalos subintervalosMonotonia(Evaluador evaluador, ListaReales raices,
+            IndiceSingularidades singularidades, double minX, double maxX, ListaReales divisiones) {
 
-        List<Double> divisionesSorted = new ArrayList<>(setDivisiones);
-        List<Intervalo> todosLosIntervalos = new ArrayList<>();
+        ordenarDivisiones(raices, singularidades, minX, maxX, divisiones);
+        TablaIntervalos todosLosIntervalos = new TablaIntervalos(divisiones.tamanio());
 
-        for (int i = 0; i < divisionesSorted.size() - 1; i++) {
-            double inicio = divisionesSorted.get(i);
-            double fin = divisionesSorted.get(i + 1);
+        for (int i = 0; i < divisiones.tamanio() - 1; i++) {
+            double inicio = divisiones.get(i);
+            double fin = divisiones.get(i + 1);
 
             if (Math.abs(fin - inicio) < 1e-4)
                 continue;
@@ -564,30 +1628,22 @@ public class AnalizadorFuncion {
             }
 
             TipoIntervalo tipo = (derivadaRepresentativa > 0) ? TipoIntervalo.CRECIENTE : TipoIntervalo.DECRECIENTE;
-            todosLosIntervalos.add(new Intervalo(inicio, fin, tipo));
+            todosLosIntervalos.agregar(inicio, fin, tipo);
         }
 
-        return fusionarIntervalos(todosLosIntervalos, singularidades, minX, maxX);
+        return todosLosIntervalos;
     }
 
-    // Calcula intervalos de concavidad
-    private Intervalo[] calcularIntervalosConcavidad(Evaluador evaluador, List<Double> raices,
-            List<Singularidad> singularidades, double minX, double maxX) {
-
-        TreeSet<Double> setDivisiones = new TreeSet<>();
-        setDivisiones.add(minX);
-        for (Double r : raices)
-            setDivisiones.add(r);
-        for (Singularidad s : singularidades)
-            setDivisiones.add(s.x);
-        setDivisiones.add(maxX);
+    // Calcula intervalos de concavidad sin fusionar
+    private TablaIntervalos subintervalosConcavidad(Evaluador evaluador, ListaReales raices,
+            IndiceSingularidades singularidades, double minX, double maxX, ListaReales divisiones) {
 
-        List<Double> divisionesSorted = new ArrayList<>(setDivisiones);
-        List<Intervalo> todosLosIntervalos = new ArrayList<>();
+        ordenarDivisiones(raices, singularidades, minX, maxX, divisiones);
+        TablaIntervalos todosLosIntervalos = new TablaIntervalos(divisiones.tamanio());
 
-        for (int i = 0; i < divisionesSorted.size() - 1; i++) {
-            double inicio = divisionesSorted.get(i);
-            double fin = divisionesSorted.get(i + 1);
+        for (int i = 0; i < divisiones.tamanio() - 1; i++) {
+            double inicio = divisiones.get(i);
+            double fin = divisiones.get(i + 1);
 
             if (Math.abs(fin - inicio) < 1e-4)
                 continue;
@@ -611,59 +1667,96 @@ public class AnalizadorFuncion {
 
             TipoIntervalo tipo = (segundaDerivadaRepresentativa > 0) ? TipoIntervalo.CONCAVIDAD_POSITIVA
                     : TipoIntervalo.CONCAVIDAD_NEGATIVA;
-            todosLosIntervalos.add(new Intervalo(inicio, fin, tipo));
+            todosLosIntervalos.agregar(inicio, fin, tipo);
         }
 
-        return fusionarIntervalos(todosLosIntervalos, singularidades, minX, maxX);
+        return todosLosIntervalos;
     }
 
     /**
      * Fusiona intervalos adyacentes del mismo tipo para simplificar el resultado,
      * cuidando de NO fusionar si hay una singularidad entre ellos.
      */
-    private Intervalo[] fusionarIntervalos(List<Intervalo> intervalos, List<Singularidad> singularidades, double minX,
-            double maxX) {
-        if (intervalos.isEmpty())
-            return new Intervalo[0];
-
-        List<Intervalo> fusionados = new ArrayList<>();
-        Intervalo actual = intervalos.getFirst();
-
-        for (int i = 1; i < intervalos.size(); i++) {
-            Intervalo siguiente = intervalos.get(i);
-
-            // Verificar si hay alguna singularidad entre el fin del actual y el inicio del
-            // siguiente
-            boolean haySingularidadIntermedia = false;
-            double gMin = Math.min(actual.getFin(), siguiente.getInicio()) - 0.1;
-            double gMax = Math.max(actual.getFin(), siguiente.getInicio()) + 0.1;
-            for (Singularidad s : singularidades) {
-                if (s.x >= gMin && s.x <= gMax) {
-                    haySingularidadIntermedia = true;
-                    break;
-                }
+    private TablaIntervalos fusionarIntervalos(TablaIntervalos intervalos, IndiceSingularidades singularidades,
+            double minX, double maxX) {
+        TablaIntervalos fusionados = new TablaIntervalos();
+        FusionadorIntervalos fusionador = new FusionadorIntervalos(minX, maxX, fusionados::agregar);
+        fusionador.agregarTodos(intervalos, singularidades);
+        fusionador.cerrar();
+        return fusionados;
+    }
+
+    // Verifica si hay alguna singularidad entre el fin de un intervalo y el inicio
+    // del siguiente
+    private static boolean haySingularidadEntre(double fin, double inicio, IndiceSingularidades singularidades) {
+        double gMin = Math.min(fin, inicio) - 0.1;
+        double gMax = Math.max(fin, inicio) + 0.1;
+        return singularidades.hayEntre(gMin, gMax);
+    }
+
+    // Receptor de intervalos ya fusionados (extremos infinitos como ±∞)
+    private interface DestinoIntervalos {
+        void agregar(double inicio, double fin, TipoIntervalo tipo);
+    }
+
+    /**
+     * Fusión incremental de intervalos: recibe los subintervalos en orden y
+     * entrega cada intervalo fusionado apenas llega uno que no se le puede unir.
+     */
+    private static final class FusionadorIntervalos {
+        private final double minX;
+        private final double maxX;
+        private final DestinoIntervalos destino;
+        // Intervalo en curso (tipo null si todavía no hay ninguno)
+        private double inicio;
+        private double fin;
+        private TipoIntervalo tipo;
+
+        FusionadorIntervalos(double minX, double maxX, DestinoIntervalos destino) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.destino = destino;
+        }
+
+        void agregarTodos(TablaIntervalos intervalos, IndiceSingularidades singularidades) {
+            for (int i = 0; i < intervalos.tamanio(); i++) {
+                agregar(intervalos.getInicio(i), intervalos.getFin(i), intervalos.getTipo(i), singularidades);
             }
+        }
 
+        void agregar(double sInicio, double sFin, TipoIntervalo sTipo, IndiceSingularidades singularidades) {
+            if (tipo == null) {
+                inicio = sInicio;
+                fin = sFin;
+                tipo = sTipo;
+                return;
+            }
             // Si son del mismo tipo, adyacentes y NO hay singularidad entre ellos, fusionar
-            if (!haySingularidadIntermedia &&
-                    actual.getTipoIntervalo() == siguiente.getTipoIntervalo() &&
-                    Math.abs(actual.getFin() - siguiente.getInicio()) < 1e-3) {
-                actual = new Intervalo(actual.getInicio(), siguiente.getFin(), actual.getTipoIntervalo());
+            if (tipo == sTipo &&
+                    Math.abs(fin - sInicio) < 1e-3 &&
+                    !haySingularidadEntre(fin, sInicio, singularidades)) {
+                fin = sFin;
             } else {
-                fusionados.add(actual);
-                actual = siguiente;
+                emitir();
+                inicio = sInicio;
+                fin = sFin;
+                tipo = sTipo;
+            }
+        }
+
+        void cerrar() {
+            if (tipo != null) {
+                emitir();
+                tipo = null;
             }
         }
-        fusionados.add(actual);
 
-        // Convertir bordes de análisis a infinitos para mejor presentación numérica
-        // (opcional)
-        return fusionados.stream().map(inter -> {
-            Double ini = (inter.getInicio() != null && Math.abs(inter.getInicio() - minX) < 1e-3) ? null
-                    : inter.getInicio();
-            Double fin = (inter.getFin() != null && Math.abs(inter.getFin() - maxX) < 1e-3) ? null : inter.getFin();
-            return new Intervalo(ini, fin, inter.getTipoIntervalo());
-        }).toArray(Intervalo[]::new);
+        // Convierte bordes de análisis a infinitos para mejor presentación numérica
+        private void emitir() {
+            double ini = Math.abs(inicio - minX) < 1e-3 ? Double.NEGATIVE_INFINITY : inicio;
+            double f = Math.abs(fin - maxX) < 1e-3 ? Double.POSITIVE_INFINITY : fin;
+            destino.agregar(ini, f, tipo);
+        }
     }
 
     private double derivada(Evaluador f, double x) {
@@ -712,136 +1805,105 @@ public class AnalizadorFuncion {
         }
     }
 
-    private boolean esPolinomio(String expr) {
-        // Heurística simple: no tiene división por x
-        String lower = expr.toLowerCase();
-        if (lower.contains("/"))
-            return false;
-
-        String[] funciones = { "sin", "cos", "tan", "log", "ln", "sqrt", "asin", "acos", "atan", "abs", "exp" };
-        for (String func : funciones) {
-            if (lower.contains(func))
-                return false;
-        }
-        return lower.contains("x");
-    }
-
-    private boolean esRacional(String expr) {
-        String lower = expr.toLowerCase();
-        // Heurística: contiene '/' y tiene una 'x' en el denominador (después del '/')
-        if (!lower.contains("/"))
-            return false;
-        int idx = lower.indexOf("/");
-        String denominador = lower.substring(idx + 1);
-        return denominador.contains("x");
-    }
-
-    private boolean esIrracional(String expr) {
-        String lower = expr.toLowerCase();
-        if (lower.contains("sqrt"))
-            return true;
+    private void procesarSingularidades(IndiceSingularidades singularidades, List<String> mensajes) {
+        if (singularidades.estaVacio())
+            return;
 
-        // Buscar potencias no enteras (ej: ^0.5, ^(1/3), ^.2)
-        // Evitamos marcar ^2, ^3 como irracionales
-        if (lower.contains("^")) {
-            int idx = lower.indexOf("^");
-            String resto = lower.substring(idx + 1).trim();
-            if (resto.startsWith("0.") || resto.startsWith(".") || resto.startsWith("(")) {
-                // Heurística: si hay paréntesis después de ^, es muy probable que sea una
-                // fracción
-                // o una expresión compleja que solemos usar para raíces x^(1/3)
-                return true;
+        ListaReales asintotas = new ListaReales();
+        ListaReales indefinidos = new ListaReales();
+        for (int i = 0; i < singularidades.tamanio(); i++) {
+            if (singularidades.getTipo(i) == IndiceSingularidades.ASINTOTA) {
+                asintotas.agregar(singularidades.getX(i));
+            } else {
+                indefinidos.agregar(singularidades.getX(i));
             }
         }
-        return false;
-    }
-
-    private boolean esTrigonometrica(String expr) {
-        String lower = expr.toLowerCase();
-        String[] funciones = { "sin", "cos", "tan", "cot", "sec", "csc", "sen" };
-        for (String func : funciones) {
-            if (lower.contains(func))
-                return true;
-        }
-        return false;
-    }
-
-    private boolean esLogaritmica(String expr) {
-        String lower = expr.toLowerCase();
-        return lower.contains("ln") || lower.contains("log");
-    }
 
-    private enum TipoSingularidad {
-        ASINTOTA, INDEFINIDO
-    }
-
-    private record Singularidad(double x, TipoSingularidad tipo) {
-    }
-
-    private void procesarSingularidades(List<Singularidad> singularidades, ResultadoAnalisis resultado) {
-        if (singularidades.isEmpty())
-            return;
-
-        List<Double> asintotas = singularidades.stream()
-                .filter(s -> s.tipo == TipoSingularidad.ASINTOTA)
-                .map(s -> s.x).toList();
-        List<Double> indefinidos = singularidades.stream()
-                .filter(s -> s.tipo == TipoSingularidad.INDEFINIDO)
-                .map(s -> s.x).toList();
-
-        if (!asintotas.isEmpty()) {
+        // Solo las primeras: en funciones periódicas sobre rangos amplios
+        // pueden ser miles
+        if (!asintotas.estaVacia()) {
             StringBuilder sb = new StringBuilder(
                     "Asíntotas verticales o divisiones por cero detectadas cerca de x = {");
-            for (int i = 0; i < asintotas.size(); i++) {
+            for (int i = 0; i < Math.min(asintotas.tamanio(), 3); i++) {
                 double val = asintotas.get(i);
                 if (Math.abs(val) < 0.01)
                     val = 0.0;
                 sb.append(String.format("%.2f", val));
-                if (i < asintotas.size() - 1)
+                if (i < Math.min(asintotas.tamanio(), 3) - 1)
                     sb.append(", ");
             }
+            if (asintotas.tamanio() > 3)
+                sb.append(", ... (").append(asintotas.tamanio()).append(" en total)");
             sb.append("}.");
-            resultado.agregarMensajeAccesibilidad(sb.toString());
+            mensajes.add(sb.toString());
         }
 
-        if (!indefinidos.isEmpty()) {
+        if (!indefinidos.estaVacia()) {
             StringBuilder sb = new StringBuilder(
                     "La función no está definida (indeterminación) en algunas zonas, ej. cerca de x = {");
-            for (int i = 0; i < Math.min(indefinidos.size(), 3); i++) {
+            for (int i = 0; i < Math.min(indefinidos.tamanio(), 3); i++) {
                 double val = indefinidos.get(i);
                 if (Math.abs(val) < 0.01)
                     val = 0.0;
                 sb.append(String.format("%.2f", val));
-                if (i < Math.min(indefinidos.size(), 3) - 1)
+                if (i < Math.min(indefinidos.tamanio(), 3) - 1)
                     sb.append(", ");
             }
-            if (indefinidos.size() > 3)
+            if (indefinidos.tamanio() > 3)
                 sb.append(", ...");
             sb.append("}. Esto puede ocurrir en raíces de números negativos o logaritmos de números no positivos.");
-            resultado.agregarMensajeAccesibilidad(sb.toString());
+            mensajes.add(sb.toString());
+        }
+    }
+
+    private IndiceSingularidades identificarSingularidades(Evaluador f, double minX, double maxX,
+            ControlAnalisis control) throws AnalisisCanceladoException {
+        return identificarSingularidades(f, minX, maxX, PASO_SINGULARIDADES, control);
+    }
+
+    private IndiceSingularidades identificarSingularidades(Evaluador f, double minX, double maxX, double scanStep,
+            ControlAnalisis control) throws AnalisisCanceladoException {
+        IndiceSingularidades encontradas = new IndiceSingularidades();
+        escanearSingularidades(f, minX, maxX, scanStep, encontradas, control);
+
+        // Las de la primera muestra pueden caer antes de minX
+        IndiceSingularidades singularidades = new IndiceSingularidades(encontradas.tamanio());
+        for (int i = 0; i < encontradas.tamanio(); i++) {
+            if (encontradas.getX(i) >= minX) {
+                singularidades.agregar(encontradas.getX(i), encontradas.getTipo(i));
+            }
         }
+
+        // Limpieza de duplicados: una singularidad por tipo cada 0.3 unidades
+        return singularidades.depurar(0.3);
     }
 
-    private List<Singularidad> identificarSingularidades(Evaluador f, double minX, double maxX) {
-        List<Singularidad> singularidades = new ArrayList<>();
-        double scanStep = 0.05;
-        double h = 1e-4;
+    /**
+     * Agrega a 'destino', sin depurar y en el orden del escaneo, las
+     * singularidades vistas en los puntos de la malla anclada en el origen
+     * (x = k * scanStep) que caen en (minX, maxX]. El primer salto se mide
+     * desde el punto de la malla en minX o justo antes, así que un rango
+     * partido en tramos encuentra lo mismo que el rango entero.
+     */
+    private void escanearSingularidades(Evaluador f, double minX, double maxX, double scanStep,
+            IndiceSingularidades destino, ControlAnalisis control) throws AnalisisCanceladoException {
+        long k = indiceSiguiente(minX, scanStep);
 
         double prevVal = Double.NaN;
         try {
-            prevVal = f.evaluar(minX);
+            prevVal = f.evaluar((k - 1) * scanStep);
         } catch (Exception e) {
         }
 
-        for (double x = minX + scanStep; x <= maxX; x += scanStep) {
+        for (double x = k * scanStep; x <= maxX && control.continuar(); x = ++k * scanStep) {
             try {
                 double val = f.evaluar(x);
 
                 // 1. Detectar infinito o NaN directo
                 if (Double.isInfinite(val)) {
-                    singularidades.add(new Singularidad(x, TipoSingularidad.ASINTOTA));
+                    destino.agregar(x, IndiceSingularidades.ASINTOTA);
                 } else if (Double.isNaN(val)) {
-                    singularidades.add(new Singularidad(x, TipoSingularidad.INDEFINIDO));
+                    destino.agregar(x, IndiceSingularidades.INDEFINIDO);
                 }
 
                 // 2. Detectar salto brusco (asíntota vertical)
@@ -849,89 +1911,470 @@ public class AnalizadorFuncion {
                 // asíntota en medio
                 if (!Double.isNaN(prevVal) && !Double.isNaN(val) && Math.signum(prevVal) != Math.signum(val)) {
                     if (Math.abs(prevVal) > 5 && Math.abs(val) > 5) {
-                        singularidades.add(new Singularidad(x - scanStep / 2.0, TipoSingularidad.ASINTOTA));
+                        destino.agregar(x - scanStep / 2.0, IndiceSingularidades.ASINTOTA);
                     }
                 }
 
                 // 3. Verificación adicional para asíntotas: evaluar muy cerca
                 double vMid = f.evaluar(x - scanStep / 2.0);
                 if (Double.isInfinite(vMid) || Math.abs(vMid) > 1e4) {
-                    singularidades.add(new Singularidad(x - scanStep / 2.0, TipoSingularidad.ASINTOTA));
+                    destino.agregar(x - scanStep / 2.0, IndiceSingularidades.ASINTOTA);
                 }
 
                 prevVal = val;
             } catch (Exception e) {
-                singularidades.add(new Singularidad(x, TipoSingularidad.INDEFINIDO));
+                destino.agregar(x, IndiceSingularidades.INDEFINIDO);
                 prevVal = Double.NaN;
             }
         }
+    }
+
+    // Primer índice k con k * paso > x: los puntos de la malla anclada en el
+    // origen se calculan siempre como k * paso para que no acumulen error
+    private static long indiceSiguiente(double x, double paso) {
+        long k = (long) Math.floor(x / paso);
+        while (k * paso <= x) {
+            k++;
+        }
+        while ((k - 1) * paso > x) {
+            k--;
+        }
+        return k;
+    }
+
+    // ===== Muestreo de accesibilidad =====
+
+    /**
+     * Resumen del muestreo de f' y f'' (y del dominio de f en funciones
+     * irracionales) usado por los mensajes de accesibilidad. Los resúmenes de
+     * tramos contiguos se pueden combinar.
+     */
+    private static final class ResumenMuestreo {
+        private boolean derivadaCero = true;
+        private boolean segundaCero = true;
+        // Menor y mayor valor finito de f'' (NaN si no hubo ninguno)
+        private double minimoD2 = Double.NaN;
+        private double maximoD2 = Double.NaN;
+        private boolean interrumpido;
+
+        private boolean tieneNaN;
+        private double primerX = Double.NaN;
+        private double ultimoX = Double.NaN;
+
+        boolean derivadaCero() {
+            return derivadaCero && !interrumpido;
+        }
+
+        boolean segundaDerivadaCero() {
+            return segundaCero && !interrumpido;
+        }
+
+        // Si nunca hubo un valor finito de f'' no se puede decir que sea constante
+        boolean segundaDerivadaConstante() {
+            // Tolerancia relajada: la segunda derivada es más ruidosa
+            return !Double.isNaN(minimoD2) && maximoD2 - minimoD2 < 1e-3 && !interrumpido;
+        }
+
+        void agregarD2(double valD2) {
+            if (Double.isNaN(minimoD2)) {
+                minimoD2 = valD2;
+                maximoD2 = valD2;
+            } else {
+                minimoD2 = Math.min(minimoD2, valD2);
+                maximoD2 = Math.max(maximoD2, valD2);
+            }
+        }
+
+        // Agrega el resumen del tramo inmediatamente a la derecha
+        void combinar(ResumenMuestreo siguiente) {
+            derivadaCero &= siguiente.derivadaCero;
+            segundaCero &= siguiente.segundaCero;
+            if (!Double.isNaN(siguiente.minimoD2)) {
+                agregarD2(siguiente.minimoD2);
+                agregarD2(siguiente.maximoD2);
+            }
+            interrumpido |= siguiente.interrumpido;
+
+            tieneNaN |= siguiente.tieneNaN;
+            if (Double.isNaN(primerX)) {
+                primerX = siguiente.primerX;
+            }
+            if (!Double.isNaN(siguiente.ultimoX)) {
+                ultimoX = siguiente.ultimoX;
+            }
+        }
+    }
+
+    /**
+     * Muestrea f' y f'' en [desde, hasta] para detectar funciones constantes,
+     * lineales o cuadráticas y, si conDominio, el tramo donde f está definida.
+     * Se muestrean los puntos de la malla anclada en el origen que caen en el
+     * rango (solo desde, si no cae ninguno).
+     */
+    private ResumenMuestreo muestrear(Evaluador evaluador, double desde, double hasta, double paso,
+            boolean conDominio, ControlAnalisis control) throws AnalisisCanceladoException {
+        ResumenMuestreo resumen = new ResumenMuestreo();
+        long k = indiceSiguiente(desde, paso);
+        if ((k - 1) * paso == desde) {
+            k--;
+        }
+        boolean soloDesde = k * paso > hasta;
+        for (double x = soloDesde ? desde : k * paso; x <= hasta; x = ++k * paso) {
+            if (!control.continuar()) {
+                // Muestreo interrumpido: no se puede afirmar que sea constante o lineal
+                resumen.interrumpido = true;
+                break;
+            }
+            double valD1 = derivada(evaluador, x);
+            double valD2 = segundaDerivada(evaluador, x);
+
+            if (Double.isFinite(valD1)) {
+                if (Math.abs(valD1) >= TOLERANCIA_CERO) {
+                    resumen.derivadaCero = false;
+                }
+            }
+            if (Double.isFinite(valD2)) {
+                if (Math.abs(valD2) >= TOLERANCIA_CERO) {
+                    resumen.segundaCero = false;
+                }
+
+                resumen.agregarD2(valD2);
+            }
+
+            if (conDominio) {
+                try {
+                    double val = evaluador.evaluar(x);
+                    if (Double.isNaN(val)) {
+                        resumen.tieneNaN = true;
+                    } else if (Double.isFinite(val)) {
+                        if (Double.isNaN(resumen.primerX))
+                            resumen.primerX = x;
+                        resumen.ultimoX = x;
+                    }
+                } catch (Exception e) {
+                    resumen.tieneNaN = true;
+                }
+            }
+        }
+        return resumen;
+    }
+
+    // ===== Presupuesto de evaluaciones =====
+
+    // Evaluador que descuenta cada evaluación del presupuesto
+    private static final class EvaluadorContado extends Evaluador {
+        private final PresupuestoEvaluacion presupuesto;
+
+        EvaluadorContado(Evaluador compilado, PresupuestoEvaluacion presupuesto) {
+            super(compilado);
+            this.presupuesto = presupuesto;
+        }
+
+        @Override
+        public double evaluar(double x) throws ExpresionInvalidaException {
+            presupuesto.registrar(1);
+            return super.evaluar(x);
+        }
+    }
+
+    // Control que además termina los bucles cuando el consumo llega al tope
+    // (como un plazo vencido: la bisección retorna la mejor aproximación)
+    private static final class ControlPresupuesto extends ControlAnalisis {
+        private final ControlAnalisis control;
+        private final PresupuestoEvaluacion presupuesto;
+        private final long tope;
+        private boolean agotado;
+
+        ControlPresupuesto(ControlAnalisis control, PresupuestoEvaluacion presupuesto, long tope) {
+            this.control = control;
+            this.presupuesto = presupuesto;
+            this.tope = tope;
+        }
+
+        @Override
+        boolean continuar() throws AnalisisCanceladoException {
+            if (!control.continuar()) {
+                return false;
+            }
+            if (presupuesto.getEvaluaciones() >= tope) {
+                agotado = true;
+            }
+            return !agotado;
+        }
+
+        long getRestantes() {
+            return Math.max(0, tope - presupuesto.getEvaluaciones());
+        }
+
+        boolean isAgotado() {
+            return agotado;
+        }
+    }
+
+    // Mide el tiempo medio de una evaluación de f(x) en el rango, con a lo
+    // sumo la dieciseisava parte del límite de evaluaciones
+    private double medirCostoEvaluacion(Evaluador evaluador, double minX, double maxX, long limite) {
+        int muestras = (int) Math.max(MUESTRAS_CALIBRACION_MINIMAS, Math.min(MUESTRAS_CALIBRACION, limite / 16));
+        long inicio = System.nanoTime();
+        for (int i = 0; i < muestras; i++) {
+            try {
+                evaluador.evaluar(minX + (maxX - minX) * i / (muestras - 1));
+            } catch (Exception e) {
+                // Solo interesa el tiempo
+            }
+        }
+        return Math.max(1.0, (double) (System.nanoTime() - inicio) / muestras);
+    }
+
+    /**
+     * Reparte el presupuesto entre fases. Costo por muestra: 2 evaluaciones al
+     * buscar singularidades, 2 + 3 al buscar raíces de f' y f'', y 6 en el
+     * muestreo final (f, f' y f''). Cada fase tiene al menos
+     * MUESTRAS_MINIMAS_FASE muestras; si con ese mínimo las fases no caben en
+     * el límite (descontada la reserva), todas se reducen en proporción.
+     */
+    private Resolucion elegirResolucion(long limite, double ancho) {
+        double n = limite == Long.MAX_VALUE ? 1e8 : limite;
+        double muestrasSingularidades = Math.max(MUESTRAS_MINIMAS_FASE, n * FRACCION_SINGULARIDADES / 2);
+        double muestrasRaices = Math.max(MUESTRAS_MINIMAS_FASE, n * FRACCION_RAICES / 5);
+        double muestrasFinales = Math.max(MUESTRAS_MINIMAS_FASE, n * FRACCION_MUESTREO / 6);
+
+        double costo = muestrasSingularidades * 2 + muestrasRaices * 5 + muestrasFinales * 6;
+        double tope = n * (1 - FRACCION_RESERVA);
+        if (costo > tope) {
+            double escala = tope / costo;
+            muestrasSingularidades = Math.max(2, muestrasSingularidades * escala);
+            muestrasRaices = Math.max(2, muestrasRaices * escala);
+            muestrasFinales = Math.max(2, muestrasFinales * escala);
+        }
+        return new Resolucion(ancho / muestrasRaices, ancho / muestrasSingularidades, ancho / muestrasFinales);
+    }
 
-        // Limpieza de duplicados
-        List<Singularidad> unicas = new java.util.ArrayList<>();
-        for (Singularidad s : singularidades) {
-            boolean existe = false;
-            for (Singularidad u : unicas) {
-                if (Math.abs(s.x - u.x) < 0.3 && s.tipo == u.tipo) {
-                    existe = true;
+    /**
+     * Vuelve a escanear con paso fino alrededor de cada singularidad para
+     * ubicarla mejor. El cupo se descuenta con lo que de verdad se evaluó.
+     * Retorna false si el cupo no alcanzó para todas.
+     */
+    private boolean refinarSingularidades(Evaluador f, IndiceSingularidades singularidades, double paso,
+            PresupuestoEvaluacion presupuesto, long cupo, ControlAnalisis control)
+            throws AnalisisCanceladoException {
+        double pasoFino = paso / FACTOR_REFINAMIENTO;
+        long costo = (long) (2 * FACTOR_REFINAMIENTO + 1) * 2;
+        long inicio = presupuesto.getEvaluaciones();
+        boolean completo = true;
+        for (int i = 0; i < singularidades.tamanio(); i++) {
+            if (presupuesto.getEvaluaciones() - inicio + costo > cupo || !control.continuar()) {
+                completo = false;
+                break;
+            }
+            double x = singularidades.getX(i);
+            IndiceSingularidades finas = identificarSingularidades(f, x - paso, x + paso, pasoFino, control);
+            for (int j = 0; j < finas.tamanio(); j++) {
+                if (finas.getTipo(j) == singularidades.getTipo(i)) {
+                    singularidades.reemplazar(i, finas.getX(j));
                     break;
                 }
             }
-            if (!existe)
-                unicas.add(s);
         }
-        return unicas;
+        // Al moverse pueden haber cambiado de orden dos singularidades vecinas
+        singularidades.ordenar();
+        return completo;
     }
 
-    private int detectarGradoProbable(Evaluador f, double minX, double maxX) {
-        // Grado 1 y 2 ya se manejan por flags booleanos en analizarEnRango
-        if (esDerivadaConstante(f, 3, minX, maxX))
-            return 3;
-        if (esDerivadaConstante(f, 4, minX, maxX))
-            return 4;
-        if (esDerivadaConstante(f, 5, minX, maxX))
-            return 5;
+    /**
+     * Vuelve a buscar raíces con paso fino alrededor de cada raíz y
+     * singularidad conocida (donde suelen esconderse pares de raíces muy
+     * próximas). Deja en 'destino' las raíces ordenadas y sin duplicados.
+     * El cupo se descuenta con lo que de verdad se evaluó (incluida la
+     * bisección). Retorna false si el cupo no alcanzó para todas las zonas.
+     */
+    private boolean refinarRaices(FuncionDerivada funcion, ListaReales raices, IndiceSingularidades singularidades,
+            double desde, double hasta, double paso, int costoMuestra, PresupuestoEvaluacion presupuesto,
+            long cupo, ListaReales destino, ControlAnalisis control) throws AnalisisCanceladoException {
+        double pasoFino = paso / FACTOR_REFINAMIENTO;
+        ListaReales centros = new ListaReales(raices.tamanio() + singularidades.tamanio());
+        centros.agregarTodos(raices);
+        for (int i = 0; i < singularidades.tamanio(); i++) {
+            centros.agregar(singularidades.getX(i));
+        }
+        centros.ordenar();
+
+        ListaReales encontradas = new ListaReales(raices.tamanio() * 2);
+        encontradas.agregarTodos(raices);
+        boolean completo = true;
+        long inicio = presupuesto.getEvaluaciones();
+        double finAnterior = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < centros.tamanio(); i++) {
+            double c = centros.get(i);
+            double a = Math.max(Math.max(desde, c - paso), finAnterior);
+            double b = Math.min(hasta, c + paso);
+            if (b - a < pasoFino) {
+                continue;
+            }
+            long costo = (long) Math.ceil((b - a) / pasoFino + 1) * costoMuestra;
+            if (presupuesto.getEvaluaciones() - inicio + costo > cupo || !control.continuar()) {
+                completo = false;
+                break;
+            }
+            encontrarRaices(funcion, null, a, b, pasoFino, encontradas, control);
+            finAnterior = b;
+        }
 
-        return -1; // Desconocido o grado muy alto
+        encontradas.ordenar();
+        for (int i = 0; i < encontradas.tamanio(); i++) {
+            double r = encontradas.get(i);
+            if (destino.estaVacia() || r - destino.getUltimo() > pasoFino / 2.0) {
+                destino.agregar(r);
+            }
+        }
+        return completo;
     }
 
-    private boolean esDerivadaConstante(Evaluador f, int orden, double minX, double maxX) {
-        double step = (maxX - minX) / 10.0;
-        if (step < 0.5)
-            step = 0.5;
+    // ===== Periodicidad =====
 
-        double valorRef = calcularDerivadaOrdenN(f, orden, minX + step);
+    /**
+     * Derivada de orden 1 o 2 como polinomio, si la estrategia permite usar
+     * raíces exactas y la función es un polinomio; null en caso contrario.
+     */
+    private Polinomio derivadaExacta(ClaseFuncion clase, int orden) {
+        if (estrategia == EstrategiaRaices.MALLA_BISECCION || !clase.esPolinomio()) {
+            return null;
+        }
+        Polinomio derivada = clase.getPolinomio();
+        for (int i = 0; i < orden; i++) {
+            derivada = derivada.derivada();
+        }
+        return derivada;
+    }
 
-        for (double x = minX + 2 * step; x < maxX; x += step) {
-            double val = calcularDerivadaOrdenN(f, orden, x);
-            // Tolerancia escalada según el valor de referencia
-            double tol = Math.max(1.0, Math.abs(valorRef) * 0.1);
-            if (Math.abs(val - valorRef) > tol) {
-                return false;
+    /**
+     * Retorna el periodo de la función si conviene analizar un solo periodo
+     * (el rango cubre varios periodos), o NaN en caso contrario.
+     */
+    private double periodoAplicable(ClaseFuncion clase, double minX, double maxX) {
+        double periodo = clase.getPeriodo();
+        if (Double.isNaN(periodo) || periodo <= 0 || (maxX - minX) < PERIODOS_MINIMOS * periodo) {
+            return Double.NaN;
+        }
+        return periodo;
+    }
+
+    // Desplaza x al periodo base [minX, minX + periodo)
+    private double reducir(double x, double minX, double periodo) {
+        double r = minX + ((x - minX) % periodo + periodo) % periodo;
+        return r >= minX + periodo ? minX : r;
+    }
+
+    /**
+     * Lleva las raíces halladas (en un periodo con margen) al periodo base,
+     * eliminando duplicados incluso a través del borde del periodo.
+     */
+    private ListaReales reducirAlPeriodo(ListaReales raices, double minX, double periodo, double tolerancia) {
+        ListaReales reducidas = new ListaReales(raices.tamanio());
+        for (int i = 0; i < raices.tamanio(); i++) {
+            reducidas.agregar(reducir(raices.get(i), minX, periodo));
+        }
+        reducidas.ordenar();
+
+        // Quitar duplicados en el mismo arreglo
+        int unicas = 0;
+        for (int i = 0; i < reducidas.tamanio(); i++) {
+            double r = reducidas.get(i);
+            if (unicas == 0 || r - reducidas.get(unicas - 1) > tolerancia) {
+                reducidas.reemplazar(unicas++, r);
+            }
+        }
+        reducidas.truncar(unicas);
+        // La última y la primera pueden ser la misma raíz vista a ambos lados del borde
+        if (reducidas.tamanio() > 1 && reducidas.getPrimero() + periodo - reducidas.getUltimo() <= tolerancia) {
+            reducidas.quitarUltimo();
+        }
+        return reducidas;
+    }
+
+    private IndiceSingularidades reducirSingularidadesAlPeriodo(IndiceSingularidades singularidades, double minX,
+            double periodo) {
+        IndiceSingularidades reducidas = new IndiceSingularidades(singularidades.tamanio());
+        for (int i = 0; i < singularidades.tamanio(); i++) {
+            reducidas.agregar(reducir(singularidades.getX(i), minX, periodo), singularidades.getTipo(i));
+        }
+        reducidas.ordenar();
+
+        // Ya ordenadas, la conservada más cercana del mismo tipo es la última
+        // (o la primera, del otro lado del borde del periodo)
+        IndiceSingularidades unicas = new IndiceSingularidades(reducidas.tamanio());
+        double[] primera = {Double.NaN, Double.NaN};
+        double[] ultima = {Double.NaN, Double.NaN};
+        for (int i = 0; i < reducidas.tamanio(); i++) {
+            double x = reducidas.getX(i);
+            byte tipo = reducidas.getTipo(i);
+            if (!Double.isNaN(ultima[tipo])) {
+                double distanciaUltima = Math.abs(x - ultima[tipo]);
+                double distanciaPrimera = Math.abs(x - primera[tipo]);
+                if (Math.min(distanciaUltima, periodo - distanciaUltima) < 0.3
+                        || Math.min(distanciaPrimera, periodo - distanciaPrimera) < 0.3) {
+                    continue;
+                }
+            } else {
+                primera[tipo] = x;
+            }
+            ultima[tipo] = x;
+            unicas.agregar(x, tipo);
+        }
+        return unicas;
+    }
+
+    // Cantidad de copias necesarias para cubrir [desde, hasta] partiendo de desde
+    private int copiasPeriodo(double desde, double hasta, double periodo) {
+        return (int) Math.ceil((hasta - desde) / periodo);
+    }
+
+    private IndiceSingularidades teselarSingularidades(IndiceSingularidades base, double desde, double hasta,
+            double periodo) {
+        IndiceSingularidades teseladas = new IndiceSingularidades();
+        double origen = base.estaVacio() ? 0 : base.getX(0);
+        int kMin = (int) Math.floor((desde - origen) / periodo) - 1;
+        int kMax = (int) Math.ceil((hasta - origen) / periodo) + 1;
+        for (int k = kMin; k <= kMax; k++) {
+            for (int i = 0; i < base.tamanio(); i++) {
+                double x = base.getX(i) + k * periodo;
+                if (x >= desde && x <= hasta) {
+                    teseladas.agregar(x, base.getTipo(i));
+                }
+            }
+        }
+        teseladas.ordenar();
+        return teseladas;
+    }
+
+    // Replica los puntos del periodo base [minX, minX + periodo) en todo el rango
+    private TablaPuntos teselarPuntos(TablaPuntos base, double minX, double maxX, double periodo) {
+        int copias = copiasPeriodo(minX, maxX, periodo);
+        TablaPuntos teselados = new TablaPuntos(base.tamanio() * (copias + 1));
+        for (int k = 0; k <= copias; k++) {
+            for (int i = 0; i < base.tamanio(); i++) {
+                double x = base.getX(i) + k * periodo;
+                if (x <= maxX) {
+                    teselados.agregar(x, base.getY(i), base.getTipo(i));
+                }
             }
         }
-        return Math.abs(valorRef) > 1e-3;
+        return teselados;
     }
 
-    private double calcularDerivadaOrdenN(Evaluador f, int orden, double x) {
-        double h = 0.1; // h más grande para reducir ruido en órdenes altos
-        switch (orden) {
-            case 1:
-                return derivada(f, x);
-            case 2:
-                return segundaDerivada(f, x);
-            case 3:
-                return (segundaDerivada(f, x + h) - segundaDerivada(f, x - h)) / (2 * h);
-            case 4:
-                return (segundaDerivada(f, x + h) - 2 * segundaDerivada(f, x) + segundaDerivada(f, x - h)) / (h * h);
-            case 5: {
-                double d4_plus = (segundaDerivada(f, x + 2 * h) - 2 * segundaDerivada(f, x + h) + segundaDerivada(f, x))
-                        / (h * h);
-                double d4_minus = (segundaDerivada(f, x) - 2 * segundaDerivada(f, x - h)
-                        + segundaDerivada(f, x - 2 * h)) / (h * h);
-                return (d4_plus - d4_minus) / (2 * h);
+    // Replica los subintervalos del periodo base recortándolos a [minX, maxX]
+    private TablaIntervalos teselarIntervalos(TablaIntervalos base, double minX, double maxX, double periodo) {
+        int copias = copiasPeriodo(minX, maxX, periodo);
+        TablaIntervalos teselados = new TablaIntervalos(base.tamanio() * (copias + 1));
+        for (int k = 0; k <= copias; k++) {
+            for (int i = 0; i < base.tamanio(); i++) {
+                double inicio = base.getInicio(i) + k * periodo;
+                double fin = Math.min(base.getFin(i) + k * periodo, maxX);
+                if (fin - inicio >= 1e-4) {
+                    teselados.agregar(inicio, fin, base.getTipo(i));
+                }
             }
-            default:
-                return 0;
         }
+        return teselados;
     }
 }
@@ -0,0 +1,119 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Caché de resultados de análisis con desalojo LRU.
+ * Acotada por número de entradas y por un tamaño aproximado en memoria.
+ * Evita repetir todo el análisis (y la derivación simbólica) al volver a
+ * calcular la misma función, por ejemplo desde el historial.
+ * Es segura para usar desde varios hilos. Los resultados guardados se
+ * comparten: quien los obtiene no debe modificarlos.
+ */
+public class CacheAnalisis {
+
+    private static final int MAX_ENTRADAS_DEFECTO = 64;
+    private static final long MAX_BYTES_DEFECTO = 8L * 1024 * 1024;
+
+    private static CacheAnalisis instancia;
+
+    private final int maxEntradas;
+    private final long maxBytes;
+
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<ClaveAnalisis, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long aciertos;
+    private long fallos;
+
+    private record Entrada(ResultadoAnalisis resultado, long bytes) {
+    }
+
+    public CacheAnalisis(int maxEntradas, long maxBytes) {
+        if (maxEntradas <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Los límites de la caché deben ser positivos");
+        }
+        this.maxEntradas = maxEntradas;
+        this.maxBytes = maxBytes;
+    }
+
+    public static synchronized CacheAnalisis getInstancia() {
+        if (instancia == null) {
+            instancia = new CacheAnalisis(MAX_ENTRADAS_DEFECTO, MAX_BYTES_DEFECTO);
+        }
+        return instancia;
+    }
+
+    /**
+     * @return El resultado guardado, o null si no está
+     */
+    public synchronized ResultadoAnalisis obtener(ClaveAnalisis clave) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return entrada.resultado();
+    }
+
+    /**
+     * Guarda un resultado. Los preliminares o incompletos no se guardan, y
+     * tampoco los que por sí solos superan el tamaño máximo.
+     */
+    public synchronized void guardar(ClaveAnalisis clave, ResultadoAnalisis resultado) {
+        if (resultado == null || resultado.isPreliminar() || resultado.isIncompleto()) {
+            return;
+        }
+        long tamanio = estimarBytes(resultado);
+        if (tamanio > maxBytes) {
+            return;
+        }
+
+        Entrada anterior = entradas.put(clave, new Entrada(resultado, tamanio));
+        if (anterior != null) {
+            bytes -= anterior.bytes();
+        }
+        bytes += tamanio;
+
+        // Desalojar las menos usadas hasta respetar ambos límites
+        Iterator<Entrada> it = entradas.values().iterator();
+        while ((entradas.size() > maxEntradas || bytes > maxBytes) && it.hasNext()) {
+            bytes -= it.next().bytes();
+            it.remove();
+        }
+    }
+
+    public synchronized void limpiar() {
+        entradas.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    public synchronized int getTamanio() {
+        return entradas.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    // Tamaño aproximado en memoria de un resultado, sin forzar sus secciones diferidas
+    private static long estimarBytes(ResultadoAnalisis resultado) {
+        return resultado.bytesAproximados();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CacheAnalisis[entradas=%d, bytes=%d, aciertos=%d, fallos=%d]",
+                entradas.size(), bytes, aciertos, fallos);
+    }
+}
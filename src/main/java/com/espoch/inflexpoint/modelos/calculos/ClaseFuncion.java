@@ -0,0 +1,143 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.enumeraciones.TipoFuncion;
+
+import java.util.Set;
+
+/**
+ * Clase de una función según su árbol sintáctico ({@link ClasificadorFuncion}):
+ * tipo principal, grado si es un polinomio, periodo si es periódica y las
+ * funciones elementales que aplica sobre x. El analizador la usa para elegir
+ * el método de búsqueda de raíces y saltar fases innecesarias, y para los
+ * mensajes de accesibilidad.
+ */
+public final class ClaseFuncion {
+
+    private static final Set<String> TRIGONOMETRICAS = Set.of("sin", "cos", "tan", "cot", "sec", "csc");
+    // Funciones continuas y finitas en toda la recta
+    private static final Set<String> CONTINUAS = Set.of("sin", "cos", "atan", "exp", "abs");
+
+    private final TipoFuncion tipo;
+    // null si no es un polinomio
+    private final Polinomio polinomio;
+    private final double periodo;
+    // Funciones elementales con argumento que depende de x
+    private final Set<String> funciones;
+    private final boolean racional;
+    private final boolean algebraica;
+    private final boolean exponencial;
+    private final boolean desconocida;
+
+    ClaseFuncion(TipoFuncion tipo, Polinomio polinomio, double periodo, Set<String> funciones, boolean racional,
+            boolean algebraica, boolean exponencial, boolean desconocida) {
+        this.tipo = tipo;
+        this.polinomio = polinomio;
+        this.periodo = periodo;
+        this.funciones = Set.copyOf(funciones);
+        this.racional = racional;
+        this.algebraica = algebraica;
+        this.exponencial = exponencial;
+        this.desconocida = desconocida;
+    }
+
+    // Clase de una expresión que no se pudo recorrer: no se asume nada
+    static ClaseFuncion desconocida() {
+        return new ClaseFuncion(TipoFuncion.COMPUESTA, null, Double.NaN, Set.of(), false, false, false, true);
+    }
+
+    public TipoFuncion getTipo() {
+        return tipo;
+    }
+
+    public boolean esPolinomio() {
+        return polinomio != null;
+    }
+
+    // Grado del polinomio, o -1 si no es un polinomio
+    public int getGrado() {
+        return polinomio != null ? polinomio.grado() : -1;
+    }
+
+    // Periodo exacto (ver DetectorPeriodo), o NaN si no es periódica
+    public double getPeriodo() {
+        return periodo;
+    }
+
+    public boolean esPeriodica() {
+        return !Double.isNaN(periodo);
+    }
+
+    // ¿Aplica la función elemental 'nombre' sobre un argumento que depende de x?
+    public boolean usa(String nombre) {
+        return funciones.contains(nombre);
+    }
+
+    public Set<String> getFunciones() {
+        return funciones;
+    }
+
+    public boolean isTrigonometrica() {
+        for (String nombre : funciones) {
+            if (TRIGONOMETRICAS.contains(nombre)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isLogaritmica() {
+        return usa("ln") || usa("log");
+    }
+
+    // x aparece en algún denominador (o con exponente entero negativo)
+    public boolean isRacional() {
+        return racional;
+    }
+
+    // Raíces o potencias fraccionarias de expresiones con x
+    public boolean isAlgebraica() {
+        return algebraica;
+    }
+
+    // x aparece en un exponente
+    public boolean isExponencial() {
+        return exponencial;
+    }
+
+    public boolean isValorAbsoluto() {
+        return usa("abs");
+    }
+
+    // Contiene algo que el clasificador no reconoce
+    public boolean isDesconocida() {
+        return desconocida;
+    }
+
+    /**
+     * ¿Es continua y finita en toda la recta? (polinomios y composiciones de
+     * seno, coseno, arcotangente, exponencial y valor absoluto). En ese caso
+     * no tiene asíntotas ni zonas indefinidas que buscar.
+     */
+    public boolean esContinua() {
+        return !desconocida && !racional && !algebraica && CONTINUAS.containsAll(funciones);
+    }
+
+    Polinomio getPolinomio() {
+        return polinomio;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ClaseFuncion{").append(tipo);
+        if (polinomio != null) {
+            sb.append(", grado=").append(polinomio.grado());
+        }
+        if (esPeriodica()) {
+            sb.append(", periodo=").append(periodo);
+        }
+        if (!funciones.isEmpty()) {
+            sb.append(", funciones=").append(funciones);
+        }
+        return sb.append('}').toString();
+    }
+}
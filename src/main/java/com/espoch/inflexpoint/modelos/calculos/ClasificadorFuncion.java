@@ -0,0 +1,272 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.Nodo;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoConstante;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoDivision;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoFuncion;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoMultiplicacion;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoPotencia;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoResta;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoSuma;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoVariable;
+import com.espoch.inflexpoint.modelos.enumeraciones.TipoFuncion;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Clasifica una función recorriendo una sola vez su árbol sintáctico (el
+ * mismo que usan DerivadorSimbolico y DetectorPeriodo), en lugar de buscar
+ * subcadenas en el texto: "x^(1/2)" es algebraica y no polinómica, "e^x" es
+ * exponencial, "sin(2)*x" es lineal y un nombre desconocido como "sinh" no se
+ * confunde con "sin".
+ * Cada subárbol que es un polinomio en x se reduce a sus coeficientes, de
+ * modo que el grado es exacto aunque la expresión no esté desarrollada.
+ */
+public class ClasificadorFuncion {
+
+    // Potencias enteras más altas se tratan como una función general
+    private static final int MAX_GRADO = 64;
+
+    private ClasificadorFuncion() {
+    }
+
+    /**
+     * Clasifica la expresión.
+     *
+     * @param expresion La expresión matemática
+     * @return La clase de la función; si no se puede analizar, una clase
+     *         desconocida (sin suposiciones)
+     */
+    public static ClaseFuncion clasificar(String expresion) {
+        if (expresion == null || expresion.trim().isEmpty())
+            return ClaseFuncion.desconocida();
+        try {
+            String normalizada = Evaluador.normalizar(expresion);
+            DerivadorSimbolico.Analizador analizador = new DerivadorSimbolico.Analizador(normalizada);
+            Nodo ast = analizador.analizar();
+            if (analizador.pos < normalizada.length())
+                return ClaseFuncion.desconocida(); // No se consumió toda la entrada
+            return clasificar(ast);
+        } catch (Exception e) {
+            return ClaseFuncion.desconocida();
+        }
+    }
+
+    // Clasifica un árbol ya analizado (el del Evaluador), sin volver a leer el texto
+    static ClaseFuncion clasificar(Nodo ast) {
+        try {
+            Recorrido recorrido = new Recorrido();
+            double[] coeficientes = recorrido.visitar(ast);
+            return recorrido.clase(coeficientes, DetectorPeriodo.detectar(ast));
+        } catch (Exception e) {
+            return ClaseFuncion.desconocida();
+        }
+    }
+
+    /**
+     * Recorrido del árbol. visitar() retorna los coeficientes del subárbol si
+     * es un polinomio en x (una constante es un polinomio de grado 0), o null
+     * si no lo es; de paso anota qué tipo de expresiones contiene.
+     */
+    private static final class Recorrido {
+        private final Set<String> funciones = new HashSet<>();
+        private boolean racional;
+        private boolean algebraica;
+        private boolean exponencial;
+        private boolean desconocida;
+
+        double[] visitar(Nodo nodo) {
+            if (nodo instanceof NodoConstante c)
+                return new double[] { c.valor };
+            if (nodo instanceof NodoVariable)
+                return new double[] { 0, 1 };
+            if (nodo instanceof NodoSuma n)
+                return sumar(visitar(n.izquierda), visitar(n.derecha), 1);
+            if (nodo instanceof NodoResta n)
+                return sumar(visitar(n.izquierda), visitar(n.derecha), -1);
+            if (nodo instanceof NodoMultiplicacion n)
+                return multiplicar(visitar(n.izquierda), visitar(n.derecha));
+            if (nodo instanceof NodoDivision n)
+                return dividir(visitar(n.izquierda), visitar(n.derecha));
+            if (nodo instanceof NodoPotencia n)
+                return potencia(visitar(n.base), visitar(n.exponente));
+            if (nodo instanceof NodoFuncion f)
+                return funcion(f.nombre, visitar(f.argumento));
+            desconocida = true;
+            return null;
+        }
+
+        private double[] sumar(double[] a, double[] b, double signo) {
+            if (a == null || b == null)
+                return null;
+            double[] suma = new double[Math.max(a.length, b.length)];
+            for (int i = 0; i < suma.length; i++) {
+                suma[i] = (i < a.length ? a[i] : 0) + signo * (i < b.length ? b[i] : 0);
+            }
+            return recortar(suma);
+        }
+
+        private double[] multiplicar(double[] a, double[] b) {
+            if (a == null || b == null)
+                return null;
+            if (a.length + b.length - 2 > MAX_GRADO) {
+                desconocida = true;
+                return null;
+            }
+            double[] producto = new double[a.length + b.length - 1];
+            for (int i = 0; i < a.length; i++) {
+                for (int j = 0; j < b.length; j++) {
+                    producto[i + j] += a[i] * b[j];
+                }
+            }
+            return recortar(producto);
+        }
+
+        private double[] dividir(double[] a, double[] b) {
+            if (b != null && b.length == 1) {
+                // Entre una constante: sigue siendo un polinomio
+                if (b[0] == 0) {
+                    desconocida = true;
+                    return null;
+                }
+                return multiplicar(a, new double[] { 1 / b[0] });
+            }
+            // x en el denominador
+            racional = true;
+            return null;
+        }
+
+        private double[] potencia(double[] base, double[] exponente) {
+            if (exponente == null || exponente.length > 1) {
+                // x en el exponente: exponencial si la base es una constante positiva
+                if (base != null && base.length == 1 && base[0] > 0) {
+                    exponencial = true;
+                } else {
+                    desconocida = true;
+                }
+                return null;
+            }
+
+            double k = exponente[0];
+            if (base != null && base.length == 1)
+                return new double[] { Math.pow(base[0], k) };
+
+            boolean entero = k == Math.rint(k);
+            if (entero && k >= 0 && base != null) {
+                double[] resultado = { 1 };
+                for (int i = 0; i < (int) k && resultado != null; i++) {
+                    resultado = multiplicar(resultado, base);
+                }
+                return resultado;
+            }
+            if (entero && k < 0) {
+                racional = true;
+            } else if (!entero) {
+                algebraica = true;
+            }
+            return null;
+        }
+
+        private double[] funcion(String nombre, double[] argumento) {
+            if (argumento != null && argumento.length == 1) {
+                // Argumento constante: toda la función es una constante
+                double valor = evaluarConstante(nombre, argumento[0]);
+                if (Double.isNaN(valor)) {
+                    desconocida = true;
+                    return null;
+                }
+                return new double[] { valor };
+            }
+            switch (nombre) {
+                case "sqrt" -> algebraica = true;
+                case "exp" -> exponencial = true;
+                case "sin", "cos", "tan", "cot", "sec", "csc", "asin", "acos", "atan", "ln", "log", "abs" -> {
+                }
+                default -> desconocida = true;
+            }
+            funciones.add(nombre);
+            return null;
+        }
+
+        // Mismas funciones que el Evaluador
+        private static double evaluarConstante(String nombre, double v) {
+            return switch (nombre) {
+                case "sqrt" -> Math.sqrt(v);
+                case "sin" -> Math.sin(v);
+                case "cos" -> Math.cos(v);
+                case "tan" -> Math.tan(v);
+                case "csc" -> 1.0 / Math.sin(v);
+                case "sec" -> 1.0 / Math.cos(v);
+                case "cot" -> 1.0 / Math.tan(v);
+                case "asin" -> Math.asin(v);
+                case "acos" -> Math.acos(v);
+                case "atan" -> Math.atan(v);
+                case "log" -> Math.log10(v);
+                case "ln" -> Math.log(v);
+                case "abs" -> Math.abs(v);
+                case "exp" -> Math.exp(v);
+                default -> Double.NaN;
+            };
+        }
+
+        // Quita los coeficientes nulos de mayor grado (x^2 - x^2 + x es lineal)
+        private static double[] recortar(double[] coeficientes) {
+            int longitud = coeficientes.length;
+            while (longitud > 1 && coeficientes[longitud - 1] == 0) {
+                longitud--;
+            }
+            return longitud == coeficientes.length ? coeficientes : Arrays.copyOf(coeficientes, longitud);
+        }
+
+        ClaseFuncion clase(double[] coeficientes, double periodo) {
+            Polinomio polinomio = coeficientes != null && !desconocida ? new Polinomio(coeficientes) : null;
+            return new ClaseFuncion(tipo(polinomio), polinomio, periodo, funciones, racional, algebraica,
+                    exponencial, desconocida);
+        }
+
+        private TipoFuncion tipo(Polinomio polinomio) {
+            if (polinomio != null) {
+                return switch (polinomio.grado()) {
+                    case 0 -> TipoFuncion.CONSTANTE;
+                    case 1 -> TipoFuncion.LINEAL;
+                    case 2 -> TipoFuncion.CUADRATICA;
+                    default -> TipoFuncion.POLINOMICA;
+                };
+            }
+            if (desconocida)
+                return TipoFuncion.COMPUESTA;
+
+            // Una sola familia de funciones da el tipo; varias, COMPUESTA
+            int familias = 0;
+            TipoFuncion tipo = TipoFuncion.COMPUESTA;
+            if (racional) {
+                familias++;
+                tipo = TipoFuncion.RACIONAL;
+            }
+            if (algebraica) {
+                familias++;
+                tipo = TipoFuncion.ALGEBRAICA;
+            }
+            if (funciones.stream().anyMatch(f -> f.endsWith("sin") || f.endsWith("cos") || f.endsWith("tan")
+                    || f.equals("cot") || f.equals("sec") || f.equals("csc"))) {
+                familias++;
+                tipo = TipoFuncion.TRIGONOMETRICA;
+            }
+            if (funciones.contains("ln") || funciones.contains("log")) {
+                familias++;
+                tipo = TipoFuncion.LOGARITMICA;
+            }
+            if (exponencial) {
+                familias++;
+                tipo = TipoFuncion.EXPONENCIAL;
+            }
+            if (funciones.contains("abs")) {
+                familias++;
+                tipo = TipoFuncion.VALOR_ABSOLUTO;
+            }
+            return familias == 1 ? tipo : TipoFuncion.COMPUESTA;
+        }
+    }
+}
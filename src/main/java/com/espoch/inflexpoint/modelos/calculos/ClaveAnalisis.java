@@ -0,0 +1,70 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.enumeraciones.EstrategiaRaices;
+
+/**
+ * Clave de un resultado en {@link CacheAnalisis}.
+ * La expresión se guarda en su forma normalizada (la misma que usa el
+ * Evaluador), de modo que "sen(x)", "sin(x)" y "SIN( x )" comparten entrada.
+ *
+ * @param expresion   Expresión normalizada
+ * @param desde       Inicio del rango analizado
+ * @param hasta       Fin del rango analizado
+ * @param paso        Paso fijo, o 0 si se analizó con presupuesto
+ * @param presupuesto Máximo de evaluaciones, o 0 si se usó paso fijo o no hay máximo
+ * @param latencia    Latencia objetivo en milisegundos, o 0 si no hay (limita
+ *                    las evaluaciones y el paso elegido, así que también
+ *                    cambia el resultado)
+ * @param opciones    Las cinco opciones de cálculo como máscara de bits
+ * @param tolerancia  Tolerancia de la bisección al buscar raíces
+ * @param estrategia  Estrategia de búsqueda de raíces
+ */
+public record ClaveAnalisis(String expresion, double desde, double hasta, double paso, long presupuesto,
+        long latencia, int opciones, double tolerancia, EstrategiaRaices estrategia) {
+
+    /**
+     * Clave para un análisis de paso fijo.
+     */
+    public static ClaveAnalisis dePaso(String expresion, double desde, double hasta, double paso,
+            boolean calcPuntosCriticos, boolean calcIntervalos, boolean calcMaxMin,
+            boolean calcInflexion, boolean calcConcavidad) {
+        return new ClaveAnalisis(Evaluador.normalizar(expresion), desde, hasta, paso, 0, 0,
+                opciones(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad),
+                OpcionesAnalisis.TOLERANCIA_RAICES_DEFECTO, EstrategiaRaices.AUTOMATICA);
+    }
+
+    /**
+     * Clave para un análisis con presupuesto (el máximo de evaluaciones y
+     * la latencia objetivo).
+     */
+    public static ClaveAnalisis dePresupuesto(String expresion, double desde, double hasta,
+            PresupuestoEvaluacion presupuesto, boolean calcPuntosCriticos, boolean calcIntervalos,
+            boolean calcMaxMin, boolean calcInflexion, boolean calcConcavidad) {
+        return new ClaveAnalisis(Evaluador.normalizar(expresion), desde, hasta, 0,
+                presupuesto.getMaxEvaluaciones(), presupuesto.getLatenciaObjetivoMs(),
+                opciones(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad),
+                OpcionesAnalisis.TOLERANCIA_RAICES_DEFECTO, EstrategiaRaices.AUTOMATICA);
+    }
+
+    /**
+     * Clave para un análisis con opciones (el plazo no cuenta: los
+     * resultados cortados por él no se guardan en la caché).
+     */
+    public static ClaveAnalisis deOpciones(String expresion, double desde, double hasta,
+            OpcionesAnalisis opciones) {
+        return new ClaveAnalisis(Evaluador.normalizar(expresion), desde, hasta, opciones.getPaso(),
+                opciones.getMaxEvaluaciones(), opciones.getLatenciaObjetivoMs(),
+                opciones(opciones.isCalcPuntosCriticos(), opciones.isCalcIntervalos(), opciones.isCalcMaxMin(),
+                        opciones.isCalcInflexion(), opciones.isCalcConcavidad()),
+                opciones.getToleranciaRaices(), opciones.getEstrategia());
+    }
+
+    private static int opciones(boolean calcPuntosCriticos, boolean calcIntervalos, boolean calcMaxMin,
+            boolean calcInflexion, boolean calcConcavidad) {
+        return (calcPuntosCriticos ? 1 : 0)
+                | (calcIntervalos ? 2 : 0)
+                | (calcMaxMin ? 4 : 0)
+                | (calcInflexion ? 8 : 0)
+                | (calcConcavidad ? 16 : 0);
+    }
+}
@@ -0,0 +1,37 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.entidades.Intervalo;
+import com.espoch.inflexpoint.modelos.entidades.PuntoCritico;
+
+/**
+ * Receptor de resultados del análisis en flujo
+ * ({@link AnalizadorFuncion#analizarEnFlujo}).
+ * Cada método se invoca en orden creciente de x, en cuanto el elemento queda
+ * definitivo. Todos los métodos son opcionales.
+ */
+public interface ConsumidorAnalisis {
+
+    default void puntoCritico(PuntoCritico punto) {
+    }
+
+    default void puntoInflexion(PuntoCritico punto) {
+    }
+
+    // Asíntota vertical o división por cero cerca de x
+    default void asintota(double x) {
+    }
+
+    // Zona donde la función no está definida (raíz de negativo, log de no positivo)
+    default void zonaIndefinida(double x) {
+    }
+
+    default void intervaloMonotonia(Intervalo intervalo) {
+    }
+
+    default void intervaloConcavidad(Intervalo intervalo) {
+    }
+
+    // Se invoca una sola vez al terminar de recorrer el rango
+    default void finalizar() {
+    }
+}
@@ -0,0 +1,71 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.excepciones.AnalisisCanceladoException;
+
+/**
+ * Token de cancelación y plazo para un análisis en curso.
+ * El analizador lo consulta en los bucles de escaneo, bisección y búsqueda de
+ * singularidades:
+ * - Si se cancela (o se interrumpe el hilo) lanza
+ * {@link AnalisisCanceladoException}.
+ * - Si vence el plazo deja de refinar y retorna un resultado parcial marcado
+ * como incompleto ({@link ResultadoAnalisis#isIncompleto()}).
+ * Puede cancelarse desde otro hilo.
+ */
+public class ControlAnalisis {
+
+    // Plazo en System.nanoTime(), solo válido si tienePlazo
+    private final long plazoNanos;
+    private final boolean tienePlazo;
+
+    private volatile boolean cancelado;
+    private volatile boolean plazoVencido;
+
+    /**
+     * Control sin plazo: el análisis solo se detiene si se cancela.
+     */
+    public ControlAnalisis() {
+        this.plazoNanos = 0;
+        this.tienePlazo = false;
+    }
+
+    /**
+     * @param plazoMs Milisegundos disponibles desde ahora (0 = sin plazo)
+     */
+    public ControlAnalisis(long plazoMs) {
+        if (plazoMs < 0) {
+            throw new IllegalArgumentException("El plazo no puede ser negativo");
+        }
+        this.tienePlazo = plazoMs > 0;
+        this.plazoNanos = System.nanoTime() + plazoMs * 1_000_000L;
+    }
+
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    public boolean isCancelado() {
+        return cancelado;
+    }
+
+    public boolean isPlazoVencido() {
+        return plazoVencido;
+    }
+
+    /**
+     * Punto de control de los bucles del analizador.
+     *
+     * @return false si venció el plazo y el bucle debe terminar
+     * @throws AnalisisCanceladoException si el análisis fue cancelado
+     */
+    boolean continuar() throws AnalisisCanceladoException {
+        if (cancelado || Thread.currentThread().isInterrupted()) {
+            cancelado = true;
+            throw new AnalisisCanceladoException("El análisis fue cancelado");
+        }
+        if (!plazoVencido && tienePlazo && System.nanoTime() - plazoNanos >= 0) {
+            plazoVencido = true;
+        }
+        return !plazoVencido;
+    }
+}
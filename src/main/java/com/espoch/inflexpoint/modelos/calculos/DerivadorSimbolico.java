@@ -10,30 +10,35 @@ public class DerivadorSimbolico {
         try {
             String expresionLimpia = normalizar(expresion);
             Analizador analizador = new Analizador(expresionLimpia);
-            Nodo ast = analizador.analizar();
-            Nodo derivado = ast.derivar();
-            Nodo simplificado = derivado.simplificar();
-            return simplificado.toMathExpression();
+            return derivar(analizador.analizar());
         } catch (Exception e) {
             return "d/dx[" + expresion + "]";
         }
     }
 
+    // Derivada de un árbol ya analizado (el del Evaluador), sin volver a leer el texto
+    static String derivar(Nodo ast) {
+        return ast.derivar().simplificar().toMathExpression();
+    }
+
     public static String derivarSegunda(String expresion) {
         if (expresion == null || expresion.trim().isEmpty())
             return "0";
         try {
             String expresionLimpia = normalizar(expresion);
             Analizador analizador = new Analizador(expresionLimpia);
-            Nodo ast = analizador.analizar();
-            Nodo primeraDerivada = ast.derivar().simplificar();
-            Nodo segundaDerivada = primeraDerivada.derivar().simplificar();
-            return segundaDerivada.toMathExpression();
+            return derivarSegunda(analizador.analizar());
         } catch (Exception e) {
             return "d^2/dx^2[" + expresion + "]";
         }
     }
 
+    static String derivarSegunda(Nodo ast) {
+        Nodo primeraDerivada = ast.derivar().simplificar();
+        Nodo segundaDerivada = primeraDerivada.derivar().simplificar();
+        return segundaDerivada.toMathExpression();
+    }
+
     public static String toLaTeX(String expresion) {
         if (expresion == null || expresion.trim().isEmpty())
             return "0";
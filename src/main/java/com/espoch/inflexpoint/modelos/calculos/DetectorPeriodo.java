@@ -0,0 +1,211 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.Nodo;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoConstante;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoDivision;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoFuncion;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoMultiplicacion;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoPotencia;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoResta;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoSuma;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoVariable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detecta el periodo exacto de una función a partir de su árbol sintáctico.
+ * Una función es periódica si toda aparición de x está dentro de una función
+ * trigonométrica cuyo argumento es lineal (a*x + b). Cada una aporta un
+ * periodo 2π/|a| (sin, cos, sec, csc) o π/|a| (tan, cot), y el periodo de la
+ * función es el mínimo común múltiplo de todos ellos, siempre que sus
+ * cocientes sean racionales.
+ */
+public class DetectorPeriodo {
+
+    // Denominador máximo al aproximar los cocientes entre periodos
+    private static final long MAX_DENOMINADOR = 1000;
+    private static final double TOLERANCIA_RACIONAL = 1e-9;
+    // Evita periodos absurdamente largos (ej. sin(x) + sin(1.001x))
+    private static final long MAX_MULTIPLO = 10000;
+
+    private DetectorPeriodo() {
+    }
+
+    /**
+     * Calcula el periodo de la expresión.
+     *
+     * @param expresion La expresión matemática
+     * @return El periodo, o NaN si la función no es periódica o no se pudo
+     *         determinar
+     */
+    public static double detectar(String expresion) {
+        if (expresion == null || expresion.trim().isEmpty())
+            return Double.NaN;
+        try {
+            String normalizada = Evaluador.normalizar(expresion);
+            DerivadorSimbolico.Analizador analizador = new DerivadorSimbolico.Analizador(normalizada);
+            Nodo ast = analizador.analizar();
+            if (analizador.pos < normalizada.length())
+                return Double.NaN; // No se consumió toda la entrada
+            return detectar(ast);
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    // Igual, sobre un árbol ya construido (ver ClasificadorFuncion)
+    static double detectar(Nodo ast) {
+        try {
+            List<Double> periodos = new ArrayList<>();
+            if (!recolectarPeriodos(ast, periodos) || periodos.isEmpty())
+                return Double.NaN;
+            return minimoComunMultiplo(periodos);
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Recorre el árbol acumulando el periodo de cada función trigonométrica.
+     * Retorna false si encuentra una x fuera de un argumento trigonométrico
+     * lineal (la función deja de ser periódica).
+     */
+    private static boolean recolectarPeriodos(Nodo nodo, List<Double> periodos) {
+        if (nodo instanceof NodoVariable)
+            return false;
+        if (nodo instanceof NodoConstante)
+            return true;
+        if (nodo instanceof NodoFuncion f) {
+            double factor = factorPeriodo(f.nombre);
+            if (factor > 0 && contieneVariable(f.argumento)) {
+                double a = pendienteLineal(f.argumento);
+                if (!Double.isNaN(a)) {
+                    periodos.add(factor / Math.abs(a));
+                    return true;
+                }
+            }
+            return recolectarPeriodos(f.argumento, periodos);
+        }
+        if (nodo instanceof NodoSuma n)
+            return recolectarPeriodos(n.izquierda, periodos) && recolectarPeriodos(n.derecha, periodos);
+        if (nodo instanceof NodoResta n)
+            return recolectarPeriodos(n.izquierda, periodos) && recolectarPeriodos(n.derecha, periodos);
+        if (nodo instanceof NodoMultiplicacion n)
+            return recolectarPeriodos(n.izquierda, periodos) && recolectarPeriodos(n.derecha, periodos);
+        if (nodo instanceof NodoDivision n)
+            return recolectarPeriodos(n.izquierda, periodos) && recolectarPeriodos(n.derecha, periodos);
+        if (nodo instanceof NodoPotencia n)
+            return recolectarPeriodos(n.base, periodos) && recolectarPeriodos(n.exponente, periodos);
+        return false;
+    }
+
+    // Periodo de la función trigonométrica con argumento x (0 si no es periódica)
+    private static double factorPeriodo(String nombre) {
+        return switch (nombre) {
+            case "sin", "cos", "sec", "csc" -> 2 * Math.PI;
+            case "tan", "cot" -> Math.PI;
+            default -> 0;
+        };
+    }
+
+    private static boolean contieneVariable(Nodo nodo) {
+        if (nodo instanceof NodoVariable)
+            return true;
+        if (nodo instanceof NodoFuncion f)
+            return contieneVariable(f.argumento);
+        if (nodo instanceof NodoSuma n)
+            return contieneVariable(n.izquierda) || contieneVariable(n.derecha);
+        if (nodo instanceof NodoResta n)
+            return contieneVariable(n.izquierda) || contieneVariable(n.derecha);
+        if (nodo instanceof NodoMultiplicacion n)
+            return contieneVariable(n.izquierda) || contieneVariable(n.derecha);
+        if (nodo instanceof NodoDivision n)
+            return contieneVariable(n.izquierda) || contieneVariable(n.derecha);
+        if (nodo instanceof NodoPotencia n)
+            return contieneVariable(n.base) || contieneVariable(n.exponente);
+        return false;
+    }
+
+    /**
+     * Retorna la pendiente a si el argumento tiene la forma a*x + b, o NaN.
+     * La derivada simbólica debe ser una constante no nula, y se verifica
+     * numéricamente porque el derivador devuelve 0 en casos no soportados.
+     */
+    private static double pendienteLineal(Nodo argumento) {
+        Nodo derivada = argumento.derivar().simplificar();
+        if (!(derivada instanceof NodoConstante c) || c.valor == 0 || !Double.isFinite(c.valor))
+            return Double.NaN;
+        try {
+            Evaluador evaluador = new Evaluador(argumento.toMathExpression());
+            double[] puntos = { -1.3, 0.37, 2.9 };
+            double base = evaluador.evaluar(0);
+            for (double x : puntos) {
+                double esperado = base + c.valor * x;
+                double real = evaluador.evaluar(x);
+                if (!(Math.abs(real - esperado) <= 1e-9 * Math.max(1.0, Math.abs(esperado))))
+                    return Double.NaN;
+            }
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+        return c.valor;
+    }
+
+    /**
+     * MCM de periodos reales: se expresan como múltiplos racionales p/q del
+     * primero y se toma T0 * mcm(p) / mcd(q).
+     */
+    private static double minimoComunMultiplo(List<Double> periodos) {
+        double t0 = periodos.getFirst();
+        long mcmNumeradores = 1;
+        long mcdDenominadores = 0;
+        for (double t : periodos) {
+            long[] fraccion = aproximarRacional(t / t0);
+            if (fraccion == null)
+                return Double.NaN;
+            mcmNumeradores = mcm(mcmNumeradores, fraccion[0]);
+            mcdDenominadores = mcd(mcdDenominadores, fraccion[1]);
+            if (mcmNumeradores > MAX_MULTIPLO * mcdDenominadores)
+                return Double.NaN;
+        }
+        return t0 * mcmNumeradores / mcdDenominadores;
+    }
+
+    // Fracciones continuas: retorna {p, q} reducida o null si no es racional
+    private static long[] aproximarRacional(double valor) {
+        long p0 = 0, q0 = 1, p1 = 1, q1 = 0;
+        double resto = valor;
+        for (int i = 0; i < 30; i++) {
+            long a = (long) Math.floor(resto);
+            long p2 = a * p1 + p0;
+            long q2 = a * q1 + q0;
+            if (q2 > MAX_DENOMINADOR)
+                return null;
+            if (Math.abs((double) p2 / q2 - valor) <= TOLERANCIA_RACIONAL * Math.abs(valor))
+                return new long[] { p2, q2 };
+            double fraccion = resto - a;
+            if (fraccion < 1e-12)
+                return null;
+            resto = 1.0 / fraccion;
+            p0 = p1;
+            q0 = q1;
+            p1 = p2;
+            q1 = q2;
+        }
+        return null;
+    }
+
+    private static long mcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static long mcm(long a, long b) {
+        return a / mcd(a, b) * b;
+    }
+}
@@ -0,0 +1,89 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ejecuta cálculos en otro hilo y entrega el resultado como
+ * CompletableFuture. A diferencia de CompletableFuture.supplyAsync, cancelar
+ * el futuro interrumpe el hilo que está calculando, y el analizador (vía
+ * {@link ControlAnalisis}) se detiene en su siguiente punto de control.
+ */
+public final class EjecucionAsincrona {
+
+    // Un hilo virtual por tarea: no hay que dimensionar ni cerrar el ejecutor
+    private static final ExecutorService EJECUTOR_VIRTUAL = Executors.newVirtualThreadPerTaskExecutor();
+
+    private EjecucionAsincrona() {
+    }
+
+    // Ejecutor por defecto de los análisis asíncronos (hilos virtuales)
+    public static Executor ejecutorPorDefecto() {
+        return EJECUTOR_VIRTUAL;
+    }
+
+    /**
+     * Ejecuta el cálculo en el ejecutor indicado.
+     *
+     * @param calculo  Cálculo a ejecutar; sus excepciones completan el futuro
+     *                 de forma excepcional
+     * @param ejecutor Ejecutor donde correr el cálculo
+     * @return Futuro del resultado; cancelarlo interrumpe el cálculo en curso
+     */
+    public static <T> CompletableFuture<T> ejecutar(Callable<T> calculo, Executor ejecutor) {
+        Tarea<T> tarea = new Tarea<>(calculo);
+        tarea.futuro.whenComplete((resultado, error) -> {
+            if (tarea.futuro.isCancelled()) {
+                tarea.interrumpir();
+            }
+        });
+        try {
+            ejecutor.execute(tarea);
+        } catch (RuntimeException e) {
+            // Ejecutor cerrado o saturado
+            tarea.futuro.completeExceptionally(e);
+        }
+        return tarea.futuro;
+    }
+
+    private static final class Tarea<T> implements Runnable {
+        private final Callable<T> calculo;
+        private final CompletableFuture<T> futuro = new CompletableFuture<>();
+        // Hilo que ejecuta el cálculo mientras corre (protegido por 'this')
+        private Thread hilo;
+
+        Tarea(Callable<T> calculo) {
+            this.calculo = calculo;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (futuro.isDone()) {
+                    return; // Cancelada antes de empezar
+                }
+                hilo = Thread.currentThread();
+            }
+            try {
+                futuro.complete(calculo.call());
+            } catch (Throwable e) {
+                futuro.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    hilo = null;
+                    // Una interrupción tardía no debe afectar a la siguiente tarea del hilo
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        synchronized void interrumpir() {
+            if (hilo != null) {
+                hilo.interrupt();
+            }
+        }
+    }
+}
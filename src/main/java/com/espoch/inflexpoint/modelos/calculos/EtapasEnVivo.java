@@ -0,0 +1,119 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
+
+/**
+ * Etapas del análisis en vivo (mientras el usuario escribe), cada una con las
+ * entradas de las que depende:
+ * 1. Lectura: el texto de la función
+ * 2. Derivadas simbólicas: la expresión normalizada
+ * 3. Gráfica de la función: la expresión normalizada
+ * 4. Análisis completo: la expresión, el rango y las opciones (ClaveAnalisis)
+ * Una etapa solo se vuelve a calcular si cambió alguna de sus entradas; así,
+ * cambiar el rango no vuelve a leer la expresión ni a derivarla, y agregar un
+ * espacio no cambia nada.
+ * Se usa desde un solo hilo (el de la interfaz).
+ */
+public final class EtapasEnVivo {
+
+    // 1. Lectura
+    private String texto;
+    private String normalizada;
+    private Evaluador evaluador;
+    private ExpresionInvalidaException error;
+
+    // 2. Derivadas (se calculan al pedirlas)
+    private String primeraDerivada;
+    private String segundaDerivada;
+
+    // 3 y 4. Entradas de lo último que se graficó y analizó
+    private String normalizadaGraficada;
+    private ClaveAnalisis claveAnalizada;
+
+    /**
+     * Lee el texto de la función, salvo que sea la misma expresión de la
+     * lectura anterior.
+     *
+     * @param texto Texto de la función
+     * @return true si la expresión cambió (las etapas siguientes deben
+     *         recalcularse), false si es la misma
+     * @throws ExpresionInvalidaException si la expresión es inválida (con la
+     *                                    posición del error)
+     */
+    public boolean leer(String texto) throws ExpresionInvalidaException {
+        if (texto.equals(this.texto)) {
+            if (error != null) {
+                throw error;
+            }
+            return false;
+        }
+        this.texto = texto;
+
+        String normalizada = Evaluador.normalizar(texto);
+        if (evaluador != null && normalizada.equals(this.normalizada)) {
+            return false; // Solo cambiaron espacios o mayúsculas
+        }
+        this.normalizada = normalizada;
+        primeraDerivada = null;
+        segundaDerivada = null;
+        try {
+            evaluador = new Evaluador(texto);
+            error = null;
+            return true;
+        } catch (ExpresionInvalidaException e) {
+            evaluador = null;
+            error = e;
+            throw e;
+        }
+    }
+
+    // Evaluador de la última expresión válida (null si no la hay)
+    public Evaluador getEvaluador() {
+        return evaluador;
+    }
+
+    public String getPrimeraDerivada() {
+        if (primeraDerivada == null && evaluador != null) {
+            try {
+                primeraDerivada = DerivadorSimbolico.derivar(evaluador.getArbol());
+            } catch (RuntimeException e) {
+                primeraDerivada = "d/dx[" + normalizada + "]";
+            }
+        }
+        return primeraDerivada;
+    }
+
+    public String getSegundaDerivada() {
+        if (segundaDerivada == null && evaluador != null) {
+            try {
+                segundaDerivada = DerivadorSimbolico.derivarSegunda(evaluador.getArbol());
+            } catch (RuntimeException e) {
+                segundaDerivada = "d^2/dx^2[" + normalizada + "]";
+            }
+        }
+        return segundaDerivada;
+    }
+
+    // ¿La gráfica ya muestra la expresión actual?
+    public boolean graficaVigente() {
+        return evaluador != null && normalizada.equals(normalizadaGraficada);
+    }
+
+    public void registrarGrafica() {
+        normalizadaGraficada = normalizada;
+    }
+
+    // ¿Ya se analizó (o se está analizando) con estas entradas?
+    public boolean analisisVigente(ClaveAnalisis clave) {
+        return clave.equals(claveAnalizada);
+    }
+
+    public void registrarAnalisis(ClaveAnalisis clave) {
+        claveAnalizada = clave;
+    }
+
+    // El último análisis no terminó (se canceló o falló): hay que repetirlo
+    public void olvidarAnalisis() {
+        claveAnalizada = null;
+    }
+}
@@ -1,42 +1,382 @@
 package com.espoch.inflexpoint.modelos.calculos;
 
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.Nodo;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoConstante;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoDivision;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoFuncion;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoMultiplicacion;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoPotencia;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoResta;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoSuma;
+import com.espoch.inflexpoint.modelos.calculos.DerivadorSimbolico.NodoVariable;
 import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
 
+import java.util.Arrays;
+
+/**
+ * Evalúa f(x) para una expresión. El constructor la lee una sola vez: valida
+ * la sintaxis (con la posición exacta del error en el texto original) y la
+ * compila a una secuencia de operaciones en notación postfija, junto con su
+ * árbol sintáctico. Cada evaluación solo recorre esa secuencia sobre una pila
+ * de doubles, sin volver a leer el texto.
+ * No es seguro para usar desde varios hilos (la pila es del evaluador).
+ */
 public class Evaluador {
 
-    private final String expresion;
-    private int posicion = -1, caracter;
+    // Operaciones de la secuencia compilada
+    private static final byte CONSTANTE = 0;
+    private static final byte VARIABLE = 1;
+    private static final byte SUMA = 2;
+    private static final byte RESTA = 3;
+    private static final byte PRODUCTO = 4;
+    private static final byte COCIENTE = 5;
+    private static final byte POTENCIA = 6;
+    private static final byte NEGATIVO = 7;
+    private static final byte SQRT = 8;
+    private static final byte SIN = 9;
+    private static final byte COS = 10;
+    private static final byte TAN = 11;
+    private static final byte CSC = 12;
+    private static final byte SEC = 13;
+    private static final byte COT = 14;
+    private static final byte ASIN = 15;
+    private static final byte ACOS = 16;
+    private static final byte ATAN = 17;
+    private static final byte LOG = 18;
+    private static final byte LN = 19;
+    private static final byte ABS = 20;
+    private static final byte EXP = 21;
+
+    // Funciones reconocidas, en el orden de sus operaciones (desde SQRT)
+    private static final String[] FUNCIONES = {
+            "sqrt", "sin", "cos", "tan", "csc", "sec", "cot", "asin", "acos", "atan", "log", "ln", "abs", "exp"
+    };
+
+    private static final double LN_10 = Math.log(10);
+
+    // Caracteres permitidos en expresiones (ya normalizadas)
+    private static final String CARACTERES_PERMITIDOS = "0123456789+-*/^().abcdefghijklmnopqrstuvwxyz";
+
+    private final byte[] operaciones;
+    // constantes[i] es el valor que apila la operación i si es CONSTANTE
+    private final double[] constantes;
+    private final Nodo arbol;
+    private final double[] pila;
+    // Pilas de la primera y la segunda derivada (ver evaluarConDerivadas)
+    private final double[] pilaPrimera;
+    private final double[] pilaSegunda;
 
     public Evaluador(String expresion) throws ExpresionInvalidaException {
         if (expresion == null || expresion.trim().isEmpty()) {
             throw new ExpresionInvalidaException("La expresión no puede estar vacía");
         }
-        this.expresion = normalizar(expresion);
+        Compilador compilador = new Compilador(normalizarConPosiciones(expresion));
+        this.arbol = compilador.compilar();
+        this.operaciones = Arrays.copyOf(compilador.operaciones, compilador.tamanio);
+        this.constantes = Arrays.copyOf(compilador.constantes, compilador.tamanio);
+        this.pila = new double[compilador.pilaMaxima];
+        this.pilaPrimera = new double[compilador.pilaMaxima];
+        this.pilaSegunda = new double[compilador.pilaMaxima];
+    }
+
+    /**
+     * Evaluador de la misma expresión ya compilada (comparte la secuencia de
+     * operaciones y el árbol, con una pila propia).
+     */
+    protected Evaluador(Evaluador compilado) {
+        this.operaciones = compilado.operaciones;
+        this.constantes = compilado.constantes;
+        this.arbol = compilado.arbol;
+        this.pila = new double[compilado.pila.length];
+        this.pilaPrimera = new double[compilado.pila.length];
+        this.pilaSegunda = new double[compilado.pila.length];
     }
 
     public double evaluar(double x) throws ExpresionInvalidaException {
-        this.posicion = -1;
-        siguienteCaracter();
-        double res = analizarExpresion(x);
-        if (posicion < expresion.length()) {
-            throw new ExpresionInvalidaException("Carácter inesperado: " + (char) caracter);
+        double[] pila = this.pila;
+        int tope = -1;
+        for (int i = 0; i < operaciones.length; i++) {
+            switch (operaciones[i]) {
+                case CONSTANTE -> pila[++tope] = constantes[i];
+                case VARIABLE -> pila[++tope] = x;
+                case SUMA -> {
+                    tope--;
+                    pila[tope] += pila[tope + 1];
+                }
+                case RESTA -> {
+                    tope--;
+                    pila[tope] -= pila[tope + 1];
+                }
+                case PRODUCTO -> {
+                    tope--;
+                    pila[tope] *= pila[tope + 1];
+                }
+                case COCIENTE -> {
+                    tope--;
+                    pila[tope] /= pila[tope + 1];
+                }
+                case POTENCIA -> {
+                    tope--;
+                    pila[tope] = Math.pow(pila[tope], pila[tope + 1]);
+                }
+                case NEGATIVO -> pila[tope] = -pila[tope];
+                case SQRT -> pila[tope] = Math.sqrt(pila[tope]);
+                case SIN -> pila[tope] = Math.sin(pila[tope]);
+                case COS -> pila[tope] = Math.cos(pila[tope]);
+                case TAN -> pila[tope] = Math.tan(pila[tope]);
+                case CSC -> pila[tope] = 1.0 / Math.sin(pila[tope]);
+                case SEC -> pila[tope] = 1.0 / Math.cos(pila[tope]);
+                case COT -> pila[tope] = 1.0 / Math.tan(pila[tope]);
+                case ASIN -> pila[tope] = Math.asin(pila[tope]);
+                case ACOS -> pila[tope] = Math.acos(pila[tope]);
+                case ATAN -> pila[tope] = Math.atan(pila[tope]);
+                case LOG -> pila[tope] = Math.log10(pila[tope]);
+                case LN -> pila[tope] = Math.log(pila[tope]);
+                case ABS -> pila[tope] = Math.abs(pila[tope]);
+                case EXP -> pila[tope] = Math.exp(pila[tope]);
+                default -> throw new ExpresionInvalidaException("Operación desconocida: " + operaciones[i]);
+            }
+        }
+        return pila[0];
+    }
+
+    /**
+     * Evalúa f(x), f'(x) y f''(x) en una sola pasada por la secuencia
+     * compilada (derivación automática): junto a cada valor de la pila se
+     * llevan sus dos primeras derivadas respecto de x, y cada operación las
+     * combina con la regla de la cadena. Es más barato que evaluar tres
+     * expresiones y da las derivadas exactas (salvo redondeo), sin el error
+     * de las diferencias finitas. f(x) sale igual que con evaluar(x).
+     *
+     * @param resultado Recibe f(x), f'(x) y f''(x) en sus tres primeras posiciones
+     */
+    public void evaluarConDerivadas(double x, double[] resultado) throws ExpresionInvalidaException {
+        double[] pila = this.pila;
+        double[] primera = pilaPrimera;
+        double[] segunda = pilaSegunda;
+        int tope = -1;
+        for (int i = 0; i < operaciones.length; i++) {
+            switch (operaciones[i]) {
+                case CONSTANTE -> {
+                    tope++;
+                    pila[tope] = constantes[i];
+                    primera[tope] = 0;
+                    segunda[tope] = 0;
+                }
+                case VARIABLE -> {
+                    tope++;
+                    pila[tope] = x;
+                    primera[tope] = 1;
+                    segunda[tope] = 0;
+                }
+                case SUMA -> {
+                    tope--;
+                    pila[tope] += pila[tope + 1];
+                    primera[tope] += primera[tope + 1];
+                    segunda[tope] += segunda[tope + 1];
+                }
+                case RESTA -> {
+                    tope--;
+                    pila[tope] -= pila[tope + 1];
+                    primera[tope] -= primera[tope + 1];
+                    segunda[tope] -= segunda[tope + 1];
+                }
+                case PRODUCTO -> {
+                    tope--;
+                    double u = pila[tope], u1 = primera[tope], u2 = segunda[tope];
+                    double v = pila[tope + 1], v1 = primera[tope + 1], v2 = segunda[tope + 1];
+                    pila[tope] = u * v;
+                    primera[tope] = u1 * v + u * v1;
+                    segunda[tope] = u2 * v + 2 * u1 * v1 + u * v2;
+                }
+                case COCIENTE -> {
+                    tope--;
+                    double v = pila[tope + 1], v1 = primera[tope + 1], v2 = segunda[tope + 1];
+                    double w = pila[tope] / v;
+                    double w1 = (primera[tope] - w * v1) / v;
+                    pila[tope] = w;
+                    primera[tope] = w1;
+                    segunda[tope] = (segunda[tope] - 2 * w1 * v1 - w * v2) / v;
+                }
+                case POTENCIA -> {
+                    tope--;
+                    potencia(tope);
+                }
+                case NEGATIVO -> {
+                    pila[tope] = -pila[tope];
+                    primera[tope] = -primera[tope];
+                    segunda[tope] = -segunda[tope];
+                }
+                case SQRT -> {
+                    double u = pila[tope];
+                    double r = Math.sqrt(u);
+                    componer(tope, r, 0.5 / r, -0.25 / (u * r));
+                }
+                case SIN -> {
+                    double s = Math.sin(pila[tope]);
+                    componer(tope, s, Math.cos(pila[tope]), -s);
+                }
+                case COS -> {
+                    double c = Math.cos(pila[tope]);
+                    componer(tope, c, -Math.sin(pila[tope]), -c);
+                }
+                case TAN -> {
+                    double t = Math.tan(pila[tope]);
+                    double sec2 = 1 + t * t;
+                    componer(tope, t, sec2, 2 * t * sec2);
+                }
+                case CSC -> {
+                    double csc = 1.0 / Math.sin(pila[tope]);
+                    double cot = 1.0 / Math.tan(pila[tope]);
+                    componer(tope, csc, -csc * cot, csc * (cot * cot + csc * csc));
+                }
+                case SEC -> {
+                    double sec = 1.0 / Math.cos(pila[tope]);
+                    double tan = Math.tan(pila[tope]);
+                    componer(tope, sec, sec * tan, sec * (tan * tan + sec * sec));
+                }
+                case COT -> {
+                    double cot = 1.0 / Math.tan(pila[tope]);
+                    double csc2 = 1 + cot * cot;
+                    componer(tope, cot, -csc2, 2 * cot * csc2);
+                }
+                case ASIN -> {
+                    double u = pila[tope];
+                    double q = 1 - u * u;
+                    double d = 1 / Math.sqrt(q);
+                    componer(tope, Math.asin(u), d, u * d / q);
+                }
+                case ACOS -> {
+                    double u = pila[tope];
+                    double q = 1 - u * u;
+                    double d = 1 / Math.sqrt(q);
+                    componer(tope, Math.acos(u), -d, -u * d / q);
+                }
+                case ATAN -> {
+                    double u = pila[tope];
+                    double q = 1 + u * u;
+                    componer(tope, Math.atan(u), 1 / q, -2 * u / (q * q));
+                }
+                case LOG -> {
+                    double u = pila[tope];
+                    componer(tope, Math.log10(u), 1 / (u * LN_10), -1 / (u * u * LN_10));
+                }
+                case LN -> {
+                    double u = pila[tope];
+                    componer(tope, Math.log(u), 1 / u, -1 / (u * u));
+                }
+                case ABS -> componer(tope, Math.abs(pila[tope]), Math.signum(pila[tope]), 0);
+                case EXP -> {
+                    double e = Math.exp(pila[tope]);
+                    componer(tope, e, e, e);
+                }
+                default -> throw new ExpresionInvalidaException("Operación desconocida: " + operaciones[i]);
+            }
+        }
+        resultado[0] = pila[0];
+        resultado[1] = primera[0];
+        resultado[2] = segunda[0];
+    }
+
+    /**
+     * Aplica una función g al valor u del tope y a sus derivadas (regla de la
+     * cadena): (g o u)' = g'(u) u', (g o u)'' = g''(u) u'^2 + g'(u) u''.
+     *
+     * @param g  g(u)
+     * @param g1 g'(u)
+     * @param g2 g''(u)
+     */
+    private void componer(int tope, double g, double g1, double g2) {
+        double u1 = pilaPrimera[tope];
+        double u2 = pilaSegunda[tope];
+        pila[tope] = g;
+        if (u1 == 0 && u2 == 0) {
+            // Argumento constante: g'(u) puede no estar definida (ej. sqrt(0))
+            pilaPrimera[tope] = 0;
+            pilaSegunda[tope] = 0;
+            return;
         }
-        return res;
+        pilaPrimera[tope] = g1 * u1;
+        pilaSegunda[tope] = g2 * u1 * u1 + g1 * u2;
+    }
+
+    // u^v sobre las posiciones tope (base) y tope + 1 (exponente)
+    private void potencia(int tope) {
+        double u = pila[tope];
+        double v = pila[tope + 1];
+        double v1 = pilaPrimera[tope + 1];
+        double v2 = pilaSegunda[tope + 1];
+        double w = Math.pow(u, v);
+        if (v1 == 0 && v2 == 0) {
+            // Exponente constante: regla de la potencia (sin ln(u), que no
+            // existe para bases negativas)
+            double g1 = v == 0 ? 0 : v * Math.pow(u, v - 1);
+            double g2 = v == 0 || v == 1 ? 0 : v * (v - 1) * Math.pow(u, v - 2);
+            componer(tope, w, g1, g2);
+            return;
+        }
+        // Caso general: u^v = e^(v ln u)
+        double u1 = pilaPrimera[tope];
+        double u2 = pilaSegunda[tope];
+        double ln = Math.log(u);
+        double h1 = v1 * ln + v * u1 / u;
+        double h2 = v2 * ln + 2 * v1 * u1 / u + v * (u2 * u - u1 * u1) / (u * u);
+        pila[tope] = w;
+        pilaPrimera[tope] = w * h1;
+        pilaSegunda[tope] = w * (h1 * h1 + h2);
+    }
+
+    // Otro evaluador de la misma expresión, sin volver a compilarla (para
+    // evaluarla desde otro componente u otro hilo)
+    public Evaluador copiar() {
+        return new Evaluador(this);
+    }
+
+    // Árbol sintáctico de la expresión (el mismo que arma DerivadorSimbolico)
+    Nodo getArbol() {
+        return arbol;
+    }
+
+    static String normalizar(String expr) {
+        return normalizarConPosiciones(expr).toString();
     }
 
-    private String normalizar(String expr) {
+    /**
+     * Normaliza la expresión (minúsculas, sin espacios, sinónimos de funciones
+     * y multiplicaciones implícitas) recordando de qué posición del texto
+     * original sale cada carácter.
+     */
+    private static Normalizacion normalizarConPosiciones(String expr) {
         if (expr == null)
-            return "";
-
-        String normalizarEntrada = expr.trim().toLowerCase()
-                .replace(" ", "")
-                .replace("²", "^2")
-                .replace("³", "^3")
-                .replace("arcsen(", "asin(")
-                .replace("arccos(", "acos(")
-                .replace("arctan(", "atan(")
-                .replace("sen(", "sin(")
-                .replace("raiz(", "sqrt(");
+            return new Normalizacion(0, 0);
+
+        int inicio = 0;
+        int fin = expr.length();
+        while (inicio < fin && expr.charAt(inicio) <= ' ')
+            inicio++;
+        while (fin > inicio && expr.charAt(fin - 1) <= ' ')
+            fin--;
+
+        Normalizacion normalizarEntrada = new Normalizacion(fin - inicio, fin);
+        for (int i = inicio; i < fin; i++) {
+            char c = Character.toLowerCase(expr.charAt(i));
+            if (c == ' ') {
+                continue;
+            }
+            if (c == '²' || c == '³') {
+                normalizarEntrada.agregar('^', i);
+                normalizarEntrada.agregar(c == '²' ? '2' : '3', i);
+            } else {
+                normalizarEntrada.agregar(c, i);
+            }
+        }
+
+        normalizarEntrada = normalizarEntrada
+                .reemplazar("arcsen(", "asin(")
+                .reemplazar("arccos(", "acos(")
+                .reemplazar("arctan(", "atan(")
+                .reemplazar("sen(", "sin(")
+                .reemplazar("raiz(", "sqrt(");
 
         String[] tokens = {
                 "asin", "acos", "atan", "sqrt", // 4 chars
@@ -53,138 +393,339 @@ public class Evaluador {
         };
 
         for (int i = 0; i < tokens.length; i++) {
-            normalizarEntrada = normalizarEntrada.replace(tokens[i], placeholders[i]);
+            normalizarEntrada = normalizarEntrada.reemplazar(tokens[i], placeholders[i]);
         }
 
-        // 3a. Digito seguido de (x, (, T)
-        normalizarEntrada = normalizarEntrada.replaceAll("(?<=\\d)(?=[x\\(T])", "*");
-
-        // 3b. ')' seguido de (Digito, x, (, T)
-        normalizarEntrada = normalizarEntrada.replaceAll("(?<=\\))(?=[\\dx\\(T])", "*");
-
-        // 3c. 'x' seguido de (Digito, x, (, T)
-        normalizarEntrada = normalizarEntrada.replaceAll("(?<=x)(?=[\\dx\\(T])", "*");
-
-        normalizarEntrada = normalizarEntrada.replaceAll("(?<=TK[OP])(?=[\\dx\\(T])", "*");
+        // 3. Multiplicaciones implícitas: dígito seguido de (x, (, T); ')', 'x',
+        // pi o e seguidos de (dígito, x, (, T)
+        normalizarEntrada = normalizarEntrada.insertarProductos();
 
         // 4. Restauración de tokens
         for (int i = 0; i < tokens.length; i++) {
-            normalizarEntrada = normalizarEntrada.replace(placeholders[i], tokens[i]);
+            normalizarEntrada = normalizarEntrada.reemplazar(placeholders[i], tokens[i]);
         }
 
         return normalizarEntrada;
     }
 
-    private void siguienteCaracter() {
-        caracter = (++posicion < expresion.length()) ? expresion.charAt(posicion) : -1;
-    }
+    /**
+     * Texto en proceso de normalización con la posición original de cada
+     * carácter; la posición de más allá del final corresponde al fin del texto.
+     */
+    private static final class Normalizacion {
+        private char[] texto;
+        private int[] origen;
+        private int longitud;
+        private final int fin;
+
+        Normalizacion(int capacidad, int fin) {
+            this.texto = new char[Math.max(capacidad, 1)];
+            this.origen = new int[texto.length];
+            this.fin = fin;
+        }
+
+        void agregar(char c, int posicion) {
+            if (longitud == texto.length) {
+                texto = Arrays.copyOf(texto, longitud * 2);
+                origen = Arrays.copyOf(origen, longitud * 2);
+            }
+            texto[longitud] = c;
+            origen[longitud] = posicion;
+            longitud++;
+        }
+
+        int longitud() {
+            return longitud;
+        }
+
+        char charAt(int i) {
+            return texto[i];
+        }
+
+        int origen(int i) {
+            return i < longitud ? origen[i] : fin;
+        }
 
-    private boolean consumir(int charToEat) {
-        while (caracter == ' ')
-            siguienteCaracter();
-        if (caracter == charToEat) {
-            siguienteCaracter();
+        // Igual que String.replace: de izquierda a derecha y sin solaparse
+        Normalizacion reemplazar(String de, String a) {
+            Normalizacion resultado = new Normalizacion(longitud + longitud / 2, fin);
+            int i = 0;
+            while (i < longitud) {
+                if (coincide(i, de)) {
+                    for (int k = 0; k < a.length(); k++) {
+                        resultado.agregar(a.charAt(k), origen[i + Math.min(k, de.length() - 1)]);
+                    }
+                    i += de.length();
+                } else {
+                    resultado.agregar(texto[i], origen[i]);
+                    i++;
+                }
+            }
+            return resultado;
+        }
+
+        Normalizacion insertarProductos() {
+            Normalizacion resultado = new Normalizacion(longitud + longitud / 2, fin);
+            for (int i = 0; i < longitud; i++) {
+                char c = texto[i];
+                if (i > 0) {
+                    char previo = texto[i - 1];
+                    boolean iniciaFactor = c == 'x' || c == '(' || c == 'T';
+                    boolean digito = c >= '0' && c <= '9';
+                    boolean constante = i >= 3 && texto[i - 3] == 'T' && texto[i - 2] == 'K'
+                            && (previo == 'O' || previo == 'P');
+                    if ((previo >= '0' && previo <= '9' && iniciaFactor)
+                            || ((previo == ')' || previo == 'x' || constante) && (iniciaFactor || digito))) {
+                        resultado.agregar('*', origen[i]);
+                    }
+                }
+                resultado.agregar(c, origen[i]);
+            }
+            return resultado;
+        }
+
+        private boolean coincide(int i, String patron) {
+            if (i + patron.length() > longitud) {
+                return false;
+            }
+            for (int k = 0; k < patron.length(); k++) {
+                if (texto[i + k] != patron.charAt(k)) {
+                    return false;
+                }
+            }
             return true;
         }
-        return false;
-    }
 
-    private double analizarExpresion(double x) throws ExpresionInvalidaException {
-        double v = analizarTermino(x);
-        for (;;) {
-            if (consumir('+'))
-                v += analizarTermino(x); // suma
-            else if (consumir('-'))
-                v -= analizarTermino(x); // resta
-            else
-                return v;
+        @Override
+        public String toString() {
+            return new String(texto, 0, longitud);
         }
     }
 
-    private double analizarTermino(double x) throws ExpresionInvalidaException {
-        double v = analizarUnary(x);
-        for (;;) {
-            if (consumir('*'))
-                v *= analizarUnary(x); // multiplicación
-            else if (consumir('/'))
-                v /= analizarUnary(x); // división
-            else
-                return v;
+    /**
+     * Descenso recursivo sobre la expresión normalizada, con la misma
+     * gramática y precedencia que DerivadorSimbolico pero estricto: cualquier
+     * error se reporta con su posición en el texto original. Emite a la vez
+     * la secuencia postfija y el árbol.
+     */
+    private static final class Compilador {
+        private final Normalizacion entrada;
+        private final String texto;
+        private int pos;
+        private int profundidad;
+
+        byte[] operaciones = new byte[16];
+        double[] constantes = new double[16];
+        int tamanio;
+        private int altura;
+        int pilaMaxima;
+
+        Compilador(Normalizacion entrada) {
+            this.entrada = entrada;
+            this.texto = entrada.toString();
         }
-    }
 
-    private double analizarUnary(double x) throws ExpresionInvalidaException {
-        if (consumir('+'))
-            return analizarUnary(x); // unario más
-        if (consumir('-'))
-            return -analizarUnary(x); // unario menos
-        return analizarPotencia(x);
-    }
+        Nodo compilar() throws ExpresionInvalidaException {
+            Nodo arbol = analizarExpresion();
+            if (pos < entrada.longitud()) {
+                throw inesperado(pos);
+            }
+            return arbol;
+        }
 
-    private double analizarPotencia(double x) throws ExpresionInvalidaException {
-        double v = analizarFactor(x);
-        if (consumir('^'))
-            v = Math.pow(v, analizarUnary(x)); // exponenciación (puede ser negativa)
-        return v;
-    }
+        private Nodo analizarExpresion() throws ExpresionInvalidaException {
+            Nodo nodo = analizarTermino();
+            for (;;) {
+                if (consumir('+')) {
+                    nodo = new NodoSuma(nodo, analizarTermino());
+                    emitir(SUMA);
+                } else if (consumir('-')) {
+                    nodo = new NodoResta(nodo, analizarTermino());
+                    emitir(RESTA);
+                } else {
+                    return nodo;
+                }
+            }
+        }
 
-    private double analizarFactor(double x) throws ExpresionInvalidaException {
-        double v;
-        int startPosicion = this.posicion;
-        if (consumir('(')) { // paréntesis
-            v = analizarExpresion(x);
-            consumir(')');
-        } else if (caracter == 'x' || caracter == 'X') { // variable literal
-            siguienteCaracter();
-            v = x;
-        } else if ((caracter >= '0' && caracter <= '9') || caracter == '.') { // números
-            while ((caracter >= '0' && caracter <= '9') || caracter == '.')
-                siguienteCaracter();
-            v = Double.parseDouble(expresion.substring(startPosicion, this.posicion));
-        } else if (caracter >= 'a' && caracter <= 'z') { // funciones
-            while (caracter >= 'a' && caracter <= 'z')
-                siguienteCaracter();
-            String func = expresion.substring(startPosicion, this.posicion);
-
-            // Primero verificar si es una constante
-            if (func.equals("e")) {
-                v = Math.E;
-            } else if (func.equals("pi")) {
-                v = Math.PI;
-            } else {
+        private Nodo analizarTermino() throws ExpresionInvalidaException {
+            Nodo nodo = analizarUnary();
+            for (;;) {
+                if (consumir('*')) {
+                    nodo = new NodoMultiplicacion(nodo, analizarUnary());
+                    emitir(PRODUCTO);
+                } else if (consumir('/')) {
+                    nodo = new NodoDivision(nodo, analizarUnary());
+                    emitir(COCIENTE);
+                } else {
+                    return nodo;
+                }
+            }
+        }
+
+        private Nodo analizarUnary() throws ExpresionInvalidaException {
+            if (consumir('+'))
+                return analizarUnary(); // unario más
+            if (consumir('-')) {
+                Nodo nodo = new NodoResta(new NodoConstante(0), analizarUnary()); // unario menos
+                emitir(NEGATIVO);
+                return nodo;
+            }
+            return analizarPotencia();
+        }
+
+        private Nodo analizarPotencia() throws ExpresionInvalidaException {
+            Nodo nodo = analizarFactor();
+            if (consumir('^')) {
+                nodo = new NodoPotencia(nodo, analizarUnary()); // exponenciación (puede ser negativa)
+                emitir(POTENCIA);
+            }
+            return nodo;
+        }
+
+        private Nodo analizarFactor() throws ExpresionInvalidaException {
+            int inicio = pos;
+            char c = actual();
+            if (c == '(') { // paréntesis
+                abrir();
+                Nodo nodo = analizarExpresion();
+                cerrar(inicio);
+                return nodo;
+            }
+            if (c == 'x') { // variable
+                pos++;
+                emitir(VARIABLE);
+                return new NodoVariable();
+            }
+            if ((c >= '0' && c <= '9') || c == '.') { // números
+                while ((actual() >= '0' && actual() <= '9') || actual() == '.')
+                    pos++;
+                String numero = texto.substring(inicio, pos);
+                double valor;
+                try {
+                    valor = Double.parseDouble(numero);
+                } catch (NumberFormatException e) {
+                    throw error("Número inválido: '" + numero + "'", inicio);
+                }
+                return constante(valor);
+            }
+            if (c >= 'a' && c <= 'z') { // funciones y constantes
+                while (actual() >= 'a' && actual() <= 'z')
+                    pos++;
+                String nombre = texto.substring(inicio, pos);
+                if (nombre.equals("e"))
+                    return constante(Math.E);
+                if (nombre.equals("pi"))
+                    return constante(Math.PI);
+
+                int indice = Arrays.asList(FUNCIONES).indexOf(nombre);
+                if (indice < 0) {
+                    throw error("Función desconocida: '" + nombre + "'", inicio);
+                }
                 // Para funciones, DEBE haber paréntesis
-                if (!consumir('(')) {
-                    throw new ExpresionInvalidaException(
-                            "La función '" + func + "' requiere paréntesis: " + func + "(...)");
-                }
-
-                // Evaluar el argumento de la función
-                v = analizarExpresion(x);
-                consumir(')');
-
-                // Aplicar la función correspondiente
-                v = switch (func) {
-                    case "sqrt" -> Math.sqrt(v);
-                    case "sin" -> Math.sin(v);
-                    case "cos" -> Math.cos(v);
-                    case "tan" -> Math.tan(v);
-                    case "csc" -> 1.0 / Math.sin(v);
-                    case "sec" -> 1.0 / Math.cos(v);
-                    case "cot" -> 1.0 / Math.tan(v);
-                    case "asin" -> Math.asin(v);
-                    case "acos" -> Math.acos(v);
-                    case "atan" -> Math.atan(v);
-                    case "log" -> Math.log10(v);
-                    case "ln" -> Math.log(v);
-                    case "abs" -> Math.abs(v);
-                    case "exp" -> Math.exp(v);
-                    default -> throw new ExpresionInvalidaException("Función desconocida: " + func);
-                };
-            }
-        } else {
-            throw new ExpresionInvalidaException("Carácter inesperado: " + (char) caracter);
-        }
-
-        return v;
+                if (actual() != '(') {
+                    throw error("La función '" + nombre + "' requiere paréntesis: " + nombre + "(...)", inicio);
+                }
+                int apertura = pos;
+                abrir();
+                Nodo argumento = analizarExpresion();
+                cerrar(apertura);
+                emitir((byte) (SQRT + indice));
+                return new NodoFuncion(nombre, argumento);
+            }
+            throw operandoFaltante();
+        }
+
+        private Nodo constante(double valor) {
+            emitir(CONSTANTE);
+            constantes[tamanio - 1] = valor;
+            return new NodoConstante(valor);
+        }
+
+        private void emitir(byte operacion) {
+            if (tamanio == operaciones.length) {
+                operaciones = Arrays.copyOf(operaciones, tamanio * 2);
+                constantes = Arrays.copyOf(constantes, tamanio * 2);
+            }
+            operaciones[tamanio++] = operacion;
+            if (operacion == CONSTANTE || operacion == VARIABLE) {
+                altura++;
+                pilaMaxima = Math.max(pilaMaxima, altura);
+            } else if (operacion >= SUMA && operacion <= POTENCIA) {
+                altura--;
+            }
+        }
+
+        private char actual() {
+            return pos < entrada.longitud() ? entrada.charAt(pos) : '\0';
+        }
+
+        private boolean consumir(char c) {
+            if (actual() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void abrir() {
+            pos++;
+            profundidad++;
+        }
+
+        private void cerrar(int apertura) throws ExpresionInvalidaException {
+            if (consumir(')')) {
+                profundidad--;
+                return;
+            }
+            if (pos < entrada.longitud()) {
+                throw inesperado(pos);
+            }
+            throw error(profundidad == 1
+                    ? "Falta el paréntesis de cierre del abierto"
+                    : "Faltan " + profundidad + " paréntesis de cierre; el último sin cerrar está", apertura);
+        }
+
+        // Se esperaba un operando en pos
+        private ExpresionInvalidaException operandoFaltante() {
+            char previo = pos > 0 ? entrada.charAt(pos - 1) : '\0';
+            char c = actual();
+            if (pos >= entrada.longitud()) {
+                if (esOperador(previo))
+                    return error("La expresión no puede terminar con operador: '" + previo + "'", pos - 1);
+                if (previo == '(')
+                    return error("Falta una expresión después de '('", pos - 1);
+                return error("Expresión incompleta", pos);
+            }
+            if (c == ')') {
+                if (previo == '(')
+                    return error("Paréntesis vacíos", pos - 1);
+                if (esOperador(previo))
+                    return error("Falta un operando después de '" + previo + "'", pos - 1);
+            } else if (esOperador(c)) {
+                if (esOperador(previo))
+                    return error("Operadores consecutivos inválidos: '" + previo + c + "'", pos - 1);
+                return error("Falta un operando antes de '" + c + "'", pos);
+            }
+            return inesperado(pos);
+        }
+
+        private ExpresionInvalidaException inesperado(int i) {
+            char c = entrada.charAt(i);
+            if (c == ')')
+                return error("Paréntesis de cierre sin apertura", i);
+            if (CARACTERES_PERMITIDOS.indexOf(c) == -1)
+                return error("Carácter no permitido: '" + c + "'", i);
+            return error("Carácter inesperado: '" + c + "'", i);
+        }
+
+        private ExpresionInvalidaException error(String mensaje, int i) {
+            int posicion = entrada.origen(i);
+            return new ExpresionInvalidaException(mensaje + " en posición " + posicion, posicion);
+        }
+
+        private static boolean esOperador(char c) {
+            return c == '+' || c == '-' || c == '*' || c == '/' || c == '^';
+        }
     }
 }
@@ -0,0 +1,176 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import java.util.Arrays;
+
+/**
+ * Singularidades detectadas (asíntotas y zonas indefinidas) en arreglos
+ * primitivos paralelos: abscisa y tipo. Una vez ordenado, las consultas de
+ * cercanía ({@link #hayCerca}, {@link #hayEntre}) se resuelven con búsqueda
+ * binaria en lugar de recorrer todas las singularidades.
+ * No es seguro para usar desde varios hilos.
+ */
+final class IndiceSingularidades {
+
+    static final byte ASINTOTA = 0;
+    static final byte INDEFINIDO = 1;
+
+    private double[] x;
+    private byte[] tipo;
+    private int tamanio;
+
+    IndiceSingularidades() {
+        this(16);
+    }
+
+    IndiceSingularidades(int capacidad) {
+        this.x = new double[Math.max(capacidad, 1)];
+        this.tipo = new byte[x.length];
+    }
+
+    // Agrega al final; el índice queda desordenado hasta llamar a ordenar()
+    void agregar(double x, byte tipo) {
+        if (tamanio == this.x.length) {
+            this.x = Arrays.copyOf(this.x, tamanio * 2);
+            this.tipo = Arrays.copyOf(this.tipo, tamanio * 2);
+        }
+        this.x[tamanio] = x;
+        this.tipo[tamanio] = tipo;
+        tamanio++;
+    }
+
+    int tamanio() {
+        return tamanio;
+    }
+
+    boolean estaVacio() {
+        return tamanio == 0;
+    }
+
+    double getX(int i) {
+        verificar(i);
+        return x[i];
+    }
+
+    byte getTipo(int i) {
+        verificar(i);
+        return tipo[i];
+    }
+
+    void reemplazar(int i, double x) {
+        verificar(i);
+        this.x[i] = x;
+    }
+
+    /**
+     * Índice ordenado con una singularidad por tipo cada 'distancia'
+     * unidades. Recorre en el orden de inserción y descarta las que quedan a
+     * menos de 'distancia' de la última conservada del mismo tipo; como el
+     * escaneo avanza en x (con a lo sumo medio paso de retroceso), esa es la
+     * única que puede estar tan cerca.
+     */
+    IndiceSingularidades depurar(double distancia) {
+        IndiceSingularidades unicas = new IndiceSingularidades(tamanio);
+        double ultimaAsintota = Double.NaN;
+        double ultimoIndefinido = Double.NaN;
+        for (int i = 0; i < tamanio; i++) {
+            double ultima = tipo[i] == ASINTOTA ? ultimaAsintota : ultimoIndefinido;
+            if (Math.abs(x[i] - ultima) < distancia) {
+                continue;
+            }
+            unicas.agregar(x[i], tipo[i]);
+            if (tipo[i] == ASINTOTA) {
+                ultimaAsintota = x[i];
+            } else {
+                ultimoIndefinido = x[i];
+            }
+        }
+        unicas.ordenar();
+        return unicas;
+    }
+
+    // Orden ascendente por x, estable; casi siempre ya viene ordenado del escaneo
+    void ordenar() {
+        int i = 1;
+        while (i < tamanio && x[i - 1] <= x[i]) {
+            i++;
+        }
+        if (i >= tamanio) {
+            return;
+        }
+
+        // Mezcla ascendente por bloques sobre arreglos auxiliares
+        double[] xAux = new double[tamanio];
+        byte[] tipoAux = new byte[tamanio];
+        double[] xOrigen = x;
+        byte[] tipoOrigen = tipo;
+        for (int ancho = 1; ancho < tamanio; ancho *= 2) {
+            for (int inicio = 0; inicio < tamanio; inicio += 2 * ancho) {
+                int medio = Math.min(inicio + ancho, tamanio);
+                int fin = Math.min(inicio + 2 * ancho, tamanio);
+                int a = inicio;
+                int b = medio;
+                for (int k = inicio; k < fin; k++) {
+                    if (a < medio && (b >= fin || xOrigen[a] <= xOrigen[b])) {
+                        xAux[k] = xOrigen[a];
+                        tipoAux[k] = tipoOrigen[a++];
+                    } else {
+                        xAux[k] = xOrigen[b];
+                        tipoAux[k] = tipoOrigen[b++];
+                    }
+                }
+            }
+            double[] xTemp = xOrigen;
+            xOrigen = xAux;
+            xAux = xTemp;
+            byte[] tipoTemp = tipoOrigen;
+            tipoOrigen = tipoAux;
+            tipoAux = tipoTemp;
+        }
+        x = xOrigen;
+        tipo = tipoOrigen;
+    }
+
+    // Posición de la primera singularidad con abscisa >= valor (índice ordenado)
+    int primeraDesde(double valor) {
+        int bajo = 0;
+        int alto = tamanio;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (x[medio] < valor) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    // ¿Hay alguna singularidad a menos de 'radio' de valor? (índice ordenado)
+    boolean hayCerca(double valor, double radio) {
+        // La búsqueda se abre con margen y la condición exacta se revisa en
+        // los pocos candidatos, para no depender del redondeo de valor ± radio
+        for (int i = primeraDesde(valor - 2 * radio); i < tamanio && x[i] <= valor + 2 * radio; i++) {
+            if (Math.abs(valor - x[i]) < radio) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ¿Hay alguna singularidad en [desde, hasta]? (índice ordenado)
+    boolean hayEntre(double desde, double hasta) {
+        int i = primeraDesde(desde);
+        return i < tamanio && x[i] <= hasta;
+    }
+
+    // Memoria aproximada ocupada, contando la capacidad reservada
+    long bytesAproximados() {
+        return 64L + 9L * x.length;
+    }
+
+    private void verificar(int i) {
+        if (i >= tamanio) {
+            throw new IndexOutOfBoundsException("Índice " + i + " fuera del índice de tamaño " + tamanio);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import java.util.Arrays;
+
+/**
+ * Lista de números reales sobre un arreglo primitivo que crece según se
+ * necesita. Reemplaza a List&lt;Double&gt; en los recorridos del análisis: no
+ * crea un objeto por valor y, con {@link #limpiar()}, se puede reutilizar
+ * como búfer de trabajo sin volver a reservar memoria.
+ * No es segura para usar desde varios hilos.
+ */
+public class ListaReales {
+
+    private double[] valores;
+    private int tamanio;
+
+    public ListaReales() {
+        this(16);
+    }
+
+    public ListaReales(int capacidad) {
+        this.valores = new double[Math.max(capacidad, 1)];
+    }
+
+    public void agregar(double valor) {
+        if (tamanio == valores.length) {
+            valores = Arrays.copyOf(valores, tamanio * 2);
+        }
+        valores[tamanio++] = valor;
+    }
+
+    public void agregarTodos(ListaReales otra) {
+        asegurarCapacidad(tamanio + otra.tamanio);
+        System.arraycopy(otra.valores, 0, valores, tamanio, otra.tamanio);
+        tamanio += otra.tamanio;
+    }
+
+    public double get(int i) {
+        if (i >= tamanio) {
+            throw new IndexOutOfBoundsException("Índice " + i + " fuera de la lista de tamaño " + tamanio);
+        }
+        return valores[i];
+    }
+
+    public double getPrimero() {
+        return get(0);
+    }
+
+    public double getUltimo() {
+        return get(tamanio - 1);
+    }
+
+    public void reemplazar(int i, double valor) {
+        get(i);
+        valores[i] = valor;
+    }
+
+    // Conserva solo los primeros 'tamanio' valores
+    public void truncar(int tamanio) {
+        if (tamanio < 0 || tamanio > this.tamanio) {
+            throw new IndexOutOfBoundsException("Tamaño " + tamanio + " fuera de la lista de tamaño " + this.tamanio);
+        }
+        this.tamanio = tamanio;
+    }
+
+    public void quitarUltimo() {
+        if (tamanio > 0) {
+            tamanio--;
+        }
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean estaVacia() {
+        return tamanio == 0;
+    }
+
+    // Vacía la lista conservando la capacidad reservada
+    public void limpiar() {
+        tamanio = 0;
+    }
+
+    // Orden ascendente (mismo orden total que Double.compare)
+    public void ordenar() {
+        Arrays.sort(valores, 0, tamanio);
+    }
+
+    // Copia de los valores, del tamaño exacto
+    public double[] aArreglo() {
+        return Arrays.copyOf(valores, tamanio);
+    }
+
+    // Memoria aproximada ocupada, contando la capacidad reservada
+    long bytesAproximados() {
+        return 32L + 8L * valores.length;
+    }
+
+    private void asegurarCapacidad(int capacidad) {
+        if (capacidad > valores.length) {
+            valores = Arrays.copyOf(valores, Math.max(capacidad, valores.length * 2));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.enumeraciones.EstrategiaRaices;
+
+/**
+ * Opciones de un análisis: qué secciones calcular, con qué resolución (paso
+ * fijo o presupuesto de evaluaciones), tolerancia de las raíces, estrategia
+ * de búsqueda y plazo.
+ * Es inmutable: cada método con* retorna una copia con el cambio, de modo
+ * que los ajustes predefinidos ({@link #rapido()}, {@link #equilibrado()},
+ * {@link #preciso()}) sirven de punto de partida sin riesgo de modificarlos.
+ */
+public final class OpcionesAnalisis {
+
+    // Tolerancia de la bisección que usa el analizador si no se indica otra
+    public static final double TOLERANCIA_RAICES_DEFECTO = 1e-6;
+
+    private final boolean calcPuntosCriticos;
+    private final boolean calcIntervalos;
+    private final boolean calcMaxMin;
+    private final boolean calcInflexion;
+    private final boolean calcConcavidad;
+    // Paso fijo, o 0 si la resolución sale del presupuesto
+    private final double paso;
+    private final long maxEvaluaciones;
+    private final long latenciaObjetivoMs;
+    private final double toleranciaRaices;
+    private final EstrategiaRaices estrategia;
+    // 0 = sin plazo
+    private final long plazoMs;
+
+    private OpcionesAnalisis(boolean calcPuntosCriticos, boolean calcIntervalos, boolean calcMaxMin,
+            boolean calcInflexion, boolean calcConcavidad, double paso, long maxEvaluaciones,
+            long latenciaObjetivoMs, double toleranciaRaices, EstrategiaRaices estrategia, long plazoMs) {
+        this.calcPuntosCriticos = calcPuntosCriticos;
+        this.calcIntervalos = calcIntervalos;
+        this.calcMaxMin = calcMaxMin;
+        this.calcInflexion = calcInflexion;
+        this.calcConcavidad = calcConcavidad;
+        this.paso = paso;
+        this.maxEvaluaciones = maxEvaluaciones;
+        this.latenciaObjetivoMs = latenciaObjetivoMs;
+        this.toleranciaRaices = toleranciaRaices;
+        this.estrategia = estrategia;
+        this.plazoMs = plazoMs;
+    }
+
+    /**
+     * Respuesta rápida para la interfaz: presupuesto de 20 000 evaluaciones
+     * o 50 ms, tolerancia gruesa y plazo de 200 ms (el resultado puede llegar
+     * marcado como incompleto).
+     */
+    public static OpcionesAnalisis rapido() {
+        return new OpcionesAnalisis(true, true, true, true, true, 0, 20_000, 50, 1e-4,
+                EstrategiaRaices.AUTOMATICA, 200);
+    }
+
+    /**
+     * Lo mismo que hace el análisis sin opciones: paso 0.1 y la tolerancia
+     * por defecto, sin plazo.
+     */
+    public static OpcionesAnalisis equilibrado() {
+        return new OpcionesAnalisis(true, true, true, true, true, 0.1, 0, 0, TOLERANCIA_RAICES_DEFECTO,
+                EstrategiaRaices.AUTOMATICA, 0);
+    }
+
+    /**
+     * Paso 0.01 y tolerancia fina, sin plazo. Bastante más lento que
+     * {@link #equilibrado()}.
+     */
+    public static OpcionesAnalisis preciso() {
+        return new OpcionesAnalisis(true, true, true, true, true, 0.01, 0, 0, 1e-9,
+                EstrategiaRaices.AUTOMATICA, 0);
+    }
+
+    public OpcionesAnalisis conSecciones(boolean calcPuntosCriticos, boolean calcIntervalos, boolean calcMaxMin,
+            boolean calcInflexion, boolean calcConcavidad) {
+        return new OpcionesAnalisis(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad, paso, maxEvaluaciones, latenciaObjetivoMs, toleranciaRaices, estrategia, plazoMs);
+    }
+
+    // Paso fijo (reemplaza el presupuesto)
+    public OpcionesAnalisis conPaso(double paso) {
+        if (!(paso > 0) || Double.isInfinite(paso)) {
+            throw new IllegalArgumentException("El paso debe ser un número positivo");
+        }
+        return new OpcionesAnalisis(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad, paso, 0, 0, toleranciaRaices, estrategia, plazoMs);
+    }
+
+    /**
+     * Resolución a partir de un presupuesto (reemplaza el paso fijo).
+     *
+     * @param maxEvaluaciones    Máximo de evaluaciones de f(x) (0 = sin límite)
+     * @param latenciaObjetivoMs Tiempo objetivo en milisegundos (0 = sin límite)
+     */
+    public OpcionesAnalisis conPresupuesto(long maxEvaluaciones, long latenciaObjetivoMs) {
+        // Valida igual que el presupuesto que se creará en cada análisis
+        new PresupuestoEvaluacion(maxEvaluaciones, latenciaObjetivoMs);
+        return new OpcionesAnalisis(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad, 0, maxEvaluaciones, latenciaObjetivoMs, toleranciaRaices, estrategia, plazoMs);
+    }
+
+    // Tolerancia en |f'(x)| y |f''(x)| para dar por encontrada una raíz
+    public OpcionesAnalisis conToleranciaRaices(double toleranciaRaices) {
+        if (!(toleranciaRaices > 0) || Double.isInfinite(toleranciaRaices)) {
+            throw new IllegalArgumentException("La tolerancia debe ser un número positivo");
+        }
+        return new OpcionesAnalisis(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad, paso, maxEvaluaciones, latenciaObjetivoMs, toleranciaRaices, estrategia, plazoMs);
+    }
+
+    public OpcionesAnalisis conEstrategia(EstrategiaRaices estrategia) {
+        if (estrategia == null) {
+            throw new IllegalArgumentException("La estrategia no puede ser nula");
+        }
+        return new OpcionesAnalisis(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad, paso, maxEvaluaciones, latenciaObjetivoMs, toleranciaRaices, estrategia, plazoMs);
+    }
+
+    /**
+     * @param plazoMs Milisegundos disponibles desde que empieza cada análisis
+     *                (0 = sin plazo)
+     */
+    public OpcionesAnalisis conPlazo(long plazoMs) {
+        if (plazoMs < 0) {
+            throw new IllegalArgumentException("El plazo no puede ser negativo");
+        }
+        return new OpcionesAnalisis(calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad, paso, maxEvaluaciones, latenciaObjetivoMs, toleranciaRaices, estrategia, plazoMs);
+    }
+
+    // ¿La resolución sale de un presupuesto en lugar de un paso fijo?
+    public boolean usaPresupuesto() {
+        return paso == 0;
+    }
+
+    /**
+     * Presupuesto nuevo para un análisis (registra el consumo, por eso no se
+     * comparte entre análisis).
+     *
+     * @return El presupuesto, o null si se usa paso fijo
+     */
+    public PresupuestoEvaluacion crearPresupuesto() {
+        return usaPresupuesto() ? new PresupuestoEvaluacion(maxEvaluaciones, latenciaObjetivoMs) : null;
+    }
+
+    // Control nuevo para un análisis, con el plazo contado desde ahora
+    public ControlAnalisis crearControl() {
+        return new ControlAnalisis(plazoMs);
+    }
+
+    public boolean isCalcPuntosCriticos() {
+        return calcPuntosCriticos;
+    }
+
+    public boolean isCalcIntervalos() {
+        return calcIntervalos;
+    }
+
+    public boolean isCalcMaxMin() {
+        return calcMaxMin;
+    }
+
+    public boolean isCalcInflexion() {
+        return calcInflexion;
+    }
+
+    public boolean isCalcConcavidad() {
+        return calcConcavidad;
+    }
+
+    public double getPaso() {
+        return paso;
+    }
+
+    public long getMaxEvaluaciones() {
+        return maxEvaluaciones;
+    }
+
+    public long getLatenciaObjetivoMs() {
+        return latenciaObjetivoMs;
+    }
+
+    public double getToleranciaRaices() {
+        return toleranciaRaices;
+    }
+
+    public EstrategiaRaices getEstrategia() {
+        return estrategia;
+    }
+
+    public long getPlazoMs() {
+        return plazoMs;
+    }
+
+    @Override
+    public String toString() {
+        String resolucion = usaPresupuesto()
+                ? "presupuesto=" + maxEvaluaciones + "/" + latenciaObjetivoMs + "ms"
+                : "paso=" + paso;
+        return "OpcionesAnalisis{" + resolucion + ", tolerancia=" + toleranciaRaices + ", estrategia="
+                + estrategia + ", plazo=" + plazoMs + "ms}";
+    }
+}
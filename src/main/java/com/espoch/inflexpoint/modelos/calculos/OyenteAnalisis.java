@@ -0,0 +1,14 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+/**
+ * Receptor de las versiones sucesivas de un análisis progresivo
+ * ({@link AnalizadorFuncion#analizarProgresivo}).
+ * Primero recibe un resultado preliminar de baja resolución y luego el
+ * refinado; la última versión tiene {@link ResultadoAnalisis#isPreliminar()}
+ * en false. Se invoca en el hilo que ejecuta el análisis.
+ */
+@FunctionalInterface
+public interface OyenteAnalisis {
+
+    void resultadoActualizado(ResultadoAnalisis resultado);
+}
@@ -0,0 +1,147 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import java.util.Arrays;
+
+/**
+ * Polinomio en x con coeficientes reales, obtenido del árbol sintáctico por
+ * {@link ClasificadorFuncion}. Permite hallar las raíces de f' y f'' de un
+ * polinomio sin recorrer una malla: los extremos de p (raíces de p') lo
+ * dividen en tramos monótonos, y en cada tramo con cambio de signo hay
+ * exactamente una raíz, que la bisección ubica hasta la precisión de double.
+ */
+final class Polinomio {
+
+    private static final int MAX_ITERACIONES = 200;
+    // Un valor por debajo de esta fracción de la suma de |términos| se toma como 0
+    private static final double TOLERANCIA_RELATIVA = 1e-12;
+
+    // coeficientes[i] acompaña a x^i; sin ceros al final (salvo el polinomio 0)
+    private final double[] coeficientes;
+
+    Polinomio(double[] coeficientes) {
+        int longitud = coeficientes.length;
+        while (longitud > 1 && coeficientes[longitud - 1] == 0) {
+            longitud--;
+        }
+        this.coeficientes = Arrays.copyOf(coeficientes, Math.max(longitud, 1));
+    }
+
+    // Grado (0 para las constantes, incluido el polinomio 0)
+    int grado() {
+        return coeficientes.length - 1;
+    }
+
+    double coeficiente(int i) {
+        return i < coeficientes.length ? coeficientes[i] : 0;
+    }
+
+    // Horner
+    double evaluar(double x) {
+        double valor = 0;
+        for (int i = coeficientes.length - 1; i >= 0; i--) {
+            valor = valor * x + coeficientes[i];
+        }
+        return valor;
+    }
+
+    Polinomio derivada() {
+        if (coeficientes.length == 1) {
+            return new Polinomio(new double[] { 0 });
+        }
+        double[] derivados = new double[coeficientes.length - 1];
+        for (int i = 1; i < coeficientes.length; i++) {
+            derivados[i - 1] = coeficientes[i] * i;
+        }
+        return new Polinomio(derivados);
+    }
+
+    /**
+     * Agrega a 'destino', en orden creciente, las raíces de [desde, hasta]
+     * donde el polinomio cambia de signo (las de multiplicidad par no
+     * cuentan, igual que en la búsqueda por malla).
+     */
+    void agregarRaices(double desde, double hasta, ListaReales destino) {
+        if (grado() < 1 || !(desde <= hasta)) {
+            return;
+        }
+
+        // Tramos monótonos: bordes y extremos del polinomio (los puntos donde
+        // p' no cambia de signo no cortan la monotonía)
+        ListaReales puntos = new ListaReales(grado() + 1);
+        puntos.agregar(desde);
+        if (grado() > 1) {
+            derivada().agregarRaices(desde, hasta, puntos);
+        }
+        puntos.agregar(hasta);
+
+        double xAnterior = Double.NaN;
+        int signoAnterior = 0;
+        // Extremo donde p se anula: raíz múltiple, cuenta solo si cambia el signo
+        double pendiente = Double.NaN;
+        for (int i = 0; i < puntos.tamanio(); i++) {
+            double x = puntos.get(i);
+            int signo = signo(x);
+            if (signo == 0) {
+                if (i == 0 || i == puntos.tamanio() - 1) {
+                    agregarSinRepetir(x, destino);
+                } else {
+                    pendiente = x;
+                }
+                continue;
+            }
+            if (signoAnterior != 0 && signo != signoAnterior) {
+                agregarSinRepetir(Double.isNaN(pendiente) ? biseccion(xAnterior, x) : pendiente, destino);
+            }
+            pendiente = Double.NaN;
+            xAnterior = x;
+            signoAnterior = signo;
+        }
+    }
+
+    // Signo de p(x), con 0 si el valor no se distingue del error de redondeo
+    private int signo(double x) {
+        double valor = 0;
+        double escala = 0;
+        for (int i = coeficientes.length - 1; i >= 0; i--) {
+            valor = valor * x + coeficientes[i];
+            escala = escala * Math.abs(x) + Math.abs(coeficientes[i]);
+        }
+        if (Math.abs(valor) <= TOLERANCIA_RELATIVA * escala) {
+            return 0;
+        }
+        return valor > 0 ? 1 : -1;
+    }
+
+    // Única raíz de un tramo monótono con signos opuestos en los extremos
+    private double biseccion(double a, double b) {
+        double fa = evaluar(a);
+        for (int i = 0; i < MAX_ITERACIONES; i++) {
+            double c = (a + b) / 2;
+            if (c <= a || c >= b) {
+                break;
+            }
+            double fc = evaluar(c);
+            if (fc == 0) {
+                return c;
+            }
+            if ((fa < 0) == (fc < 0)) {
+                a = c;
+                fa = fc;
+            } else {
+                b = c;
+            }
+        }
+        return (a + b) / 2;
+    }
+
+    private static void agregarSinRepetir(double raiz, ListaReales destino) {
+        if (destino.estaVacia() || destino.getUltimo() != raiz) {
+            destino.agregar(raiz);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Polinomio" + Arrays.toString(coeficientes);
+    }
+}
@@ -0,0 +1,86 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+/**
+ * Presupuesto de evaluaciones para el análisis con selección automática de
+ * paso ({@link AnalizadorFuncion#analizarConPresupuesto}).
+ * El llamador indica un máximo de evaluaciones de f(x), una latencia objetivo,
+ * o ambos; el analizador elige la resolución de cada fase a partir de él.
+ * El analizador no modifica el presupuesto recibido: descuenta de una copia
+ * (ver {@link #copiar()}) y el consumo se informa en ResultadoAnalisis.
+ */
+public class PresupuestoEvaluacion {
+
+    private final long maxEvaluaciones;
+    private final long latenciaObjetivoMs;
+
+    // Límite efectivo (el menor entre el máximo y lo que cabe en la latencia)
+    private long limite;
+    private long evaluaciones;
+    private boolean agotado;
+
+    /**
+     * @param maxEvaluaciones    Máximo de evaluaciones de f(x) (0 = sin límite)
+     * @param latenciaObjetivoMs Tiempo objetivo en milisegundos (0 = sin límite)
+     */
+    public PresupuestoEvaluacion(long maxEvaluaciones, long latenciaObjetivoMs) {
+        if (maxEvaluaciones < 0 || latenciaObjetivoMs < 0) {
+            throw new IllegalArgumentException("El presupuesto no puede ser negativo");
+        }
+        if (maxEvaluaciones == 0 && latenciaObjetivoMs == 0) {
+            throw new IllegalArgumentException("Debe indicar un máximo de evaluaciones o una latencia objetivo");
+        }
+        this.maxEvaluaciones = maxEvaluaciones;
+        this.latenciaObjetivoMs = latenciaObjetivoMs;
+        this.limite = maxEvaluaciones == 0 ? Long.MAX_VALUE : maxEvaluaciones;
+    }
+
+    public PresupuestoEvaluacion(long maxEvaluaciones) {
+        this(maxEvaluaciones, 0);
+    }
+
+    // Presupuesto igual pero sin consumo, para descontar de él en un análisis
+    PresupuestoEvaluacion copiar() {
+        return new PresupuestoEvaluacion(maxEvaluaciones, latenciaObjetivoMs);
+    }
+
+    // Registra evaluaciones consumidas
+    void registrar(long cantidad) {
+        evaluaciones += cantidad;
+        if (evaluaciones > limite) {
+            agotado = true;
+        }
+    }
+
+    // El analizador no pudo completar el refinamiento con lo que quedaba
+    void marcarAgotado() {
+        agotado = true;
+    }
+
+    void setLimite(long limite) {
+        this.limite = limite;
+    }
+
+    public long getMaxEvaluaciones() {
+        return maxEvaluaciones;
+    }
+
+    public long getLatenciaObjetivoMs() {
+        return latenciaObjetivoMs;
+    }
+
+    public long getLimite() {
+        return limite;
+    }
+
+    public long getEvaluaciones() {
+        return evaluaciones;
+    }
+
+    public long getRestantes() {
+        return Math.max(0, limite - evaluaciones);
+    }
+
+    public boolean isAgotado() {
+        return agotado;
+    }
+}
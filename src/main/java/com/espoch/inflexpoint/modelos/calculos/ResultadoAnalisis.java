@@ -5,20 +5,23 @@ import com.espoch.inflexpoint.modelos.entidades.PuntoCritico;
 
 public class ResultadoAnalisis {
 
+    // Los puntos e intervalos se guardan por columnas (arreglos primitivos); los
+    // getters de arreglos de entidades son vistas creadas al consultarlas.
+
     // Puntos críticos (máximos y mínimos)
-    private PuntoCritico[] puntosCriticos;
+    private TablaPuntos puntosCriticos;
 
     // Puntos de inflexión
-    private PuntoCritico[] puntosInflexion;
+    private TablaPuntos puntosInflexion;
 
     // Intervalos de crecimiento
-    private Intervalo[] intervalosCrecimiento;
+    private TablaIntervalos intervalosCrecimiento;
 
     // Intervalos de decrecimiento
-    private Intervalo[] intervalosDecrecimiento;
+    private TablaIntervalos intervalosDecrecimiento;
 
     // Intervalos de concavidad
-    private Intervalo[] intervalosConcavidad;
+    private TablaIntervalos intervalosConcavidad;
 
     // Derivadas (representación textual)
     private String primeraDerivada;
@@ -27,6 +30,50 @@ public class ResultadoAnalisis {
     // Mensajes de accesibilidad para informar limitaciones de la función
     private java.util.List<String> mensajesAccesibilidad = new java.util.ArrayList<>();
 
+    // Análisis con presupuesto: paso elegido, evaluaciones consumidas y si se agotó
+    private double pasoUtilizado = Double.NaN;
+    private long evaluaciones;
+    private boolean presupuestoAgotado;
+
+    // El análisis se detuvo al vencer el plazo: los resultados son parciales
+    private boolean incompleto;
+
+    // Versión rápida de baja resolución del análisis progresivo
+    private boolean preliminar;
+
+    // Secciones que se calculan al consultarlas (null si el resultado se armó completo)
+    private Secciones secciones;
+
+    /**
+     * Proveedor de las secciones de un resultado diferido. El analizador lo
+     * implementa sobre el contexto compartido del análisis: cada sección se
+     * calcula la primera vez que se consulta y queda memorizada. Los valores
+     * asignados con los setters tienen prioridad.
+     */
+    interface Secciones {
+        TablaPuntos puntosCriticos();
+
+        TablaPuntos puntosInflexion();
+
+        TablaIntervalos intervalosCrecimiento();
+
+        TablaIntervalos intervalosDecrecimiento();
+
+        TablaIntervalos intervalosConcavidad();
+
+        String primeraDerivada();
+
+        String segundaDerivada();
+
+        java.util.List<String> mensajesAccesibilidad();
+
+        /**
+         * Memoria aproximada que retiene el contexto (raíces, singularidades
+         * y las secciones ya calculadas), sin calcular las pendientes.
+         */
+        long bytesAproximados();
+    }
+
     // Constructores
     public ResultadoAnalisis() {
     }
@@ -41,75 +88,110 @@ public class ResultadoAnalisis {
             String primeraDerivada,
             String segundaDerivada) {
 
-        this.puntosCriticos = puntosCriticos;
-        this.puntosInflexion = puntosInflexion;
-        this.intervalosCrecimiento = intervalosCrecimiento;
-        this.intervalosDecrecimiento = intervalosDecrecimiento;
-        this.intervalosConcavidad = intervalosConcavidad;
+        this.puntosCriticos = TablaPuntos.de(puntosCriticos);
+        this.puntosInflexion = TablaPuntos.de(puntosInflexion);
+        this.intervalosCrecimiento = TablaIntervalos.de(intervalosCrecimiento);
+        this.intervalosDecrecimiento = TablaIntervalos.de(intervalosDecrecimiento);
+        this.intervalosConcavidad = TablaIntervalos.de(intervalosConcavidad);
         this.primeraDerivada = primeraDerivada;
         this.segundaDerivada = segundaDerivada;
     }
 
+    // Diferido: las secciones se calculan al consultarlas.
+    ResultadoAnalisis(Secciones secciones) {
+        this.secciones = secciones;
+        this.mensajesAccesibilidad = null;
+    }
+
     // Con resultado vacío con solo el resumen.
     @Deprecated
     public ResultadoAnalisis(String resumen) {
-        this.puntosCriticos = new PuntoCritico[0];
-        this.puntosInflexion = new PuntoCritico[0];
-        this.intervalosCrecimiento = new Intervalo[0];
-        this.intervalosDecrecimiento = new Intervalo[0];
-        this.intervalosConcavidad = new Intervalo[0];
+        this.puntosCriticos = new TablaPuntos();
+        this.puntosInflexion = new TablaPuntos();
+        this.intervalosCrecimiento = new TablaIntervalos();
+        this.intervalosDecrecimiento = new TablaIntervalos();
+        this.intervalosConcavidad = new TablaIntervalos();
         this.primeraDerivada = "";
         this.segundaDerivada = "";
     }
 
     // Getters
     public PuntoCritico[] getPuntosCriticos() {
-        return puntosCriticos;
+        TablaPuntos tabla = getTablaPuntosCriticos();
+        return tabla == null ? null : tabla.aArreglo();
     }
 
     public PuntoCritico[] getPuntosInflexion() {
-        return puntosInflexion;
+        TablaPuntos tabla = getTablaPuntosInflexion();
+        return tabla == null ? null : tabla.aArreglo();
     }
 
     public Intervalo[] getIntervalosCrecimiento() {
-        return intervalosCrecimiento;
+        TablaIntervalos tabla = getTablaIntervalosCrecimiento();
+        return tabla == null ? null : tabla.aArreglo();
     }
 
     public Intervalo[] getIntervalosDecrecimiento() {
-        return intervalosDecrecimiento;
+        TablaIntervalos tabla = getTablaIntervalosDecrecimiento();
+        return tabla == null ? null : tabla.aArreglo();
     }
 
     public Intervalo[] getIntervalosConcavidad() {
-        return intervalosConcavidad;
+        TablaIntervalos tabla = getTablaIntervalosConcavidad();
+        return tabla == null ? null : tabla.aArreglo();
+    }
+
+    // Representación por columnas, sin crear objetos por elemento
+    public TablaPuntos getTablaPuntosCriticos() {
+        return puntosCriticos != null || secciones == null ? puntosCriticos : secciones.puntosCriticos();
+    }
+
+    public TablaPuntos getTablaPuntosInflexion() {
+        return puntosInflexion != null || secciones == null ? puntosInflexion : secciones.puntosInflexion();
+    }
+
+    public TablaIntervalos getTablaIntervalosCrecimiento() {
+        return intervalosCrecimiento != null || secciones == null ? intervalosCrecimiento
+                : secciones.intervalosCrecimiento();
+    }
+
+    public TablaIntervalos getTablaIntervalosDecrecimiento() {
+        return intervalosDecrecimiento != null || secciones == null ? intervalosDecrecimiento
+                : secciones.intervalosDecrecimiento();
+    }
+
+    public TablaIntervalos getTablaIntervalosConcavidad() {
+        return intervalosConcavidad != null || secciones == null ? intervalosConcavidad
+                : secciones.intervalosConcavidad();
     }
 
     public String getPrimeraDerivada() {
-        return primeraDerivada;
+        return primeraDerivada != null || secciones == null ? primeraDerivada : secciones.primeraDerivada();
     }
 
     public String getSegundaDerivada() {
-        return segundaDerivada;
+        return segundaDerivada != null || secciones == null ? segundaDerivada : secciones.segundaDerivada();
     }
 
     // Setters
     public void setPuntosCriticos(PuntoCritico[] puntosCriticos) {
-        this.puntosCriticos = puntosCriticos;
+        this.puntosCriticos = TablaPuntos.de(puntosCriticos);
     }
 
     public void setPuntosInflexion(PuntoCritico[] puntosInflexion) {
-        this.puntosInflexion = puntosInflexion;
+        this.puntosInflexion = TablaPuntos.de(puntosInflexion);
     }
 
     public void setIntervalosCrecimiento(Intervalo[] intervalosCrecimiento) {
-        this.intervalosCrecimiento = intervalosCrecimiento;
+        this.intervalosCrecimiento = TablaIntervalos.de(intervalosCrecimiento);
     }
 
     public void setIntervalosDecrecimiento(Intervalo[] intervalosDecrecimiento) {
-        this.intervalosDecrecimiento = intervalosDecrecimiento;
+        this.intervalosDecrecimiento = TablaIntervalos.de(intervalosDecrecimiento);
     }
 
     public void setIntervalosConcavidad(Intervalo[] intervalosConcavidad) {
-        this.intervalosConcavidad = intervalosConcavidad;
+        this.intervalosConcavidad = TablaIntervalos.de(intervalosConcavidad);
     }
 
     public void setPrimeraDerivada(String primeraDerivada) {
@@ -132,25 +214,120 @@ public class ResultadoAnalisis {
 
     // Verifica si hay algún resultado calculado.
     public boolean tieneResultados() {
-        return (puntosCriticos != null && puntosCriticos.length > 0) ||
-                (puntosInflexion != null && puntosInflexion.length > 0) ||
-                (intervalosCrecimiento != null && intervalosCrecimiento.length > 0) ||
-                (intervalosDecrecimiento != null && intervalosDecrecimiento.length > 0) ||
-                (intervalosConcavidad != null && intervalosConcavidad.length > 0);
+        return tieneElementos(getTablaPuntosCriticos()) ||
+                tieneElementos(getTablaPuntosInflexion()) ||
+                tieneElementos(getTablaIntervalosCrecimiento()) ||
+                tieneElementos(getTablaIntervalosDecrecimiento()) ||
+                tieneElementos(getTablaIntervalosConcavidad());
+    }
+
+    private static boolean tieneElementos(TablaPuntos tabla) {
+        return tabla != null && !tabla.estaVacia();
+    }
+
+    private static boolean tieneElementos(TablaIntervalos tabla) {
+        return tabla != null && !tabla.estaVacia();
     }
 
-    public java.util.List<String> getMensajesAccesibilidad() {
+    /**
+     * Calcula ahora todas las secciones diferidas, por ejemplo antes de
+     * entregar el resultado a otro hilo.
+     *
+     * @return este mismo resultado
+     */
+    public ResultadoAnalisis completarSecciones() {
+        if (secciones != null) {
+            tieneResultados();
+            getPrimeraDerivada();
+            getSegundaDerivada();
+            getMensajesAccesibilidad();
+        }
+        return this;
+    }
+
+    /**
+     * Memoria aproximada que ocupa el resultado, incluido el contexto de las
+     * secciones diferidas. No calcula las secciones pendientes.
+     */
+    synchronized long bytesAproximados() {
+        long total = 256;
+        total += puntosCriticos == null ? 0 : puntosCriticos.bytesAproximados();
+        total += puntosInflexion == null ? 0 : puntosInflexion.bytesAproximados();
+        total += intervalosCrecimiento == null ? 0 : intervalosCrecimiento.bytesAproximados();
+        total += intervalosDecrecimiento == null ? 0 : intervalosDecrecimiento.bytesAproximados();
+        total += intervalosConcavidad == null ? 0 : intervalosConcavidad.bytesAproximados();
+        total += bytesTexto(primeraDerivada) + bytesTexto(segundaDerivada);
+        if (mensajesAccesibilidad != null) {
+            for (String mensaje : mensajesAccesibilidad) {
+                total += bytesTexto(mensaje);
+            }
+        }
+        if (secciones != null) {
+            total += secciones.bytesAproximados();
+        }
+        return total;
+    }
+
+    static long bytesTexto(String texto) {
+        return texto == null ? 0 : 40 + 2L * texto.length();
+    }
+
+    public synchronized java.util.List<String> getMensajesAccesibilidad() {
+        // Los mensajes diferidos se copian la primera vez para poder agregar otros
+        if (mensajesAccesibilidad == null && secciones != null) {
+            mensajesAccesibilidad = new java.util.ArrayList<>(secciones.mensajesAccesibilidad());
+        }
         return mensajesAccesibilidad;
     }
 
-    public void setMensajesAccesibilidad(java.util.List<String> mensajesAccesibilidad) {
+    public synchronized void setMensajesAccesibilidad(java.util.List<String> mensajesAccesibilidad) {
         this.mensajesAccesibilidad = mensajesAccesibilidad;
     }
 
-    public void agregarMensajeAccesibilidad(String mensaje) {
-        if (this.mensajesAccesibilidad == null) {
+    public synchronized void agregarMensajeAccesibilidad(String mensaje) {
+        if (getMensajesAccesibilidad() == null) {
             this.mensajesAccesibilidad = new java.util.ArrayList<>();
         }
         this.mensajesAccesibilidad.add(mensaje);
     }
+
+    public double getPasoUtilizado() {
+        return pasoUtilizado;
+    }
+
+    public void setPasoUtilizado(double pasoUtilizado) {
+        this.pasoUtilizado = pasoUtilizado;
+    }
+
+    public long getEvaluaciones() {
+        return evaluaciones;
+    }
+
+    public void setEvaluaciones(long evaluaciones) {
+        this.evaluaciones = evaluaciones;
+    }
+
+    public boolean isPresupuestoAgotado() {
+        return presupuestoAgotado;
+    }
+
+    public void setPresupuestoAgotado(boolean presupuestoAgotado) {
+        this.presupuestoAgotado = presupuestoAgotado;
+    }
+
+    public boolean isIncompleto() {
+        return incompleto;
+    }
+
+    public void setIncompleto(boolean incompleto) {
+        this.incompleto = incompleto;
+    }
+
+    public boolean isPreliminar() {
+        return preliminar;
+    }
+
+    public void setPreliminar(boolean preliminar) {
+        this.preliminar = preliminar;
+    }
 }
@@ -0,0 +1,116 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.entidades.Intervalo;
+import com.espoch.inflexpoint.modelos.enumeraciones.TipoIntervalo;
+
+import java.util.Arrays;
+
+/**
+ * Intervalos de un resultado guardados por columnas: arreglos paralelos de
+ * inicio, fin y tipo. Los extremos no acotados se guardan como -∞ / +∞ (en
+ * {@link Intervalo} son null).
+ * Solo el analizador agrega intervalos; para el resto es de solo lectura.
+ */
+public class TablaIntervalos {
+
+    private static final TipoIntervalo[] TIPOS = TipoIntervalo.values();
+
+    private double[] inicio;
+    private double[] fin;
+    private byte[] tipo;
+    private int tamanio;
+
+    public TablaIntervalos() {
+        this(8);
+    }
+
+    public TablaIntervalos(int capacidad) {
+        capacidad = Math.max(capacidad, 1);
+        this.inicio = new double[capacidad];
+        this.fin = new double[capacidad];
+        this.tipo = new byte[capacidad];
+    }
+
+    /**
+     * Copia un arreglo de intervalos a la representación por columnas.
+     */
+    public static TablaIntervalos de(Intervalo[] intervalos) {
+        if (intervalos == null) {
+            return null;
+        }
+        TablaIntervalos tabla = new TablaIntervalos(intervalos.length);
+        for (Intervalo i : intervalos) {
+            tabla.agregar(
+                    i.getInicio() == null ? Double.NEGATIVE_INFINITY : i.getInicio(),
+                    i.getFin() == null ? Double.POSITIVE_INFINITY : i.getFin(),
+                    i.getTipoIntervalo());
+        }
+        return tabla;
+    }
+
+    // Crea el objeto de un intervalo, con null en los extremos infinitos
+    static Intervalo aIntervalo(double inicio, double fin, TipoIntervalo tipo) {
+        return new Intervalo(
+                inicio == Double.NEGATIVE_INFINITY ? null : inicio,
+                fin == Double.POSITIVE_INFINITY ? null : fin,
+                tipo);
+    }
+
+    void agregar(double ainicio, double afin, TipoIntervalo atipo) {
+        if (tamanio == inicio.length) {
+            int capacidad = tamanio * 2;
+            inicio = Arrays.copyOf(inicio, capacidad);
+            fin = Arrays.copyOf(fin, capacidad);
+            tipo = Arrays.copyOf(tipo, capacidad);
+        }
+        inicio[tamanio] = ainicio;
+        fin[tamanio] = afin;
+        tipo[tamanio] = (byte) atipo.ordinal();
+        tamanio++;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean estaVacia() {
+        return tamanio == 0;
+    }
+
+    // -∞ si el intervalo no está acotado por la izquierda
+    public double getInicio(int i) {
+        return inicio[i];
+    }
+
+    // +∞ si el intervalo no está acotado por la derecha
+    public double getFin(int i) {
+        return fin[i];
+    }
+
+    public TipoIntervalo getTipo(int i) {
+        return TIPOS[tipo[i]];
+    }
+
+    // Crea el objeto del intervalo i (vista sobre la tabla)
+    public Intervalo getIntervalo(int i) {
+        return aIntervalo(inicio[i], fin[i], getTipo(i));
+    }
+
+    /**
+     * Crea los objetos de todos los intervalos. Cada llamada genera un arreglo
+     * nuevo; para recorrer resultados grandes conviene usar los accesores por
+     * índice.
+     */
+    public Intervalo[] aArreglo() {
+        Intervalo[] intervalos = new Intervalo[tamanio];
+        for (int i = 0; i < tamanio; i++) {
+            intervalos[i] = getIntervalo(i);
+        }
+        return intervalos;
+    }
+
+    // Memoria aproximada ocupada por los arreglos
+    long bytesAproximados() {
+        return 64L + 17L * inicio.length;
+    }
+}
@@ -0,0 +1,106 @@
+package com.espoch.inflexpoint.modelos.calculos;
+
+import com.espoch.inflexpoint.modelos.entidades.PuntoCritico;
+import com.espoch.inflexpoint.modelos.enumeraciones.TipoPuntoCritico;
+
+import java.util.Arrays;
+
+/**
+ * Puntos de un resultado guardados por columnas: arreglos paralelos de x, y y
+ * tipo. Un resultado con miles de puntos (funciones periódicas en rangos
+ * amplios) ocupa tres arreglos en lugar de miles de objetos.
+ * Solo el analizador agrega puntos; para el resto es de solo lectura.
+ */
+public class TablaPuntos {
+
+    // Código del tipo para puntos sin clasificar (tipo null)
+    private static final byte SIN_TIPO = -1;
+    private static final TipoPuntoCritico[] TIPOS = TipoPuntoCritico.values();
+
+    private double[] x;
+    private double[] y;
+    private byte[] tipo;
+    private int tamanio;
+
+    public TablaPuntos() {
+        this(8);
+    }
+
+    public TablaPuntos(int capacidad) {
+        capacidad = Math.max(capacidad, 1);
+        this.x = new double[capacidad];
+        this.y = new double[capacidad];
+        this.tipo = new byte[capacidad];
+    }
+
+    /**
+     * Copia un arreglo de puntos a la representación por columnas.
+     */
+    public static TablaPuntos de(PuntoCritico[] puntos) {
+        if (puntos == null) {
+            return null;
+        }
+        TablaPuntos tabla = new TablaPuntos(puntos.length);
+        for (PuntoCritico p : puntos) {
+            tabla.agregar(p.getX(), p.getY(), p.getTipoPuntoCritico());
+        }
+        return tabla;
+    }
+
+    void agregar(double px, double py, TipoPuntoCritico ptipo) {
+        if (tamanio == x.length) {
+            int capacidad = tamanio * 2;
+            x = Arrays.copyOf(x, capacidad);
+            y = Arrays.copyOf(y, capacidad);
+            tipo = Arrays.copyOf(tipo, capacidad);
+        }
+        x[tamanio] = px;
+        y[tamanio] = py;
+        tipo[tamanio] = ptipo == null ? SIN_TIPO : (byte) ptipo.ordinal();
+        tamanio++;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean estaVacia() {
+        return tamanio == 0;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    // null si el punto no se clasificó
+    public TipoPuntoCritico getTipo(int i) {
+        return tipo[i] == SIN_TIPO ? null : TIPOS[tipo[i]];
+    }
+
+    // Crea el objeto del punto i (vista sobre la tabla)
+    public PuntoCritico getPunto(int i) {
+        return new PuntoCritico(x[i], y[i], getTipo(i));
+    }
+
+    /**
+     * Crea los objetos de todos los puntos. Cada llamada genera un arreglo
+     * nuevo; para recorrer resultados grandes conviene usar los accesores por
+     * índice.
+     */
+    public PuntoCritico[] aArreglo() {
+        PuntoCritico[] puntos = new PuntoCritico[tamanio];
+        for (int i = 0; i < tamanio; i++) {
+            puntos[i] = getPunto(i);
+        }
+        return puntos;
+    }
+
+    // Memoria aproximada ocupada por los arreglos
+    long bytesAproximados() {
+        return 64L + 17L * x.length;
+    }
+}
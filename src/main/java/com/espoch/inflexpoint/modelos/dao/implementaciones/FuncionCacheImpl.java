@@ -0,0 +1,194 @@
+package com.espoch.inflexpoint.modelos.dao.implementaciones;
+
+import com.espoch.inflexpoint.modelos.calculos.CacheAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.ClaveAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.ControlAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.Evaluador;
+import com.espoch.inflexpoint.modelos.calculos.OpcionesAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.OyenteAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.PresupuestoEvaluacion;
+import com.espoch.inflexpoint.modelos.calculos.ResultadoAnalisis;
+import com.espoch.inflexpoint.modelos.dao.interfaces.IFuncion;
+import com.espoch.inflexpoint.modelos.entidades.Funcion;
+import com.espoch.inflexpoint.modelos.excepciones.CalculoNumericoException;
+import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implementación del DAO que guarda los resultados en una caché LRU.
+ * RESPONSABILIDADES:
+ * 1. Buscar el resultado en la caché antes de analizar
+ * 2. Delegar el análisis a otra implementación cuando no está
+ * 3. Guardar el resultado completo para las siguientes consultas
+ * Los resultados devueltos se comparten entre consultas y no deben
+ * modificarse.
+ */
+public class FuncionCacheImpl implements IFuncion {
+
+    // Paso y dominio que usa FuncionImpl cuando no se indican
+    private static final double PASO_DEFECTO = 0.1;
+    private static final double DESDE_DEFECTO = -10.0;
+    private static final double HASTA_DEFECTO = 10.0;
+
+    private final IFuncion delegado;
+    private final CacheAnalisis cache;
+
+    // Constructor
+    public FuncionCacheImpl() {
+        this(new FuncionImpl(), CacheAnalisis.getInstancia());
+    }
+
+    public FuncionCacheImpl(IFuncion delegado, CacheAnalisis cache) {
+        this.delegado = delegado;
+        this.cache = cache;
+    }
+
+    @Override
+    public ResultadoAnalisis analizar(
+            Funcion funcion,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        // Expresiones inválidas o nulas las valida el delegado
+        if (funcion == null || funcion.getExpresion() == null) {
+            return delegado.analizar(funcion, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                    calcConcavidad);
+        }
+
+        ClaveAnalisis clave = ClaveAnalisis.dePaso(funcion.getExpresion(), desde(funcion), hasta(funcion),
+                PASO_DEFECTO, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+        ResultadoAnalisis resultado = cache.obtener(clave);
+        if (resultado == null) {
+            resultado = delegado.analizar(funcion, calcPuntosCriticos, calcIntervalos, calcMaxMin,
+                    calcInflexion, calcConcavidad);
+            cache.guardar(clave, resultado);
+        }
+        return resultado;
+    }
+
+    @Override
+    public ResultadoAnalisis analizarConPresupuesto(
+            Funcion funcion,
+            PresupuestoEvaluacion presupuesto,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        if (funcion == null || funcion.getExpresion() == null || presupuesto == null) {
+            return delegado.analizarConPresupuesto(funcion, presupuesto, calcPuntosCriticos, calcIntervalos,
+                    calcMaxMin, calcInflexion, calcConcavidad);
+        }
+
+        ClaveAnalisis clave = ClaveAnalisis.dePresupuesto(funcion.getExpresion(), desde(funcion),
+                hasta(funcion), presupuesto, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad);
+        ResultadoAnalisis resultado = cache.obtener(clave);
+        if (resultado == null) {
+            resultado = delegado.analizarConPresupuesto(funcion, presupuesto, calcPuntosCriticos,
+                    calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad);
+            cache.guardar(clave, resultado);
+        }
+        return resultado;
+    }
+
+    // Si ya está en la caché el oyente recibe directamente la versión final;
+    // si no, se guarda la refinada (la caché descarta las preliminares)
+    @Override
+    public ResultadoAnalisis analizarProgresivo(
+            Funcion funcion,
+            Evaluador compilado,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad,
+            OyenteAnalisis oyente)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        if (funcion == null || funcion.getExpresion() == null || presupuesto == null || oyente == null) {
+            return delegado.analizarProgresivo(funcion, compilado, presupuesto, control, calcPuntosCriticos,
+                    calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad, oyente);
+        }
+
+        ClaveAnalisis clave = ClaveAnalisis.dePresupuesto(funcion.getExpresion(), desde(funcion),
+                hasta(funcion), presupuesto, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion,
+                calcConcavidad);
+        ResultadoAnalisis guardado = cache.obtener(clave);
+        if (guardado != null) {
+            oyente.resultadoActualizado(guardado);
+            return guardado;
+        }
+        return delegado.analizarProgresivo(funcion, compilado, presupuesto, control, calcPuntosCriticos,
+                calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad, resultado -> {
+                    cache.guardar(clave, resultado);
+                    oyente.resultadoActualizado(resultado);
+                });
+    }
+
+    @Override
+    public ResultadoAnalisis analizar(Funcion funcion, OpcionesAnalisis opciones)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        if (funcion == null || funcion.getExpresion() == null || opciones == null) {
+            return delegado.analizar(funcion, opciones);
+        }
+
+        ClaveAnalisis clave = ClaveAnalisis.deOpciones(funcion.getExpresion(), desde(funcion), hasta(funcion),
+                opciones);
+        ResultadoAnalisis resultado = cache.obtener(clave);
+        if (resultado == null) {
+            resultado = delegado.analizar(funcion, opciones);
+            cache.guardar(clave, resultado);
+        }
+        return resultado;
+    }
+
+    @Override
+    public CompletableFuture<ResultadoAnalisis> analizarAsync(Funcion funcion, OpcionesAnalisis opciones) {
+        if (funcion == null || funcion.getExpresion() == null || opciones == null) {
+            return delegado.analizarAsync(funcion, opciones);
+        }
+
+        ClaveAnalisis clave = ClaveAnalisis.deOpciones(funcion.getExpresion(), desde(funcion), hasta(funcion),
+                opciones);
+        ResultadoAnalisis guardado = cache.obtener(clave);
+        if (guardado != null) {
+            return CompletableFuture.completedFuture(guardado);
+        }
+
+        CompletableFuture<ResultadoAnalisis> analisis = delegado.analizarAsync(funcion, opciones);
+        CompletableFuture<ResultadoAnalisis> resultado = analisis.thenApply(r -> {
+            cache.guardar(clave, r);
+            return r;
+        });
+        // Cancelar el futuro devuelto cancela (e interrumpe) el análisis
+        resultado.whenComplete((r, error) -> {
+            if (resultado.isCancelled()) {
+                analisis.cancel(true);
+            }
+        });
+        return resultado;
+    }
+
+    public CacheAnalisis getCache() {
+        return cache;
+    }
+
+    private static double desde(Funcion funcion) {
+        return funcion.getDominioFuncion() != null ? funcion.getDominioFuncion().getDesde() : DESDE_DEFECTO;
+    }
+
+    private static double hasta(Funcion funcion) {
+        return funcion.getDominioFuncion() != null ? funcion.getDominioFuncion().getHasta() : HASTA_DEFECTO;
+    }
+}
@@ -1,12 +1,21 @@
 package com.espoch.inflexpoint.modelos.dao.implementaciones;
 
 import com.espoch.inflexpoint.modelos.calculos.AnalizadorFuncion;
+import com.espoch.inflexpoint.modelos.calculos.ControlAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.EjecucionAsincrona;
+import com.espoch.inflexpoint.modelos.calculos.Evaluador;
+import com.espoch.inflexpoint.modelos.calculos.OpcionesAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.OyenteAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.PresupuestoEvaluacion;
 import com.espoch.inflexpoint.modelos.calculos.ResultadoAnalisis;
 import com.espoch.inflexpoint.modelos.dao.interfaces.IFuncion;
 import com.espoch.inflexpoint.modelos.entidades.Funcion;
 import com.espoch.inflexpoint.modelos.excepciones.CalculoNumericoException;
 import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Implementación del DAO para funciones matemáticas.
  * RESPONSABILIDADES:
@@ -18,10 +27,24 @@ import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
 public class FuncionImpl implements IFuncion {
 
     private final AnalizadorFuncion analizador;
+    // Donde corren los análisis asíncronos
+    private final Executor ejecutor;
 
     // Constructor
     public FuncionImpl() {
+        this(EjecucionAsincrona.ejecutorPorDefecto());
+    }
+
+    /**
+     * @param ejecutor Ejecutor de {@link #analizarAsync}; por defecto, un hilo
+     *                 virtual por análisis
+     */
+    public FuncionImpl(Executor ejecutor) {
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
         this.analizador = new AnalizadorFuncion();
+        this.ejecutor = ejecutor;
     }
 
 
@@ -59,35 +82,233 @@ public class FuncionImpl implements IFuncion {
             throw new ExpresionInvalidaException("La función debe tener una expresión válida");
         }
 
-        // Validar dominio si existe
+        // Dominio especificado o [-10, 10] por defecto
+        double inicio = -10.0;
+        double fin = 10.0;
         if (funcion.getDominioFuncion() != null) {
-            double inicio = funcion.getDominioFuncion().getDesde();
-            double fin = funcion.getDominioFuncion().getHasta();
+            inicio = funcion.getDominioFuncion().getDesde();
+            fin = funcion.getDominioFuncion().getHasta();
 
             if (inicio >= fin) {
                 throw new IllegalArgumentException("El dominio es inválido: inicio debe ser menor que fin");
             }
+        }
+
+        // Incremental: si antes se analizó la misma expresión en otro rango,
+        // solo se recorren los tramos nuevos
+        return analizador.analizarIncremental(
+                funcion.getExpresion(),
+                inicio,
+                fin,
+                0.1, // step por defecto
+                new ControlAnalisis(),
+                calcPuntosCriticos,
+                calcIntervalos,
+                calcMaxMin,
+                calcInflexion,
+                calcConcavidad);
+    }
+
+    /**
+     * Analiza una función con selección automática de paso.
+     *
+     * @param funcion     La función a analizar
+     * @param presupuesto Máximo de evaluaciones y/o latencia objetivo
+     * @return ResultadoAnalisis con los cálculos y el consumo del presupuesto
+     * @throws ExpresionInvalidaException si la expresión de la función es inválida
+     * @throws CalculoNumericoException   si hay errores en los cálculos
+     */
+    @Override
+    public ResultadoAnalisis analizarConPresupuesto(
+            Funcion funcion,
+            PresupuestoEvaluacion presupuesto,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        // Validar que la función no sea nula
+        if (funcion == null) {
+            throw new IllegalArgumentException("La función no puede ser nula");
+        }
+        if (presupuesto == null) {
+            throw new IllegalArgumentException("El presupuesto no puede ser nulo");
+        }
 
-            // Analizar en el dominio especificado
-            return analizador.analizarEnRango(
+        // Validar que tenga expresión
+        if (funcion.getExpresion() == null || funcion.getExpresion().trim().isEmpty()) {
+            throw new ExpresionInvalidaException("La función debe tener una expresión válida");
+        }
+
+        // Dominio especificado o [-10, 10] por defecto
+        double inicio = -10.0;
+        double fin = 10.0;
+        if (funcion.getDominioFuncion() != null) {
+            inicio = funcion.getDominioFuncion().getDesde();
+            fin = funcion.getDominioFuncion().getHasta();
+
+            if (inicio >= fin) {
+                throw new IllegalArgumentException("El dominio es inválido: inicio debe ser menor que fin");
+            }
+        }
+
+        return analizador.analizarConPresupuesto(
+                funcion.getExpresion(),
+                inicio,
+                fin,
+                presupuesto,
+                calcPuntosCriticos,
+                calcIntervalos,
+                calcMaxMin,
+                calcInflexion,
+                calcConcavidad);
+    }
+
+    /**
+     * Analiza una función en modo progresivo: primero un resultado
+     * preliminar y luego el refinado con el presupuesto.
+     *
+     * @param funcion     La función a analizar
+     * @param compilado   La expresión ya compilada, o null para leerla de
+     *                    la función
+     * @param presupuesto Presupuesto del análisis refinado
+     * @param control     Token de cancelación y plazo del análisis
+     * @param oyente      Receptor de cada versión del resultado
+     * @return El resultado refinado
+     * @throws ExpresionInvalidaException si la expresión de la función es inválida
+     * @throws CalculoNumericoException   si hay errores en los cálculos
+     */
+    @Override
+    public ResultadoAnalisis analizarProgresivo(
+            Funcion funcion,
+            Evaluador compilado,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad,
+            OyenteAnalisis oyente)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        // Validar que la función no sea nula
+        if (funcion == null) {
+            throw new IllegalArgumentException("La función no puede ser nula");
+        }
+        if (presupuesto == null || control == null || oyente == null) {
+            throw new IllegalArgumentException("El presupuesto, el control y el oyente no pueden ser nulos");
+        }
+
+        // Validar que tenga expresión
+        if (funcion.getExpresion() == null || funcion.getExpresion().trim().isEmpty()) {
+            throw new ExpresionInvalidaException("La función debe tener una expresión válida");
+        }
+
+        // Dominio especificado o [-10, 10] por defecto
+        double inicio = -10.0;
+        double fin = 10.0;
+        if (funcion.getDominioFuncion() != null) {
+            inicio = funcion.getDominioFuncion().getDesde();
+            fin = funcion.getDominioFuncion().getHasta();
+
+            if (inicio >= fin) {
+                throw new IllegalArgumentException("El dominio es inválido: inicio debe ser menor que fin");
+            }
+        }
+
+        if (compilado != null) {
+            return analizador.analizarProgresivo(funcion.getExpresion(), compilado, inicio, fin, presupuesto,
+                    control, calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad, oyente);
+        }
+        return analizador.analizarProgresivo(funcion.getExpresion(), inicio, fin, presupuesto, control,
+                calcPuntosCriticos, calcIntervalos, calcMaxMin, calcInflexion, calcConcavidad, oyente);
+    }
+
+    /**
+     * Analiza una función con las opciones indicadas.
+     *
+     * @param funcion  La función a analizar
+     * @param opciones Secciones, resolución, tolerancia, estrategia y plazo
+     * @return ResultadoAnalisis con los cálculos
+     * @throws ExpresionInvalidaException si la expresión de la función es inválida
+     * @throws CalculoNumericoException   si hay errores en los cálculos
+     */
+    @Override
+    public ResultadoAnalisis analizar(Funcion funcion, OpcionesAnalisis opciones)
+            throws ExpresionInvalidaException, CalculoNumericoException {
+
+        // Validar que la función no sea nula
+        if (funcion == null) {
+            throw new IllegalArgumentException("La función no puede ser nula");
+        }
+        if (opciones == null) {
+            throw new IllegalArgumentException("Las opciones no pueden ser nulas");
+        }
+
+        // Validar que tenga expresión
+        if (funcion.getExpresion() == null || funcion.getExpresion().trim().isEmpty()) {
+            throw new ExpresionInvalidaException("La función debe tener una expresión válida");
+        }
+
+        // Dominio especificado o [-10, 10] por defecto
+        double inicio = -10.0;
+        double fin = 10.0;
+        if (funcion.getDominioFuncion() != null) {
+            inicio = funcion.getDominioFuncion().getDesde();
+            fin = funcion.getDominioFuncion().getHasta();
+
+            if (inicio >= fin) {
+                throw new IllegalArgumentException("El dominio es inválido: inicio debe ser menor que fin");
+            }
+        }
+
+        // Con otra tolerancia o estrategia se usa un analizador propio
+        boolean toleranciaDefecto = opciones.getToleranciaRaices() == analizador.getToleranciaBiseccion()
+                && opciones.getEstrategia() == analizador.getEstrategia();
+        AnalizadorFuncion analizadorOpciones = toleranciaDefecto
+                ? analizador
+                : new AnalizadorFuncion(opciones.getToleranciaRaices(), opciones.getEstrategia());
+
+        if (opciones.usaPresupuesto()) {
+            return analizadorOpciones.analizarConPresupuesto(
                     funcion.getExpresion(),
                     inicio,
                     fin,
-                    0.1, // step por defecto
-                    calcPuntosCriticos,
-                    calcIntervalos,
-                    calcMaxMin,
-                    calcInflexion,
-                    calcConcavidad);
+                    opciones.crearPresupuesto(),
+                    opciones.crearControl(),
+                    opciones.isCalcPuntosCriticos(),
+                    opciones.isCalcIntervalos(),
+                    opciones.isCalcMaxMin(),
+                    opciones.isCalcInflexion(),
+                    opciones.isCalcConcavidad());
         } else {
-            // Analizar con dominio por defecto [-10, 10]
-            return analizador.analizar(
+            return analizadorOpciones.analizarIncremental(
                     funcion.getExpresion(),
-                    calcPuntosCriticos,
-                    calcIntervalos,
-                    calcMaxMin,
-                    calcInflexion,
-                    calcConcavidad);
+                    inicio,
+                    fin,
+                    opciones.getPaso(),
+                    opciones.crearControl(),
+                    opciones.isCalcPuntosCriticos(),
+                    opciones.isCalcIntervalos(),
+                    opciones.isCalcMaxMin(),
+                    opciones.isCalcInflexion(),
+                    opciones.isCalcConcavidad());
         }
     }
+
+    /**
+     * Analiza una función con las opciones indicadas en el ejecutor de esta
+     * implementación.
+     *
+     * @param funcion  La función a analizar
+     * @param opciones Secciones, resolución, tolerancia, estrategia y plazo
+     * @return Futuro del resultado; cancelarlo interrumpe el análisis
+     */
+    @Override
+    public CompletableFuture<ResultadoAnalisis> analizarAsync(Funcion funcion, OpcionesAnalisis opciones) {
+        return EjecucionAsincrona.ejecutar(() -> analizar(funcion, opciones), ejecutor);
+    }
 }
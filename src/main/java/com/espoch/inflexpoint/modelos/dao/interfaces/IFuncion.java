@@ -1,10 +1,17 @@
 package com.espoch.inflexpoint.modelos.dao.interfaces;
 
+import com.espoch.inflexpoint.modelos.calculos.ControlAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.Evaluador;
+import com.espoch.inflexpoint.modelos.calculos.OpcionesAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.OyenteAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.PresupuestoEvaluacion;
 import com.espoch.inflexpoint.modelos.calculos.ResultadoAnalisis;
 import com.espoch.inflexpoint.modelos.entidades.Funcion;
 import com.espoch.inflexpoint.modelos.excepciones.CalculoNumericoException;
 import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
 
+import java.util.concurrent.CompletableFuture;
+
     // Interfaz DAO para operaciones con funciones matemáticas.
     // Define el contrato para el análisis de funciones.
 public interface IFuncion {
@@ -31,4 +38,84 @@ public interface IFuncion {
             boolean calcInflexion,
             boolean calcConcavidad)
             throws ExpresionInvalidaException, CalculoNumericoException;
+
+    /**
+     * Analiza una función eligiendo la resolución automáticamente a partir de un
+     * presupuesto de evaluaciones y/o una latencia objetivo, en lugar de un paso
+     * fijo.
+     *
+     * @param funcion     La función a analizar
+     * @param presupuesto Máximo de evaluaciones y/o latencia objetivo
+     * @return ResultadoAnalisis con el paso utilizado y si se agotó el
+     *         presupuesto
+     * @throws ExpresionInvalidaException si la expresión de la función es inválida
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     *                                    numéricos
+     */
+    ResultadoAnalisis analizarConPresupuesto(
+            Funcion funcion,
+            PresupuestoEvaluacion presupuesto,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad)
+            throws ExpresionInvalidaException, CalculoNumericoException;
+
+    /**
+     * Análisis progresivo con presupuesto: el oyente recibe primero un
+     * resultado preliminar de baja resolución y luego el refinado.
+     *
+     * @param funcion     La función a analizar
+     * @param compilado   La expresión ya compilada, o null para leerla de
+     *                    la función
+     * @param presupuesto Presupuesto del análisis refinado
+     * @param control     Token de cancelación y plazo del análisis
+     * @param oyente      Receptor de cada versión del resultado, en el hilo
+     *                    del análisis
+     * @return El resultado refinado (el mismo que recibe el oyente al final)
+     * @throws ExpresionInvalidaException si la expresión de la función es inválida
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     *                                    numéricos
+     */
+    ResultadoAnalisis analizarProgresivo(
+            Funcion funcion,
+            Evaluador compilado,
+            PresupuestoEvaluacion presupuesto,
+            ControlAnalisis control,
+            boolean calcPuntosCriticos,
+            boolean calcIntervalos,
+            boolean calcMaxMin,
+            boolean calcInflexion,
+            boolean calcConcavidad,
+            OyenteAnalisis oyente)
+            throws ExpresionInvalidaException, CalculoNumericoException;
+
+    /**
+     * Analiza una función con las opciones indicadas: secciones, paso o
+     * presupuesto, tolerancia, estrategia y plazo. Los ajustes predefinidos
+     * {@link OpcionesAnalisis#rapido()}, {@link OpcionesAnalisis#equilibrado()}
+     * y {@link OpcionesAnalisis#preciso()} cubren los casos habituales.
+     *
+     * @param funcion  La función a analizar
+     * @param opciones Opciones del análisis
+     * @return ResultadoAnalisis, marcado como incompleto si venció el plazo
+     * @throws ExpresionInvalidaException si la expresión de la función es inválida
+     * @throws CalculoNumericoException   si ocurre un error durante los cálculos
+     *                                    numéricos
+     */
+    ResultadoAnalisis analizar(Funcion funcion, OpcionesAnalisis opciones)
+            throws ExpresionInvalidaException, CalculoNumericoException;
+
+    /**
+     * Igual que {@link #analizar(Funcion, OpcionesAnalisis)} pero sin bloquear
+     * al llamador: el análisis corre en el ejecutor de la implementación.
+     *
+     * @param funcion  La función a analizar
+     * @param opciones Opciones del análisis
+     * @return Futuro del resultado. Termina con ExpresionInvalidaException o
+     *         CalculoNumericoException si el análisis falla; cancelarlo
+     *         interrumpe el análisis en curso
+     */
+    CompletableFuture<ResultadoAnalisis> analizarAsync(Funcion funcion, OpcionesAnalisis opciones);
 }
@@ -0,0 +1,11 @@
+package com.espoch.inflexpoint.modelos.enumeraciones;
+
+// Método para buscar las raíces de f' y f''
+public enum EstrategiaRaices {
+    // El analizador elige según la clase de la función
+    AUTOMATICA,
+    // Malla de paso fijo y bisección en cada cambio de signo
+    MALLA_BISECCION,
+    // Raíces exactas de f' y f'' en polinomios (en otras funciones, malla)
+    POLINOMICA
+}
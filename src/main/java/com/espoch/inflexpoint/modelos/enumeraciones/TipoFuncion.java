@@ -1,11 +1,18 @@
 package com.espoch.inflexpoint.modelos.enumeraciones;
 
 public enum TipoFuncion {
+    CONSTANTE,
     LINEAL,
     CUADRATICA,
     POLINOMICA,
     EXPONENCIAL,
     LOGARITMICA,
     TRIGONOMETRICA,
-    RACIONAL
+    RACIONAL,
+    // Con raíces o potencias fraccionarias de x
+    ALGEBRAICA,
+    // Con valor absoluto (definida por tramos)
+    VALOR_ABSOLUTO,
+    // Combina varias de las anteriores o no se pudo clasificar
+    COMPUESTA
 }
@@ -0,0 +1,14 @@
+package com.espoch.inflexpoint.modelos.excepciones;
+
+/**
+ * Excepción lanzada cuando el análisis se cancela antes de terminar, ya sea
+ * mediante {@code ControlAnalisis.cancelar()} o interrumpiendo el hilo que lo
+ * ejecuta. No indica un error en la función: el llamador simplemente descarta
+ * el resultado.
+ */
+public class AnalisisCanceladoException extends CalculoNumericoException {
+
+    public AnalisisCanceladoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -10,13 +10,27 @@ package com.espoch.inflexpoint.modelos.excepciones;
  */
 public class ExpresionInvalidaException extends Exception {
 
+    // Posición del error en el texto ingresado, o -1 si no se conoce
+    private final int posicion;
+
     /**
      * Crea una nueva excepción con el mensaje especificado.
      * 
      * @param mensaje Descripción del error en la expresión
      */
     public ExpresionInvalidaException(String mensaje) {
+        this(mensaje, -1);
+    }
+
+    /**
+     * Crea una nueva excepción para un error de sintaxis ubicado.
+     * 
+     * @param mensaje  Descripción del error en la expresión
+     * @param posicion Posición (desde 0) del error en el texto ingresado
+     */
+    public ExpresionInvalidaException(String mensaje, int posicion) {
         super(mensaje);
+        this.posicion = posicion;
     }
 
     /**
@@ -27,5 +41,10 @@ public class ExpresionInvalidaException extends Exception {
      */
     public ExpresionInvalidaException(String mensaje, Throwable causa) {
         super(mensaje, causa);
+        this.posicion = causa instanceof ExpresionInvalidaException e ? e.posicion : -1;
+    }
+
+    public int getPosicion() {
+        return posicion;
     }
 }
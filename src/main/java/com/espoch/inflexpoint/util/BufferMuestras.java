@@ -0,0 +1,98 @@
+package com.espoch.inflexpoint.util;
+
+import java.util.Arrays;
+
+/**
+ * Muestras de las curvas graficadas guardadas en arreglos paralelos de x e y
+ * (en coordenadas del mundo, no de pantalla), junto con la vista para la que
+ * se tomaron. Cada muestra tiene una x y un valor por curva (ver
+ * ConjuntoCurvas), uno tras otro en el arreglo de y. Un valor NaN corta esa
+ * curva (fuera del dominio o en una discontinuidad). Las escribe
+ * MuestreadorFuncion en su hilo y, una vez publicadas, solo se leen desde el
+ * hilo de la interfaz; después se reciclan para otra pasada.
+ */
+final class BufferMuestras {
+
+    private double[] x;
+    private double[] y;
+    private int tamanio;
+    // Valores de y por muestra
+    private int curvas = 1;
+
+    // Función (ver GraficadorCanvas) y rango que se muestrearon
+    private long generacion;
+    private double minX;
+    private double maxX;
+
+    BufferMuestras(int capacidad) {
+        this.x = new double[Math.max(capacidad, 2)];
+        this.y = new double[Math.max(capacidad, 2)];
+    }
+
+    int getCapacidad() {
+        return x.length;
+    }
+
+    // Prepara el buffer para una nueva pasada
+    void reiniciar(long generacion, double minX, double maxX, int curvas) {
+        this.generacion = generacion;
+        this.curvas = Math.max(curvas, 1);
+        if (y.length < x.length * this.curvas) {
+            y = new double[x.length * this.curvas];
+        }
+        this.minX = minX;
+        this.maxX = maxX;
+        this.tamanio = 0;
+    }
+
+    /**
+     * @param valores Un valor de y por curva, desde la posición 'desde'
+     */
+    void agregar(double x, double[] valores, int desde) {
+        if (tamanio == this.x.length) {
+            this.x = Arrays.copyOf(this.x, tamanio * 2);
+            this.y = Arrays.copyOf(this.y, tamanio * 2 * curvas);
+        }
+        this.x[tamanio] = x;
+        System.arraycopy(valores, desde, this.y, tamanio * curvas, curvas);
+        tamanio++;
+    }
+
+    int getTamanio() {
+        return tamanio;
+    }
+
+    // Arreglos de x y de y (los y de la muestra i empiezan en i * getCurvas()),
+    // válidos hasta el próximo agregar
+    double[] getArregloX() {
+        return x;
+    }
+
+    double[] getArregloY() {
+        return y;
+    }
+
+    double getX(int i) {
+        return x[i];
+    }
+
+    double getY(int i, int curva) {
+        return y[i * curvas + curva];
+    }
+
+    int getCurvas() {
+        return curvas;
+    }
+
+    long getGeneracion() {
+        return generacion;
+    }
+
+    double getMinX() {
+        return minX;
+    }
+
+    double getMaxX() {
+        return maxX;
+    }
+}
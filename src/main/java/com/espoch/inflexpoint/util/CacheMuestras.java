@@ -0,0 +1,121 @@
+package com.espoch.inflexpoint.util;
+
+import java.util.Arrays;
+
+/**
+ * Muestras ya evaluadas de las curvas graficadas (un valor por curva, ver
+ * ConjuntoCurvas), sobre una malla fija del
+ * mundo: x = k * paso, con paso = 2^nivel. Como la malla no depende de la
+ * vista, al arrastrar la gráfica la mayoría de las x de la nueva vista ya
+ * están evaluadas y solo se calcula la franja que entra en pantalla. Con
+ * pasos potencia de dos, al cambiar de nivel por el zoom las muestras del
+ * nivel anterior que caen en la nueva malla se conservan.
+ * Es un buffer circular indexado por k (la posición de k es k módulo la
+ * capacidad): las muestras que salen de la vista se sobrescriben con las que
+ * entran, sin mover el resto. Solo la usa el hilo de muestreo.
+ */
+final class CacheMuestras {
+
+    private static final long VACIA = Long.MIN_VALUE;
+
+    private long generacion = -1;
+    private int nivel;
+    private double paso;
+    private int curvas;
+    // Índice k guardado en cada posición (VACIA si no hay) y sus valores
+    // (los de la posición p empiezan en p * curvas)
+    private long[] claves = new long[0];
+    private double[] valores = new double[0];
+
+    /**
+     * Prepara la caché para muestrear las curvas en un nivel de la malla.
+     *
+     * @param generacion Identifica las curvas; si cambia se descarta todo
+     * @param nivel      Exponente del paso de la malla
+     * @param puntos     Muestras que tendrá la vista; la capacidad queda en
+     *                   al menos el doble, para conservar lo que sale de
+     *                   pantalla por si se vuelve atrás
+     * @param curvas     Valores por muestra
+     */
+    void preparar(long generacion, int nivel, int puntos, int curvas) {
+        int capacidad = Math.max(Integer.highestOneBit(Math.max(puntos, 1)) << 2, 64);
+        if (generacion != this.generacion) {
+            this.generacion = generacion;
+            this.nivel = nivel;
+            this.paso = Math.scalb(1.0, nivel);
+            this.curvas = curvas;
+            // Los arreglos se reutilizan si alcanzan (ej. al generar muchas
+            // gráficas del mismo tamaño, ver RenderizadorGrafica)
+            if (claves.length != capacidad) {
+                claves = new long[capacidad];
+            }
+            if (valores.length < capacidad * curvas) {
+                valores = new double[capacidad * curvas];
+            }
+            Arrays.fill(claves, VACIA);
+            return;
+        }
+        if (nivel != this.nivel || capacidad > claves.length) {
+            reorganizar(nivel, Math.max(capacidad, claves.length));
+        }
+    }
+
+    double getPaso() {
+        return paso;
+    }
+
+    /**
+     * Posición de la muestra x = k * paso; la evalúa si no está guardada.
+     * Sus valores se leen con valor(posicion, curva) y no cambian mientras
+     * se pidan muestras a menos de la capacidad de distancia de k.
+     */
+    int posicion(long k, ConjuntoCurvas conjunto) {
+        int posicion = (int) (k & (claves.length - 1));
+        if (claves[posicion] != k) {
+            conjunto.evaluar(k * paso, valores, posicion * curvas);
+            claves[posicion] = k;
+        }
+        return posicion;
+    }
+
+    double valor(int posicion, int curva) {
+        return valores[posicion * curvas + curva];
+    }
+
+    // Valores de todas las curvas en la posición, para copiarlos
+    double[] getValores() {
+        return valores;
+    }
+
+    int getCurvas() {
+        return curvas;
+    }
+
+    // Pasa las muestras a otro nivel o capacidad; se conservan las que caen
+    // en la nueva malla (con pasos potencia de dos, la división es exacta)
+    private void reorganizar(int nivelNuevo, int capacidad) {
+        double pasoNuevo = Math.scalb(1.0, nivelNuevo);
+        long[] clavesNuevas = new long[capacidad];
+        double[] valoresNuevos = new double[capacidad * curvas];
+        Arrays.fill(clavesNuevas, VACIA);
+
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] == VACIA) {
+                continue;
+            }
+            double indice = claves[i] * paso / pasoNuevo;
+            if (indice != Math.rint(indice)) {
+                continue; // No está en la nueva malla
+            }
+            long k = (long) indice;
+            int posicion = (int) (k & (capacidad - 1));
+            clavesNuevas[posicion] = k;
+            System.arraycopy(valores, i * curvas, valoresNuevos, posicion * curvas, curvas);
+        }
+
+        nivel = nivelNuevo;
+        paso = pasoNuevo;
+        claves = clavesNuevas;
+        valores = valoresNuevos;
+    }
+}
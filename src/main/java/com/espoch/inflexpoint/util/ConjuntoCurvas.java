@@ -0,0 +1,92 @@
+package com.espoch.inflexpoint.util;
+
+import com.espoch.inflexpoint.modelos.calculos.Evaluador;
+
+/**
+ * Curvas que GraficadorCanvas dibuja juntas: cualquier combinación de f(x),
+ * f'(x) y f''(x), más otras funciones del usuario. Todas se muestrean en la
+ * misma pasada y sobre las mismas x, así que cada muestra guarda un valor por
+ * curva (su "columna", en el orden f, f', f'', adicionales, contando solo las
+ * que se muestran). Las derivadas no se grafican con otra expresión: salen de
+ * la misma evaluación de f (ver Evaluador.evaluarConDerivadas).
+ * Los evaluadores son copias propias, de modo que el conjunto lo puede usar
+ * el hilo de muestreo mientras la interfaz arma otro.
+ */
+final class ConjuntoCurvas {
+
+    // Evaluador de f (null si no hay función principal)
+    private final Evaluador funcion;
+    private final boolean conFuncion;
+    private final boolean conPrimera;
+    private final boolean conSegunda;
+    private final Evaluador[] adicionales;
+    private final int cantidad;
+
+    // f, f' y f'' de la última evaluación
+    private final double[] derivadas = new double[3];
+
+    /**
+     * @param funcion     Evaluador de f, o null
+     * @param conFuncion  Graficar f(x)
+     * @param conPrimera  Graficar f'(x)
+     * @param conSegunda  Graficar f''(x)
+     * @param adicionales Evaluadores de las otras funciones (se copian)
+     */
+    ConjuntoCurvas(Evaluador funcion, boolean conFuncion, boolean conPrimera, boolean conSegunda,
+            Evaluador[] adicionales) {
+        this.funcion = funcion != null ? funcion.copiar() : null;
+        this.conFuncion = funcion != null && conFuncion;
+        this.conPrimera = funcion != null && conPrimera;
+        this.conSegunda = funcion != null && conSegunda;
+        this.adicionales = new Evaluador[adicionales.length];
+        for (int i = 0; i < adicionales.length; i++) {
+            this.adicionales[i] = adicionales[i].copiar();
+        }
+        this.cantidad = (this.conFuncion ? 1 : 0) + (this.conPrimera ? 1 : 0) + (this.conSegunda ? 1 : 0)
+                + adicionales.length;
+    }
+
+    // Cantidad de curvas (valores por muestra)
+    int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Evalúa todas las curvas en x. Un valor no definido queda como NaN (se
+     * dibuja como un corte de esa curva).
+     *
+     * @param valores Recibe un valor por curva, desde la posición 'desde'
+     */
+    void evaluar(double x, double[] valores, int desde) {
+        int i = desde;
+        if (conPrimera || conSegunda) {
+            try {
+                funcion.evaluarConDerivadas(x, derivadas);
+            } catch (Exception e) {
+                derivadas[0] = derivadas[1] = derivadas[2] = Double.NaN;
+            }
+            if (conFuncion) {
+                valores[i++] = derivadas[0];
+            }
+            if (conPrimera) {
+                valores[i++] = derivadas[1];
+            }
+            if (conSegunda) {
+                valores[i++] = derivadas[2];
+            }
+        } else if (conFuncion) {
+            valores[i++] = evaluar(funcion, x);
+        }
+        for (Evaluador adicional : adicionales) {
+            valores[i++] = evaluar(adicional, x);
+        }
+    }
+
+    private static double evaluar(Evaluador evaluador, double x) {
+        try {
+            return evaluador.evaluar(x);
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.espoch.inflexpoint.util;
+
+/**
+ * Reduce una curva muy muestreada a lo que se ve en pantalla (método M4):
+ * de las muestras que caen en cada columna de píxeles solo pasan la primera,
+ * la mínima, la máxima y la última, en su orden. La línea que las une cubre
+ * los mismos píxeles que la curva completa (en una zona densa, la columna se
+ * ve como el tramo vertical entre el mínimo y el máximo), y dibujarla cuesta
+ * como mucho cuatro vértices por columna, sin importar cuántas muestras haya.
+ * Recibe los puntos ya en coordenadas de pantalla y en orden de x.
+ */
+final class DecimadorColumnas {
+
+    // Recibe los vértices que quedan
+    interface Destino {
+        /**
+         * @param nuevoTramo true si el vértice empieza un tramo (no se une
+         *                   con el anterior)
+         */
+        void vertice(double x, double y, boolean nuevoTramo);
+    }
+
+    private final Destino destino;
+
+    // Columna en curso
+    private boolean abierta;
+    private long columna;
+    private int cantidad;
+    private double xPrimero;
+    private double yPrimero;
+    private double xMinimo;
+    private double yMinimo;
+    private int indiceMinimo;
+    private double xMaximo;
+    private double yMaximo;
+    private int indiceMaximo;
+    private double xUltimo;
+    private double yUltimo;
+
+    private boolean nuevoTramo = true;
+
+    DecimadorColumnas(Destino destino) {
+        this.destino = destino;
+    }
+
+    void agregar(double x, double y) {
+        long c = (long) Math.floor(x);
+        if (abierta && c != columna) {
+            emitir();
+        }
+        if (!abierta) {
+            abierta = true;
+            columna = c;
+            cantidad = 0;
+            xPrimero = x;
+            yPrimero = y;
+            xMinimo = x;
+            yMinimo = y;
+            indiceMinimo = 0;
+            xMaximo = x;
+            yMaximo = y;
+            indiceMaximo = 0;
+        } else if (y < yMinimo) {
+            xMinimo = x;
+            yMinimo = y;
+            indiceMinimo = cantidad;
+        } else if (y > yMaximo) {
+            xMaximo = x;
+            yMaximo = y;
+            indiceMaximo = cantidad;
+        }
+        xUltimo = x;
+        yUltimo = y;
+        cantidad++;
+    }
+
+    // Corta la curva: el siguiente punto empieza un tramo nuevo
+    void cortar() {
+        if (abierta) {
+            emitir();
+        }
+        nuevoTramo = true;
+    }
+
+    // Entrega la última columna
+    void terminar() {
+        cortar();
+    }
+
+    private void emitir() {
+        int ultimo = cantidad - 1;
+        vertice(xPrimero, yPrimero);
+        // Mínimo y máximo en el orden en que aparecieron, sin repetir extremos
+        boolean minimoPrimero = indiceMinimo < indiceMaximo;
+        int primerIndice = minimoPrimero ? indiceMinimo : indiceMaximo;
+        int segundoIndice = minimoPrimero ? indiceMaximo : indiceMinimo;
+        if (primerIndice != 0 && primerIndice != ultimo) {
+            vertice(minimoPrimero ? xMinimo : xMaximo, minimoPrimero ? yMinimo : yMaximo);
+        }
+        if (segundoIndice != 0 && segundoIndice != ultimo && segundoIndice != primerIndice) {
+            vertice(minimoPrimero ? xMaximo : xMinimo, minimoPrimero ? yMaximo : yMinimo);
+        }
+        if (ultimo > 0) {
+            vertice(xUltimo, yUltimo);
+        }
+        abierta = false;
+    }
+
+    private void vertice(double x, double y) {
+        destino.vertice(x, y, nuevoTramo);
+        nuevoTramo = false;
+    }
+}
@@ -0,0 +1,237 @@
+package com.espoch.inflexpoint.util;
+
+import com.espoch.inflexpoint.modelos.calculos.ResultadoAnalisis;
+import com.espoch.inflexpoint.modelos.calculos.TablaPuntos;
+import com.espoch.inflexpoint.modelos.enumeraciones.TipoPuntoCritico;
+
+/**
+ * Dibujo de una gráfica sobre un Lienzo: ejes con sus marcas, curvas, puntos
+ * críticos y de inflexión y título. Lo comparten GraficadorCanvas (sobre
+ * LienzoCanvas, con la cuadrícula en su propia capa) y RenderizadorGrafica
+ * (sobre LienzoImagen o LienzoSvg), así que las dos gráficas salen iguales.
+ * La cuadrícula y el fondo los dibuja cada uno. Las curvas se reducen por
+ * columnas de píxeles (ver DecimadorColumnas) y se recortan a una franja algo
+ * mayor que la vista. No es seguro para usar desde varios hilos.
+ */
+final class DibujoGrafica {
+
+    static final String COLOR_FONDO = "#FFFFFF";
+    static final String COLOR_CUADRICULA = "#D3D3D3";
+    static final String COLOR_TEXTO = "#000000";
+
+    // Vista: rango visible y tamaño en píxeles
+    private double minX = -10.0;
+    private double maxX = 10.0;
+    private double minY = -10.0;
+    private double maxY = 10.0;
+    private double ancho;
+    private double alto;
+
+    // Lienzo del dibujo en curso, y último vértice y punto donde terminó el
+    // camino (NaN si el siguiente segmento debe empezar un subcamino)
+    private Lienzo lienzo;
+    private final DecimadorColumnas decimador = new DecimadorColumnas(this::trazarVertice);
+    private double verticeX;
+    private double verticeY;
+    private double lapizX;
+    private double lapizY;
+
+    // Vista de los siguientes dibujos
+    void setVista(double minX, double maxX, double minY, double maxY, double ancho, double alto) {
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.ancho = ancho;
+        this.alto = alto;
+    }
+
+    /**
+     * Dibuja ejes, curvas, puntos y título, en ese orden. No pinta el fondo
+     * ni termina el lienzo.
+     *
+     * @param y         Un valor por curva para cada muestra (los de la
+     *                  muestra i empiezan en i * colores.length); NaN corta
+     *                  la curva
+     * @param cantidad  Muestras a usar (0 si aún no hay)
+     * @param colores   Color de cada curva
+     * @param nombres   Nombre de cada curva, para la leyenda (se muestran si
+     *                  hay varias o no hay título)
+     * @param titulo    Texto arriba a la izquierda (puede ser null)
+     * @param resultado Puntos a marcar (puede ser null)
+     */
+    void dibujar(Lienzo lienzo, double[] x, double[] y, int cantidad, String[] colores, String[] nombres,
+            String titulo, ResultadoAnalisis resultado) {
+        this.lienzo = lienzo;
+        try {
+            dibujarEjes();
+            // Se dibujan de la última a la primera, para que f quede encima
+            if (cantidad > 0) {
+                for (int curva = colores.length - 1; curva >= 0; curva--) {
+                    dibujarCurva(x, y, cantidad, colores.length, curva, colores[curva]);
+                }
+            }
+            if (resultado != null) {
+                dibujarPuntosCriticos(resultado);
+            }
+            dibujarTitulo(titulo, colores, nombres);
+        } finally {
+            this.lienzo = null;
+        }
+    }
+
+    // Ejes, sus nombres y las marcas numéricas
+    private void dibujarEjes() {
+        double stepX = GeometriaGrafica.calcularStep(maxX - minX);
+        double stepY = GeometriaGrafica.calcularStep(maxY - minY);
+
+        // Eje Y (x = 0)
+        if (minX <= 0 && maxX >= 0) {
+            double screenX = xAPantalla(0);
+            lienzo.linea(screenX, 0, screenX, alto, COLOR_TEXTO, 2);
+            lienzo.texto("Y", screenX + 15, 15, 12, COLOR_TEXTO, true);
+        }
+
+        // Eje X (y = 0)
+        if (minY <= 0 && maxY >= 0) {
+            double screenY = yAPantalla(0);
+            lienzo.linea(0, screenY, ancho, screenY, COLOR_TEXTO, 2);
+            lienzo.texto("X", ancho - 15, screenY - 5, 12, COLOR_TEXTO, true);
+        }
+
+        // Marcas en eje X
+        if (minY <= 0 && maxY >= 0) {
+            double screenY = yAPantalla(0);
+            for (double x = Math.ceil(minX / stepX) * stepX; x <= maxX; x += stepX) {
+                if (Math.abs(x) > 0.001) { // Evitar el 0
+                    lienzo.texto(String.format("%.1f", x), xAPantalla(x), screenY + 15, 10, COLOR_TEXTO, true);
+                }
+            }
+        }
+
+        // Marcas en eje Y
+        if (minX <= 0 && maxX >= 0) {
+            double screenX = xAPantalla(0);
+            for (double y = Math.ceil(minY / stepY) * stepY; y <= maxY; y += stepY) {
+                if (Math.abs(y) > 0.001) { // Evitar el 0
+                    lienzo.texto(String.format("%.1f", y), screenX - 20, yAPantalla(y) + 4, 10, COLOR_TEXTO, true);
+                }
+            }
+        }
+    }
+
+    // Toda la curva es un solo camino: un subcamino por tramo continuo
+    private void dibujarCurva(double[] x, double[] y, int cantidad, int curvas, int curva, String color) {
+        lienzo.empezarCamino();
+        lapizX = Double.NaN;
+        for (int i = 0; i < cantidad; i++) {
+            double screenY = yAPantalla(y[i * curvas + curva]);
+            if (Double.isFinite(screenY)) {
+                decimador.agregar(xAPantalla(x[i]), screenY);
+            } else {
+                decimador.cortar();
+            }
+        }
+        decimador.terminar();
+        lienzo.trazarCamino(color, GeometriaGrafica.GROSOR_CURVA);
+    }
+
+    private void trazarVertice(double x, double y, boolean nuevoTramo) {
+        if (!nuevoTramo) {
+            agregarSegmento(verticeX, verticeY, x, y);
+        }
+        verticeX = x;
+        verticeY = y;
+    }
+
+    // Agrega un segmento al camino, recortado a una franja algo mayor que la
+    // vista para no pasar coordenadas enormes al dibujo (cerca de una
+    // asíntota). Si no sigue al anterior, empieza un subcamino.
+    private void agregarSegmento(double x1, double y1, double x2, double y2) {
+        double arriba = -alto;
+        double abajo = 2.0 * alto;
+        if ((y1 < arriba && y2 < arriba) || (y1 > abajo && y2 > abajo)) {
+            return;
+        }
+        if (y1 < arriba || y1 > abajo) {
+            double borde = y1 < arriba ? arriba : abajo;
+            x1 += (borde - y1) / (y2 - y1) * (x2 - x1);
+            y1 = borde;
+        }
+        if (y2 < arriba || y2 > abajo) {
+            double borde = y2 < arriba ? arriba : abajo;
+            x2 += (borde - y2) / (y1 - y2) * (x1 - x2);
+            y2 = borde;
+        }
+        if (x1 != lapizX || y1 != lapizY) {
+            lienzo.moverA(x1, y1);
+        }
+        lienzo.lineaA(x2, y2);
+        lapizX = x2;
+        lapizY = y2;
+    }
+
+    // Puntos críticos y de inflexión (se recorren las tablas por índice para
+    // no crear objetos en cada redibujo)
+    private void dibujarPuntosCriticos(ResultadoAnalisis resultado) {
+        // Los puntos de un resultado preliminar se dibujan atenuados
+        lienzo.opacidad(resultado.isPreliminar() ? 0.5 : 1.0);
+
+        TablaPuntos criticos = resultado.getTablaPuntosCriticos();
+        if (criticos != null) {
+            for (int i = 0; i < criticos.tamanio(); i++) {
+                if (criticos.getTipo(i) == TipoPuntoCritico.MAXIMO) {
+                    dibujarPunto(criticos.getX(i), criticos.getY(i), GeometriaGrafica.COLOR_MAXIMO, "Máx");
+                } else if (criticos.getTipo(i) == TipoPuntoCritico.MINIMO) {
+                    dibujarPunto(criticos.getX(i), criticos.getY(i), GeometriaGrafica.COLOR_MINIMO, "Mín");
+                }
+            }
+        }
+
+        TablaPuntos inflexion = resultado.getTablaPuntosInflexion();
+        if (inflexion != null) {
+            for (int i = 0; i < inflexion.tamanio(); i++) {
+                dibujarPunto(inflexion.getX(i), inflexion.getY(i), GeometriaGrafica.COLOR_INFLEXION, "Inf");
+            }
+        }
+
+        lienzo.opacidad(1.0);
+    }
+
+    private void dibujarPunto(double x, double y, String color, String etiqueta) {
+        double screenX = xAPantalla(x);
+        double screenY = yAPantalla(y);
+
+        // Verificar que esté visible
+        if (screenX < 0 || screenX > ancho || screenY < 0 || screenY > alto) {
+            return;
+        }
+
+        lienzo.punto(screenX, screenY, GeometriaGrafica.RADIO_PUNTO, color, COLOR_FONDO, 2);
+        lienzo.texto(etiqueta, screenX + 8, screenY - 8, 10, color, true);
+    }
+
+    // Título y, si hay varias curvas (o no hay título), el nombre de cada una
+    // en su color
+    private void dibujarTitulo(String titulo, String[] colores, String[] nombres) {
+        double y = 20;
+        if (titulo != null) {
+            lienzo.texto(titulo, 10, y, 14, COLOR_TEXTO, false);
+            y += 18;
+        }
+        if (nombres.length > 1 || (nombres.length == 1 && titulo == null)) {
+            for (int i = 0; i < nombres.length; i++) {
+                lienzo.texto(nombres[i], 10, y, 12, colores[i], false);
+                y += 16;
+            }
+        }
+    }
+
+    private double xAPantalla(double x) {
+        return GeometriaGrafica.xAPantalla(x, minX, maxX, ancho);
+    }
+
+    private double yAPantalla(double y) {
+        return GeometriaGrafica.yAPantalla(y, minY, maxY, alto);
+    }
+}
@@ -0,0 +1,57 @@
+package com.espoch.inflexpoint.util;
+
+/**
+ * Geometría común de las gráficas: conversión entre coordenadas del mundo y
+ * de pantalla, espaciado de la cuadrícula y estilo de las curvas y de los
+ * puntos marcados. La usan GraficadorCanvas (en la interfaz) y
+ * RenderizadorGrafica (sin JavaFX), para que las dos dibujen igual.
+ * Los colores van como "#RRGGBB", sin depender de JavaFX ni de AWT.
+ */
+final class GeometriaGrafica {
+
+    // Colores de f(x) y de sus derivadas
+    static final String COLOR_FUNCION = "#FF6B35"; // Naranja
+    static final String COLOR_PRIMERA_DERIVADA = "#1E88E5"; // Azul
+    static final String COLOR_SEGUNDA_DERIVADA = "#8E24AA"; // Morado
+
+    // Colores de los puntos marcados (máximo, mínimo, inflexión)
+    static final String COLOR_MAXIMO = "#FF0000";
+    static final String COLOR_MINIMO = "#008000";
+    static final String COLOR_INFLEXION = "#FFA500";
+
+    static final double GROSOR_CURVA = 2.5;
+    static final double RADIO_PUNTO = 5;
+
+    private GeometriaGrafica() {
+    }
+
+    static double xAPantalla(double x, double minX, double maxX, double ancho) {
+        return (x - minX) / (maxX - minX) * ancho;
+    }
+
+    static double yAPantalla(double y, double minY, double maxY, double alto) {
+        return alto - (y - minY) / (maxY - minY) * alto;
+    }
+
+    static double pantallaAX(double screenX, double minX, double maxX, double ancho) {
+        return minX + (screenX / ancho) * (maxX - minX);
+    }
+
+    static double pantallaAY(double screenY, double minY, double maxY, double alto) {
+        return minY + ((alto - screenY) / alto) * (maxY - minY);
+    }
+
+    // Calcula el espaciado apropiado para la cuadrícula.
+    static double calcularStep(double rango) {
+        double[] steps = { 0.1, 0.2, 0.5, 1, 2, 5, 10, 20, 50, 100 };
+        double targetLines = 10;
+        double targetStep = rango / targetLines;
+
+        for (double step : steps) {
+            if (step >= targetStep) {
+                return step;
+            }
+        }
+        return steps[steps.length - 1];
+    }
+}
@@ -1,22 +1,50 @@
 package com.espoch.inflexpoint.util;
 
+import com.espoch.inflexpoint.modelos.calculos.EjecucionAsincrona;
 import com.espoch.inflexpoint.modelos.calculos.Evaluador;
 import com.espoch.inflexpoint.modelos.calculos.ResultadoAnalisis;
-import com.espoch.inflexpoint.modelos.entidades.PuntoCritico;
-import com.espoch.inflexpoint.modelos.enumeraciones.TipoPuntoCritico;
 import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
-import javafx.scene.text.TextAlignment;
+import javafx.scene.shape.Rectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class GraficadorCanvas {
 
+    // Se dibuja mientras no hay muestras de las curvas actuales (solo lo demás)
+    private static final BufferMuestras SIN_MUESTRAS = new BufferMuestras(0);
+
+    // Otra función graficada junto a f(x)
+    private record FuncionAdicional(String expresion, Evaluador evaluador, Color color) {
+    }
+
+    // Capa de la curva: ejes, función, puntos y título (se redibuja en cada
+    // cuadro con DibujoGrafica, igual que RenderizadorGrafica)
     private final Canvas canvas;
     private final GraphicsContext gc;
+    private final LienzoCanvas lienzo;
+    private final DibujoGrafica dibujo = new DibujoGrafica();
+
+    // Capa de la cuadrícula, debajo de la curva. Las líneas se repiten cada
+    // 'espaciado' píxeles, así que se dibujan una vez en un canvas un periodo
+    // más grande que la vista y al arrastrar solo se desplaza la capa; se
+    // vuelve a dibujar cuando cambia la escala o el tamaño.
+    private final Canvas capaCuadricula;
+    private final Pane nodo;
+    // Espaciado y tamaño de la cuadrícula dibujada (NaN: hay que redibujarla)
+    private double espaciadoXCuadricula = Double.NaN;
+    private double espaciadoYCuadricula = Double.NaN;
+    private double anchoCuadricula;
+    private double altoCuadricula;
 
     // Rango visible actual
     private double minX = -10.0;
@@ -29,15 +57,69 @@ public class GraficadorCanvas {
     private double lastMouseY;
     private boolean isDragging = false;
 
-    // Evaluador actual
+    // Evaluador de la función actual (cada conjunto de curvas usa una copia)
     private Evaluador evaluador;
     private ResultadoAnalisis resultado;
     private String expresion;
 
+    // Curvas elegidas: cualquier combinación de f, f' y f'', más otras funciones
+    private boolean mostrarFuncion = true;
+    private boolean mostrarPrimeraDerivada;
+    private boolean mostrarSegundaDerivada;
+    private final List<FuncionAdicional> adicionales = new ArrayList<>();
+    // Curvas que se muestrean (null si no hay ninguna) y el color y el
+    // nombre de cada una, en el orden de sus valores en las muestras
+    private ConjuntoCurvas curvas;
+    private String[] colores = new String[0];
+    private String[] nombres = new String[0];
+
+    // Las curvas se muestrean en otro hilo; la interfaz solo dibuja el último
+    // buffer completo. 'generacion' cambia con cada cambio de las curvas,
+    // para no dibujar muestras de las anteriores.
+    private final MuestreadorFuncion muestreador;
+    private final AtomicBoolean redibujoPendiente = new AtomicBoolean();
+    private long generacion;
+    // Última vista pedida al muestreador
+    private long generacionSolicitada = -1;
+    private double minXSolicitado;
+    private double maxXSolicitado;
+    private double minYSolicitado;
+    private double maxYSolicitado;
+    private int columnasSolicitadas;
+    private int filasSolicitadas;
+
+    // Los cambios (eventos, muestras nuevas, resultados) solo marcan la vista
+    // como pendiente; el temporizador la dibuja como mucho una vez por cuadro
+    // y se detiene mientras no haya nada que dibujar
+    private boolean dibujoPendiente;
+    private final AnimationTimer temporizador = new AnimationTimer() {
+        @Override
+        public void handle(long ahora) {
+            stop();
+            if (dibujoPendiente) {
+                dibujoPendiente = false;
+                dibujar();
+            }
+        }
+    };
+
     // Crea un graficador con Canvas de tamaño específico.
     public GraficadorCanvas(double width, double height) {
         canvas = new Canvas(width, height);
         gc = canvas.getGraphicsContext2D();
+        lienzo = new LienzoCanvas(gc);
+
+        // La capa de la cuadrícula es más grande que la vista: no cuenta para
+        // el tamaño del nodo y se recorta a la vista
+        capaCuadricula = new Canvas(width, height);
+        capaCuadricula.setManaged(false);
+        nodo = new Pane(capaCuadricula, canvas);
+        Rectangle recorte = new Rectangle();
+        recorte.widthProperty().bind(canvas.widthProperty());
+        recorte.heightProperty().bind(canvas.heightProperty());
+        nodo.setClip(recorte);
+
+        muestreador = new MuestreadorFuncion(EjecucionAsincrona.ejecutorPorDefecto(), this::programarRedibujo);
 
         configurarEventos();
     }
@@ -64,285 +146,258 @@ public class GraficadorCanvas {
         this.expresion = expresion;
         this.resultado = resultado;
         this.evaluador = new Evaluador(expresion);
+        armarCurvas();
 
-        dibujar();
+        solicitarDibujo();
     }
 
-    // Dibuja todo el contenido del canvas.
-    private void dibujar() {
-        // Limpiar canvas
-        gc.setFill(Color.WHITE);
-        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
-
-        // Dibujar cuadrícula
-        dibujarCuadricula();
-
-        // Dibujar ejes
-        dibujarEjes();
+    // Igual, con la expresión ya compilada (no se vuelve a leer el texto);
+    // resultado puede ser null mientras el análisis está en curso.
+    public void graficar(String expresion, Evaluador compilado, ResultadoAnalisis resultado) {
+        this.expresion = expresion;
+        this.resultado = resultado;
+        this.evaluador = compilado.copiar();
+        armarCurvas();
 
-        // Dibujar función
-        if (evaluador != null) {
-            dibujarFuncion();
-        }
+        solicitarDibujo();
+    }
 
-        // Dibujar puntos críticos
-        if (resultado != null) {
-            dibujarPuntosCriticos();
+    // Elige cuáles de f(x), f'(x) y f''(x) se grafican (por defecto solo f).
+    // Las derivadas salen de la misma evaluación que f, sin otra expresión.
+    public void mostrarCurvas(boolean funcion, boolean primeraDerivada, boolean segundaDerivada) {
+        if (funcion == mostrarFuncion && primeraDerivada == mostrarPrimeraDerivada
+                && segundaDerivada == mostrarSegundaDerivada) {
+            return;
         }
-
-        // Dibujar título
-        dibujarTitulo();
+        mostrarFuncion = funcion;
+        mostrarPrimeraDerivada = primeraDerivada;
+        mostrarSegundaDerivada = segundaDerivada;
+        armarCurvas();
+        solicitarDibujo();
     }
 
-    // Dibuja la cuadrícula de fondo.
-    private void dibujarCuadricula() {
-        gc.setStroke(Color.LIGHTGRAY);
-        gc.setLineWidth(0.5);
-
-        double width = canvas.getWidth();
-        double height = canvas.getHeight();
-
-        // Calcular espaciado de la cuadrícula
-        double rangoX = maxX - minX;
-        double rangoY = maxY - minY;
-
-        // Líneas verticales
-        double stepX = calcularStep(rangoX);
-        for (double x = Math.ceil(minX / stepX) * stepX; x <= maxX; x += stepX) {
-            double screenX = xAPantalla(x);
-            gc.strokeLine(screenX, 0, screenX, height);
-        }
+    // Grafica otra función junto a f(x), con su propio color.
+    public void agregarFuncion(String expresion, Color color) throws ExpresionInvalidaException {
+        adicionales.add(new FuncionAdicional(expresion, new Evaluador(expresion), color));
+        armarCurvas();
+        solicitarDibujo();
+    }
 
-        // Líneas horizontales
-        double stepY = calcularStep(rangoY);
-        for (double y = Math.ceil(minY / stepY) * stepY; y <= maxY; y += stepY) {
-            double screenY = yAPantalla(y);
-            gc.strokeLine(0, screenY, width, screenY);
+    // Quita las funciones agregadas con agregarFuncion.
+    public void quitarFunciones() {
+        if (adicionales.isEmpty()) {
+            return;
         }
+        adicionales.clear();
+        armarCurvas();
+        solicitarDibujo();
     }
 
-    // Calcula el espaciado apropiado para la cuadrícula.
-    private double calcularStep(double rango) {
-        double[] steps = { 0.1, 0.2, 0.5, 1, 2, 5, 10, 20, 50, 100 };
-        double targetLines = 10;
-        double targetStep = rango / targetLines;
-
-        for (double step : steps) {
-            if (step >= targetStep) {
-                return step;
+    // Arma el conjunto de curvas elegidas, con su color y su nombre; sus
+    // muestras son nuevas, así que cambia la generación.
+    private void armarCurvas() {
+        generacion++;
+        List<String> coloresCurvas = new ArrayList<>();
+        List<String> nombresCurvas = new ArrayList<>();
+        if (evaluador != null) {
+            if (mostrarFuncion) {
+                coloresCurvas.add(GeometriaGrafica.COLOR_FUNCION);
+                nombresCurvas.add("f(x)");
+            }
+            if (mostrarPrimeraDerivada) {
+                coloresCurvas.add(GeometriaGrafica.COLOR_PRIMERA_DERIVADA);
+                nombresCurvas.add("f'(x)");
             }
+            if (mostrarSegundaDerivada) {
+                coloresCurvas.add(GeometriaGrafica.COLOR_SEGUNDA_DERIVADA);
+                nombresCurvas.add("f''(x)");
+            }
+        }
+        Evaluador[] evaluadores = new Evaluador[adicionales.size()];
+        for (int i = 0; i < evaluadores.length; i++) {
+            FuncionAdicional adicional = adicionales.get(i);
+            evaluadores[i] = adicional.evaluador();
+            coloresCurvas.add(LienzoCanvas.aTexto(adicional.color()));
+            nombresCurvas.add("y = " + adicional.expresion());
         }
-        return steps[steps.length - 1];
+        colores = coloresCurvas.toArray(new String[0]);
+        nombres = nombresCurvas.toArray(new String[0]);
+        curvas = colores.length > 0
+                ? new ConjuntoCurvas(evaluador, mostrarFuncion, mostrarPrimeraDerivada, mostrarSegundaDerivada,
+                        evaluadores)
+                : null;
     }
 
-    // Dibuja los ejes X e Y.
-    private void dibujarEjes() {
-        gc.setStroke(Color.BLACK);
-        gc.setLineWidth(2);
-
-        double width = canvas.getWidth();
-        double height = canvas.getHeight();
-
-        // Eje Y (x = 0)
-        if (minX <= 0 && maxX >= 0) {
-            double screenX = xAPantalla(0);
-            gc.strokeLine(screenX, 0, screenX, height);
+    // Reemplaza los puntos marcados (ej. al llegar la versión refinada de un
+    // análisis progresivo) sin volver a crear el evaluador ni mover la vista.
+    public void actualizarResultado(ResultadoAnalisis resultado) {
+        this.resultado = resultado;
+        solicitarDibujo();
+    }
 
-            // Etiqueta Y
-            gc.setFill(Color.BLACK);
-            gc.setFont(Font.font(12));
-            gc.setTextAlign(TextAlignment.CENTER);
-            gc.fillText("Y", screenX + 15, 15);
+    // Redibuja en el hilo de la interfaz cuando hay muestras nuevas; las que
+    // lleguen antes de ese redibujo se agrupan en él.
+    private void programarRedibujo() {
+        if (redibujoPendiente.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                redibujoPendiente.set(false);
+                solicitarDibujo();
+            });
         }
+    }
 
-        // Eje X (y = 0)
-        if (minY <= 0 && maxY >= 0) {
-            double screenY = yAPantalla(0);
-            gc.strokeLine(0, screenY, width, screenY);
-
-            // Etiqueta X
-            gc.fillText("X", width - 15, screenY - 5);
+    // Marca la vista como pendiente de dibujo (en el siguiente cuadro)
+    private void solicitarDibujo() {
+        if (!dibujoPendiente) {
+            dibujoPendiente = true;
+            temporizador.start();
         }
-
-        // Dibujar marcas y valores
-        dibujarMarcasEjes();
     }
 
-    // Dibuja las marcas numéricas en los ejes.
-    private void dibujarMarcasEjes() {
-        gc.setFill(Color.BLACK);
-        gc.setFont(Font.font(10));
-        gc.setTextAlign(TextAlignment.CENTER);
-
-        double rangoX = maxX - minX;
-        double rangoY = maxY - minY;
-        double stepX = calcularStep(rangoX);
-        double stepY = calcularStep(rangoY);
-
-        // Marcas en eje X
-        if (minY <= 0 && maxY >= 0) {
-            double screenY = yAPantalla(0);
-            for (double x = Math.ceil(minX / stepX) * stepX; x <= maxX; x += stepX) {
-                if (Math.abs(x) > 0.001) { // Evitar el 0
-                    double screenX = xAPantalla(x);
-                    gc.fillText(String.format("%.1f", x), screenX, screenY + 15);
-                }
-            }
+    // Pide las muestras de la vista actual si aún no se pidieron
+    private void solicitarMuestras() {
+        int columnas = (int) Math.ceil(canvas.getWidth());
+        int filas = (int) Math.ceil(canvas.getHeight());
+        if (generacion == generacionSolicitada && minX == minXSolicitado && maxX == maxXSolicitado
+                && minY == minYSolicitado && maxY == maxYSolicitado
+                && columnas == columnasSolicitadas && filas == filasSolicitadas) {
+            return;
         }
+        generacionSolicitada = generacion;
+        minXSolicitado = minX;
+        maxXSolicitado = maxX;
+        minYSolicitado = minY;
+        maxYSolicitado = maxY;
+        columnasSolicitadas = columnas;
+        filasSolicitadas = filas;
+        muestreador.solicitar(curvas, generacion, minX, maxX, minY, maxY, columnas, filas);
+    }
 
-        // Marcas en eje Y
-        if (minX <= 0 && maxX >= 0) {
-            double screenX = xAPantalla(0);
-            for (double y = Math.ceil(minY / stepY) * stepY; y <= maxY; y += stepY) {
-                if (Math.abs(y) > 0.001) { // Evitar el 0
-                    double screenY = yAPantalla(y);
-                    gc.fillText(String.format("%.1f", y), screenX - 20, screenY + 4);
-                }
-            }
+    // Dibuja todo el contenido del canvas.
+    private void dibujar() {
+        if (curvas != null) {
+            solicitarMuestras();
         }
-    }
 
-    // Dibuja la función.
-    private void dibujarFuncion() {
-        gc.setStroke(Color.web("#FF6B35")); // Naranja
-        gc.setLineWidth(2.5);
-
-        double width = canvas.getWidth();
-        double step = (maxX - minX) / width; // Un punto por píxel
-
-        Double prevScreenX = null;
-        Double prevScreenY = null;
-
-        for (double x = minX; x <= maxX; x += step) {
-            try {
-                double y = evaluador.evaluar(x);
-
-                // Filtrar valores inválidos
-                if (Double.isNaN(y) || Double.isInfinite(y)) {
-                    prevScreenX = null;
-                    prevScreenY = null;
-                    continue;
-                }
-
-                // Limitar valores extremos
-                if (Math.abs(y) > 1000) {
-                    prevScreenX = null;
-                    prevScreenY = null;
-                    continue;
-                }
-
-                double screenX = xAPantalla(x);
-                double screenY = yAPantalla(y);
-
-                // Verificar que esté dentro del canvas
-                if (screenY < -100 || screenY > canvas.getHeight() + 100) {
-                    prevScreenX = null;
-                    prevScreenY = null;
-                    continue;
-                }
-
-                // Dibujar línea si hay punto previo
-                if (prevScreenX != null) {
-                    // Evitar líneas verticales largas (discontinuidades)
-                    if (Math.abs(screenY - prevScreenY) < canvas.getHeight() / 2) {
-                        gc.strokeLine(prevScreenX, prevScreenY, screenX, screenY);
-                    }
-                }
-
-                prevScreenX = screenX;
-                prevScreenY = screenY;
-
-            } catch (ExpresionInvalidaException e) {
-                System.out.println("Error graficando en x=" + x + ": " + e.getMessage());
-                prevScreenX = null;
-                prevScreenY = null;
-            } catch (Exception e) {
-                System.out.println("Error INESPERADO graficando en x=" + x + ": " + e);
-                e.printStackTrace();
-                prevScreenX = null;
-                prevScreenY = null;
-            }
+        // Cuadrícula (en su propia capa)
+        actualizarCuadricula();
+
+        // Limpiar la capa de la curva (es transparente sobre la cuadrícula)
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+        // Ejes, curvas, puntos críticos y título. Mientras llegan las muestras
+        // de la vista actual se dibujan las anteriores en su posición (al
+        // arrastrar, las curvas se mueven con la vista). El muestreo ya marca
+        // los cortes de cada curva (y = NaN), así que aquí no se adivinan saltos.
+        BufferMuestras muestras = curvas != null ? muestreador.ultimas() : null;
+        if (muestras == null || muestras.getGeneracion() != generacion) {
+            muestras = SIN_MUESTRAS; // Aún no hay muestras de estas curvas
         }
+        dibujo.setVista(minX, maxX, minY, maxY, canvas.getWidth(), canvas.getHeight());
+        dibujo.dibujar(lienzo, muestras.getArregloX(), muestras.getArregloY(), muestras.getTamanio(), colores,
+                nombres, expresion != null ? "f(x) = " + expresion : null, resultado);
+        lienzo.terminar();
     }
 
-    // Dibuja los puntos críticos.
-    private void dibujarPuntosCriticos() {
-        // Dibujar puntos críticos (máximos y mínimos)
-        if (resultado.getPuntosCriticos() != null) {
-            for (PuntoCritico pc : resultado.getPuntosCriticos()) {
-                if (pc.getTipoPuntoCritico() == TipoPuntoCritico.MAXIMO) {
-                    dibujarPunto(pc.getX(), pc.getY(), Color.RED, "Máx");
-                } else if (pc.getTipoPuntoCritico() == TipoPuntoCritico.MINIMO) {
-                    dibujarPunto(pc.getX(), pc.getY(), Color.GREEN, "Mín");
-                }
-            }
+    // Ubica la capa de la cuadrícula para la vista actual; solo la redibuja
+    // si cambió la escala o el tamaño.
+    private void actualizarCuadricula() {
+        double ancho = canvas.getWidth();
+        double alto = canvas.getHeight();
+
+        // Espaciado de las líneas en píxeles y posición de una de ellas dentro del periodo
+        double espaciadoX = calcularStep(maxX - minX) / (maxX - minX) * ancho;
+        double espaciadoY = calcularStep(maxY - minY) / (maxY - minY) * alto;
+        if (!(espaciadoX > 0 && espaciadoY > 0)) {
+            return; // Rango degenerado
+        }
+        double faseX = modulo(xAPantalla(0), espaciadoX);
+        double faseY = modulo(yAPantalla(0), espaciadoY);
+        if (espaciadoX > ancho || espaciadoY > alto) {
+            // Con una o dos líneas no vale la pena el periodo extra: se dibujan en su lugar
+            dibujarCuadricula(ancho, alto, espaciadoX, espaciadoY, faseX, faseY);
+            capaCuadricula.setTranslateX(0);
+            capaCuadricula.setTranslateY(0);
+            espaciadoXCuadricula = Double.NaN;
+            return;
         }
 
-        // Dibujar puntos de inflexión
-        if (resultado.getPuntosInflexion() != null) {
-            for (PuntoCritico pi : resultado.getPuntosInflexion()) {
-                dibujarPunto(pi.getX(), pi.getY(), Color.ORANGE, "Inf");
-            }
+        if (!casiIgual(espaciadoX, espaciadoXCuadricula) || !casiIgual(espaciadoY, espaciadoYCuadricula)
+                || ancho != anchoCuadricula || alto != altoCuadricula) {
+            dibujarCuadricula(ancho + espaciadoX, alto + espaciadoY, espaciadoX, espaciadoY, 0, 0);
+            espaciadoXCuadricula = espaciadoX;
+            espaciadoYCuadricula = espaciadoY;
+            anchoCuadricula = ancho;
+            altoCuadricula = alto;
         }
+        capaCuadricula.setTranslateX(faseX - espaciadoXCuadricula);
+        capaCuadricula.setTranslateY(faseY - espaciadoYCuadricula);
     }
 
-    // Dibuja un punto marcado en la gráfica.
-    private void dibujarPunto(double x, double y, Color color, String etiqueta) {
-        double screenX = xAPantalla(x);
-        double screenY = yAPantalla(y);
+    // Dibuja el fondo y las líneas de la cuadrícula, desde (x0, y0), en la capa
+    private void dibujarCuadricula(double ancho, double alto, double espaciadoX, double espaciadoY,
+            double x0, double y0) {
+        capaCuadricula.setWidth(ancho);
+        capaCuadricula.setHeight(alto);
+        GraphicsContext gcCuadricula = capaCuadricula.getGraphicsContext2D();
 
-        // Verificar que esté visible
-        if (screenX < 0 || screenX > canvas.getWidth() ||
-                screenY < 0 || screenY > canvas.getHeight()) {
-            return;
+        gcCuadricula.setFill(Color.web(DibujoGrafica.COLOR_FONDO));
+        gcCuadricula.fillRect(0, 0, ancho, alto);
+
+        gcCuadricula.setStroke(Color.web(DibujoGrafica.COLOR_CUADRICULA));
+        gcCuadricula.setLineWidth(0.5);
+
+        // Líneas verticales
+        for (double x = x0; x <= ancho; x += espaciadoX) {
+            gcCuadricula.strokeLine(x, 0, x, alto);
         }
 
-        // Círculo
-        gc.setFill(color);
-        gc.fillOval(screenX - 5, screenY - 5, 10, 10);
+        // Líneas horizontales
+        for (double y = y0; y <= alto; y += espaciadoY) {
+            gcCuadricula.strokeLine(0, y, ancho, y);
+        }
+    }
 
-        // Borde
-        gc.setStroke(Color.WHITE);
-        gc.setLineWidth(2);
-        gc.strokeOval(screenX - 5, screenY - 5, 10, 10);
+    private static double modulo(double valor, double periodo) {
+        double resto = valor % periodo;
+        return resto < 0 ? resto + periodo : resto;
+    }
 
-        // Etiqueta
-        gc.setFill(color);
-        gc.setFont(Font.font(10));
-        gc.fillText(etiqueta, screenX + 8, screenY - 8);
+    // Igualdad salvo errores de redondeo (al arrastrar, el ancho del rango
+    // puede variar en el último bit)
+    private static boolean casiIgual(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.abs(a);
     }
 
-    // Dibuja el título de la gráfica.
-    private void dibujarTitulo() {
-        if (expresion != null) {
-            gc.setFill(Color.BLACK);
-            gc.setFont(Font.font(14));
-            gc.setTextAlign(TextAlignment.LEFT);
-            gc.fillText("f(x) = " + expresion, 10, 20);
-        }
+    // Calcula el espaciado apropiado para la cuadrícula.
+    private double calcularStep(double rango) {
+        return GeometriaGrafica.calcularStep(rango);
     }
 
     // ===== Conversión de coordenadas =====
 
     private double xAPantalla(double x) {
-        return (x - minX) / (maxX - minX) * canvas.getWidth();
+        return GeometriaGrafica.xAPantalla(x, minX, maxX, canvas.getWidth());
     }
 
     private double yAPantalla(double y) {
-        return canvas.getHeight() - (y - minY) / (maxY - minY) * canvas.getHeight();
+        return GeometriaGrafica.yAPantalla(y, minY, maxY, canvas.getHeight());
     }
 
     private double pantallaAX(double screenX) {
-        return minX + (screenX / canvas.getWidth()) * (maxX - minX);
+        return GeometriaGrafica.pantallaAX(screenX, minX, maxX, canvas.getWidth());
     }
 
     private double pantallaAY(double screenY) {
-        return minY + ((canvas.getHeight() - screenY) / canvas.getHeight()) * (maxY - minY);
+        return GeometriaGrafica.pantallaAY(screenY, minY, maxY, canvas.getHeight());
     }
 
     // ===== Manejo de eventos =====
 
     private void manejarDesplazamiento(ScrollEvent event) {
+        if (event.getDeltaY() == 0) {
+            return; // Desplazamiento horizontal (trackpad): no cambia el zoom
+        }
         double zoomFactor = event.getDeltaY() > 0 ? 0.9 : 1.1;
 
         // Zoom centrado en el mouse
@@ -360,7 +415,7 @@ public class GraficadorCanvas {
         minY = mouseY - newRangoY * (mouseY - minY) / rangoY;
         maxY = mouseY + newRangoY * (maxY - mouseY) / rangoY;
 
-        dibujar();
+        solicitarDibujo();
         event.consume();
     }
 
@@ -375,6 +430,9 @@ public class GraficadorCanvas {
         if (isDragging) {
             double dx = event.getX() - lastMouseX;
             double dy = event.getY() - lastMouseY;
+            if (dx == 0 && dy == 0) {
+                return; // La vista no cambió
+            }
 
             double worldDx = -dx / canvas.getWidth() * (maxX - minX);
             double worldDy = dy / canvas.getHeight() * (maxY - minY);
@@ -387,7 +445,7 @@ public class GraficadorCanvas {
             lastMouseX = event.getX();
             lastMouseY = event.getY();
 
-            dibujar();
+            solicitarDibujo();
         }
     }
 
@@ -407,14 +465,19 @@ public class GraficadorCanvas {
         maxX = 10.0;
         minY = -10.0;
         maxY = 10.0;
-        dibujar();
+        solicitarDibujo();
     }
 
-    // Obtiene el Canvas para añadir a la UI.
+    // Obtiene el Canvas de la curva (el que recibe los eventos del mouse).
     public Canvas getCanvas() {
         return canvas;
     }
 
+    // Obtiene el nodo con las capas de la gráfica para añadir a la UI.
+    public Pane getNodo() {
+        return nodo;
+    }
+
     // Ajusta el tamaño del canvas y redibuja.
     public void establecerTamanio(double width, double height) {
         // Validar tamaños mínimos y máximos
@@ -435,8 +498,8 @@ public class GraficadorCanvas {
         canvas.setHeight(height);
 
         // Solo redibujar si ya hay algo que dibujar
-        if (evaluador != null) {
-            dibujar();
+        if (curvas != null) {
+            solicitarDibujo();
         }
     }
 }
@@ -0,0 +1,46 @@
+package com.espoch.inflexpoint.util;
+
+import java.io.IOException;
+
+/**
+ * Superficie donde dibuja DibujoGrafica: el Canvas de JavaFX de
+ * GraficadorCanvas (LienzoCanvas) o, en RenderizadorGrafica, una imagen en
+ * memoria (LienzoImagen) o un documento SVG que se escribe a medida que se
+ * dibuja (LienzoSvg). Las coordenadas son de pantalla (origen arriba a la
+ * izquierda) y los colores van como "#RRGGBB".
+ */
+interface Lienzo {
+
+    // Pinta todo el lienzo de un color
+    void fondo(String color);
+
+    void linea(double x1, double y1, double x2, double y2, String color, double grosor);
+
+    /**
+     * @param centrado true para centrar el texto en x; false para empezar en x
+     */
+    void texto(String texto, double x, double y, double tamanio, String color, boolean centrado);
+
+    // Círculo relleno con borde (los puntos marcados)
+    void punto(double x, double y, double radio, String relleno, String borde, double grosor);
+
+    // Opacidad de lo que se dibuje después (1 = opaco)
+    void opacidad(double alfa);
+
+    // Camino de una curva: se arma con moverA/lineaA y se traza una sola vez
+    void empezarCamino();
+
+    void moverA(double x, double y);
+
+    void lineaA(double x, double y);
+
+    void trazarCamino(String color, double grosor);
+
+    /**
+     * Termina el dibujo.
+     *
+     * @throws IOException Si falló la escritura (en un lienzo que escribe
+     *                     mientras se dibuja, el primer error se informa aquí)
+     */
+    void terminar() throws IOException;
+}
@@ -0,0 +1,102 @@
+package com.espoch.inflexpoint.util;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lienzo sobre el GraphicsContext de un Canvas de JavaFX: el que usa
+ * GraficadorCanvas para la capa de la curva. Solo se usa desde el hilo de la
+ * interfaz. Los colores y las fuentes se crean una vez y se reutilizan en
+ * cada cuadro.
+ */
+final class LienzoCanvas implements Lienzo {
+
+    private final GraphicsContext gc;
+
+    // Colores y fuentes ya creados
+    private final Map<String, Color> colores = new HashMap<>();
+    private final Map<Double, Font> fuentes = new HashMap<>();
+
+    LienzoCanvas(GraphicsContext gc) {
+        this.gc = gc;
+    }
+
+    // Color de JavaFX como "#RRGGBB" (sin la opacidad)
+    static String aTexto(Color color) {
+        return String.format("#%02X%02X%02X", Math.round(color.getRed() * 255),
+                Math.round(color.getGreen() * 255), Math.round(color.getBlue() * 255));
+    }
+
+    @Override
+    public void fondo(String color) {
+        gc.setFill(color(color));
+        gc.fillRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+    }
+
+    @Override
+    public void linea(double x1, double y1, double x2, double y2, String color, double grosor) {
+        gc.setStroke(color(color));
+        gc.setLineWidth(grosor);
+        gc.strokeLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void texto(String texto, double x, double y, double tamanio, String color, boolean centrado) {
+        gc.setFill(color(color));
+        gc.setFont(fuentes.computeIfAbsent(tamanio, Font::font));
+        gc.setTextAlign(centrado ? TextAlignment.CENTER : TextAlignment.LEFT);
+        gc.fillText(texto, x, y);
+    }
+
+    @Override
+    public void punto(double x, double y, double radio, String relleno, String borde, double grosor) {
+        gc.setFill(color(relleno));
+        gc.fillOval(x - radio, y - radio, 2 * radio, 2 * radio);
+        gc.setStroke(color(borde));
+        gc.setLineWidth(grosor);
+        gc.strokeOval(x - radio, y - radio, 2 * radio, 2 * radio);
+    }
+
+    @Override
+    public void opacidad(double alfa) {
+        gc.setGlobalAlpha(alfa);
+    }
+
+    @Override
+    public void empezarCamino() {
+        gc.beginPath();
+    }
+
+    @Override
+    public void moverA(double x, double y) {
+        gc.moveTo(x, y);
+    }
+
+    @Override
+    public void lineaA(double x, double y) {
+        gc.lineTo(x, y);
+    }
+
+    @Override
+    public void trazarCamino(String color, double grosor) {
+        gc.setStroke(color(color));
+        gc.setLineWidth(grosor);
+        gc.setLineJoin(StrokeLineJoin.ROUND);
+        gc.stroke();
+    }
+
+    @Override
+    public void terminar() {
+        gc.setGlobalAlpha(1.0);
+    }
+
+    private Color color(String color) {
+        return colores.computeIfAbsent(color, Color::web);
+    }
+}
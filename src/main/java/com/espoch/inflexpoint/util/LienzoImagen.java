@@ -0,0 +1,145 @@
+package com.espoch.inflexpoint.util;
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lienzo sobre una imagen en memoria (Java2D), que se guarda como PNG. No
+ * necesita pantalla: con -Djava.awt.headless=true funciona en un servidor.
+ * La imagen y los objetos de dibujo se reutilizan entre gráficas.
+ */
+final class LienzoImagen implements Lienzo {
+
+    private final BufferedImage imagen;
+    private final Graphics2D g;
+    private final Path2D.Double camino = new Path2D.Double();
+    private final Line2D.Double segmento = new Line2D.Double();
+    private final Ellipse2D.Double circulo = new Ellipse2D.Double();
+
+    // Colores, fuentes y trazos ya creados
+    private final Map<String, Color> colores = new HashMap<>();
+    private final Map<Double, Font> fuentes = new HashMap<>();
+    private final Map<Double, BasicStroke> trazos = new HashMap<>();
+
+    LienzoImagen(int ancho, int alto) {
+        imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        g = imagen.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    }
+
+    int getAncho() {
+        return imagen.getWidth();
+    }
+
+    int getAlto() {
+        return imagen.getHeight();
+    }
+
+    BufferedImage getImagen() {
+        return imagen;
+    }
+
+    // Escribe la imagen como PNG
+    void escribirPng(OutputStream salida) throws IOException {
+        if (!ImageIO.write(imagen, "png", salida)) {
+            throw new IOException("No hay un escritor de imágenes PNG disponible");
+        }
+    }
+
+    @Override
+    public void fondo(String color) {
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setColor(color(color));
+        g.fillRect(0, 0, imagen.getWidth(), imagen.getHeight());
+    }
+
+    @Override
+    public void linea(double x1, double y1, double x2, double y2, String color, double grosor) {
+        g.setColor(color(color));
+        g.setStroke(trazo(grosor));
+        segmento.setLine(x1, y1, x2, y2);
+        g.draw(segmento);
+    }
+
+    @Override
+    public void texto(String texto, double x, double y, double tamanio, String color, boolean centrado) {
+        g.setColor(color(color));
+        g.setFont(fuente(tamanio));
+        if (centrado) {
+            x -= g.getFontMetrics().stringWidth(texto) / 2.0;
+        }
+        g.drawString(texto, (float) x, (float) y);
+    }
+
+    @Override
+    public void punto(double x, double y, double radio, String relleno, String borde, double grosor) {
+        circulo.setFrame(x - radio, y - radio, 2 * radio, 2 * radio);
+        g.setColor(color(relleno));
+        g.fill(circulo);
+        g.setColor(color(borde));
+        g.setStroke(trazo(grosor));
+        g.draw(circulo);
+    }
+
+    @Override
+    public void opacidad(double alfa) {
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) alfa));
+    }
+
+    @Override
+    public void empezarCamino() {
+        camino.reset();
+    }
+
+    @Override
+    public void moverA(double x, double y) {
+        camino.moveTo(x, y);
+    }
+
+    @Override
+    public void lineaA(double x, double y) {
+        camino.lineTo(x, y);
+    }
+
+    @Override
+    public void trazarCamino(String color, double grosor) {
+        g.setColor(color(color));
+        g.setStroke(trazo(grosor));
+        g.draw(camino);
+    }
+
+    @Override
+    public void terminar() {
+        g.setComposite(AlphaComposite.SrcOver);
+    }
+
+    private Color color(String color) {
+        return colores.computeIfAbsent(color, Color::decode);
+    }
+
+    private Font fuente(double tamanio) {
+        return fuentes.computeIfAbsent(tamanio,
+                t -> new Font(Font.SANS_SERIF, Font.PLAIN, 1).deriveFont(t.floatValue()));
+    }
+
+    // Trazo con uniones redondeadas, como la curva de GraficadorCanvas
+    private BasicStroke trazo(double grosor) {
+        return trazos.computeIfAbsent(grosor,
+                t -> new BasicStroke(t.floatValue(), BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND));
+    }
+}
@@ -0,0 +1,224 @@
+package com.espoch.inflexpoint.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Lienzo que escribe un documento SVG a medida que se dibuja, sin armarlo
+ * en memoria: el camino de una curva se escribe vértice por vértice en el
+ * atributo d de su elemento path. Las coordenadas se redondean a centésimas
+ * de píxel. Como las operaciones de dibujo no lanzan excepciones, el primer
+ * error de escritura se guarda y se lanza en terminar().
+ */
+final class LienzoSvg implements Lienzo {
+
+    private final Writer salida;
+    private final int ancho;
+    private final int alto;
+    private IOException error;
+
+    private double alfa = 1.0;
+    // El camino en curso ya tiene su etiqueta abierta
+    private boolean caminoAbierto;
+
+    LienzoSvg(Writer salida, int ancho, int alto) {
+        this.salida = salida;
+        this.ancho = ancho;
+        this.alto = alto;
+        escribir("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        escribir(Integer.toString(ancho));
+        escribir("\" height=\"");
+        escribir(Integer.toString(alto));
+        escribir("\" viewBox=\"0 0 ");
+        escribir(Integer.toString(ancho));
+        escribir(" ");
+        escribir(Integer.toString(alto));
+        escribir("\" font-family=\"sans-serif\">\n");
+    }
+
+    @Override
+    public void fondo(String color) {
+        escribir("<rect width=\"");
+        escribir(Integer.toString(ancho));
+        escribir("\" height=\"");
+        escribir(Integer.toString(alto));
+        escribir("\" fill=\"");
+        escribir(color);
+        escribir("\"/>\n");
+    }
+
+    @Override
+    public void linea(double x1, double y1, double x2, double y2, String color, double grosor) {
+        escribir("<line x1=\"");
+        numero(x1);
+        escribir("\" y1=\"");
+        numero(y1);
+        escribir("\" x2=\"");
+        numero(x2);
+        escribir("\" y2=\"");
+        numero(y2);
+        escribir("\" stroke=\"");
+        escribir(color);
+        escribir("\" stroke-width=\"");
+        numero(grosor);
+        escribir("\"/>\n");
+    }
+
+    @Override
+    public void texto(String texto, double x, double y, double tamanio, String color, boolean centrado) {
+        escribir("<text x=\"");
+        numero(x);
+        escribir("\" y=\"");
+        numero(y);
+        escribir("\" font-size=\"");
+        numero(tamanio);
+        escribir("\" fill=\"");
+        escribir(color);
+        escribir(centrado ? "\" text-anchor=\"middle\"" : "\"");
+        escribirOpacidad();
+        escribir(">");
+        escribirTexto(texto);
+        escribir("</text>\n");
+    }
+
+    @Override
+    public void punto(double x, double y, double radio, String relleno, String borde, double grosor) {
+        escribir("<circle cx=\"");
+        numero(x);
+        escribir("\" cy=\"");
+        numero(y);
+        escribir("\" r=\"");
+        numero(radio);
+        escribir("\" fill=\"");
+        escribir(relleno);
+        escribir("\" stroke=\"");
+        escribir(borde);
+        escribir("\" stroke-width=\"");
+        numero(grosor);
+        escribir("\"");
+        escribirOpacidad();
+        escribir("/>\n");
+    }
+
+    @Override
+    public void opacidad(double alfa) {
+        this.alfa = alfa;
+    }
+
+    @Override
+    public void empezarCamino() {
+        caminoAbierto = false;
+    }
+
+    @Override
+    public void moverA(double x, double y) {
+        abrirCamino();
+        escribir("M");
+        numero(x);
+        escribir(" ");
+        numero(y);
+    }
+
+    @Override
+    public void lineaA(double x, double y) {
+        abrirCamino();
+        escribir("L");
+        numero(x);
+        escribir(" ");
+        numero(y);
+    }
+
+    // El color y el grosor van al final del elemento, cuando ya se conocen
+    @Override
+    public void trazarCamino(String color, double grosor) {
+        if (!caminoAbierto) {
+            return; // Camino vacío
+        }
+        escribir("\" fill=\"none\" stroke=\"");
+        escribir(color);
+        escribir("\" stroke-width=\"");
+        numero(grosor);
+        escribir("\" stroke-linejoin=\"round\"/>\n");
+        caminoAbierto = false;
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        escribir("</svg>\n");
+        if (error == null) {
+            try {
+                salida.flush();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void abrirCamino() {
+        if (!caminoAbierto) {
+            escribir("<path d=\"");
+            caminoAbierto = true;
+        }
+    }
+
+    private void escribirOpacidad() {
+        if (alfa < 1.0) {
+            escribir(" opacity=\"");
+            numero(alfa);
+            escribir("\"");
+        }
+    }
+
+    // Número redondeado a dos decimales, sin ceros sobrantes
+    private void numero(double valor) {
+        long centesimas = Math.round(valor * 100);
+        if (centesimas < 0) {
+            escribir("-");
+            centesimas = -centesimas;
+        }
+        escribir(Long.toString(centesimas / 100));
+        long decimales = centesimas % 100;
+        if (decimales != 0) {
+            escribir(decimales < 10 ? ".0" : ".");
+            escribir(Long.toString(decimales % 10 == 0 ? decimales / 10 : decimales));
+        }
+    }
+
+    // Texto con los caracteres especiales de XML escapados
+    private void escribirTexto(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&' -> escribir("&amp;");
+                case '<' -> escribir("&lt;");
+                case '>' -> escribir("&gt;");
+                default -> escribir(c);
+            }
+        }
+    }
+
+    private void escribir(String texto) {
+        if (error != null) {
+            return;
+        }
+        try {
+            salida.write(texto);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    private void escribir(char c) {
+        if (error != null) {
+            return;
+        }
+        try {
+            salida.write(c);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+}
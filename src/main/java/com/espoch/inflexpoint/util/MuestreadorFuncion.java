@@ -0,0 +1,127 @@
+package com.espoch.inflexpoint.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Muestrea las curvas de GraficadorCanvas fuera del hilo de la interfaz.
+ * - Las solicitudes se agrupan: si llegan varias (arrastre o zoom) mientras
+ * se muestrea, al terminar solo se atiende la más reciente
+ * - Cada pasada escribe en un buffer que la interfaz no está usando y luego
+ * lo publica; la interfaz siempre dibuja el último buffer completo, de modo
+ * que nunca ve una pasada a medias (doble buffer, con los buffers reciclados)
+ * - La curva se muestrea de forma adaptativa (ver MuestreoAdaptativo) sobre
+ * una malla fija del mundo, de modo que al arrastrar solo se evalúa la
+ * franja que entra en la vista
+ * Hay como mucho una pasada en curso, así que las curvas de las
+ * solicitudes y la caché solo se usan desde un hilo a la vez.
+ */
+final class MuestreadorFuncion {
+
+    private record Solicitud(ConjuntoCurvas conjunto, long generacion, double minX, double maxX, double minY,
+            double maxY, int columnas, int filas) {
+    }
+
+    private final Executor ejecutor;
+    // Se llama desde el hilo de muestreo al publicar cada buffer
+    private final Runnable alCompletar;
+
+    private final AtomicReference<Solicitud> pendiente = new AtomicReference<>();
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    // Último buffer completo que la interfaz aún no tomó
+    private final AtomicReference<BufferMuestras> completo = new AtomicReference<>();
+    // Buffer que la interfaz dejó de dibujar, para la siguiente pasada
+    private final AtomicReference<BufferMuestras> libre = new AtomicReference<>();
+    // Buffer que dibuja la interfaz (solo se usa desde su hilo)
+    private BufferMuestras actual;
+    // Muestreo y muestras ya evaluadas (solo se usa desde el hilo de muestreo)
+    private final MuestreoAdaptativo muestreo = new MuestreoAdaptativo();
+
+    MuestreadorFuncion(Executor ejecutor, Runnable alCompletar) {
+        this.ejecutor = ejecutor;
+        this.alCompletar = alCompletar;
+    }
+
+    /**
+     * Pide muestrear las curvas en la vista indicada. Reemplaza a la
+     * solicitud anterior si todavía no empezó.
+     *
+     * @param conjunto   Curvas propias del muestreador (sus evaluadores no se
+     *                   comparten con la interfaz)
+     * @param generacion Identifica las curvas; se guarda en el buffer
+     * @param columnas   Ancho de la vista en píxeles
+     * @param filas      Alto de la vista en píxeles (la tolerancia del
+     *                   muestreo es de medio píxel)
+     */
+    void solicitar(ConjuntoCurvas conjunto, long generacion, double minX, double maxX, double minY,
+            double maxY, int columnas, int filas) {
+        pendiente.set(new Solicitud(conjunto, generacion, minX, maxX, minY, maxY, Math.max(columnas, 1),
+                Math.max(filas, 1)));
+        if (enCurso.compareAndSet(false, true)) {
+            ejecutor.execute(this::atender);
+        }
+    }
+
+    /**
+     * Último buffer completo (solo desde el hilo de la interfaz). El buffer
+     * retornado no se modifica hasta que se publique otro y se vuelva a
+     * llamar a este método.
+     *
+     * @return El buffer, o null si aún no hay ninguno
+     */
+    BufferMuestras ultimas() {
+        BufferMuestras nuevo = completo.getAndSet(null);
+        if (nuevo != null) {
+            if (actual != null) {
+                libre.set(actual);
+            }
+            actual = nuevo;
+        }
+        return actual;
+    }
+
+    private void atender() {
+        while (true) {
+            Solicitud solicitud = pendiente.getAndSet(null);
+            if (solicitud == null) {
+                enCurso.set(false);
+                // Una solicitud pudo llegar justo antes de soltar el turno
+                if (pendiente.get() == null || !enCurso.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            publicar(muestrear(solicitud));
+            alCompletar.run();
+        }
+    }
+
+    private BufferMuestras muestrear(Solicitud solicitud) {
+        // Al menos una muestra por columna; el muestreo adaptativo agrega más
+        BufferMuestras buffer = bufferPara(solicitud, solicitud.columnas() + 1);
+        muestreo.muestrear(solicitud.conjunto(), solicitud.generacion(), solicitud.minX(), solicitud.maxX(),
+                solicitud.minY(), solicitud.maxY(), solicitud.columnas(), solicitud.filas(), buffer);
+        return buffer;
+    }
+
+    // Buffer libre (o uno nuevo si no cabe) listo para la pasada
+    private BufferMuestras bufferPara(Solicitud solicitud, int puntos) {
+        BufferMuestras buffer = libre.getAndSet(null);
+        if (buffer == null || buffer.getCapacidad() < puntos) {
+            buffer = new BufferMuestras(puntos);
+        }
+        buffer.reiniciar(solicitud.generacion(), solicitud.minX(), solicitud.maxX(),
+                solicitud.conjunto().getCantidad());
+        return buffer;
+    }
+
+    private void publicar(BufferMuestras buffer) {
+        BufferMuestras sinDibujar = completo.getAndSet(buffer);
+        if (sinDibujar != null) {
+            // La interfaz nunca tomó el anterior: se recicla
+            libre.compareAndSet(null, sinDibujar);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.espoch.inflexpoint.util;
+
+/**
+ * Muestreo adaptativo de las curvas para graficarlas. Parte de una malla gruesa
+ * (una muestra cada pocos píxeles) y divide cada tramo por la mitad mientras
+ * el punto medio se aleje de la cuerda más de medio píxel, hasta un ancho
+ * mínimo de un cuarto de píxel. Los tramos rectos quedan con pocas muestras y
+ * las zonas empinadas u oscilantes con muchas.
+ * Las discontinuidades se detectan explícitamente: un tramo de ancho mínimo
+ * que sigue dando un salto se sigue bisecando hacia el lado del salto; si la
+ * función es continua el salto se reduce a menos de la tolerancia, y si no,
+ * la curva se corta allí (en lugar de unir las dos ramas de una asíntota).
+ * Las zonas densas (oscilaciones más finas que un píxel, como sin(100x) o
+ * sin(1/x) de lejos) no se pueden seguir con la cuerda: un tramo inicial
+ * donde varios tramos de ancho mínimo siguen saltando se muestrea completo
+ * en la malla fina, igual que sus vecinos (que pudieron pasar la prueba por
+ * casualidad). Al dibujar, GraficadorCanvas reduce cada columna de píxeles a
+ * su primera, mínima, máxima y última muestra, de modo que se ve la banda
+ * que cubre la función y no una oscilación al azar.
+ * Todas las x salen de la malla de CacheMuestras (los puntos medios de la
+ * malla gruesa también están en ella), así que al mover la vista se
+ * reutilizan las evaluaciones anteriores.
+ * Con varias curvas (ver ConjuntoCurvas) todas comparten las x: un tramo se
+ * divide si alguna curva lo necesita, y cada una se corta solo en sus
+ * propias discontinuidades. Solo lo usa el hilo de muestreo.
+ */
+final class MuestreoAdaptativo {
+
+    // Distancia máxima, en píxeles, entre la curva y los segmentos dibujados
+    private static final double TOLERANCIA_PX = 0.5;
+    // La malla fina tiene cuatro puntos por píxel (2^2): ancho mínimo de un tramo
+    private static final int NIVELES_BAJO_PIXEL = 2;
+    // Puntos de la malla fina entre dos muestras de la malla inicial (4 píxeles)
+    private static final int TRAMO_INICIAL = 16;
+    // Tramos de ancho mínimo con salto a partir de los cuales un tramo inicial es denso
+    private static final int SALTOS_TRAMO_DENSO = 3;
+    // Bisecciones extra para decidir si un salto es una discontinuidad
+    private static final int BISECCIONES_SALTO = 24;
+    // Índices de la malla más allá de este valor ya no son exactos en double
+    private static final double MAX_INDICE = 0x1p52;
+
+    private final CacheMuestras cache = new CacheMuestras();
+
+    // Datos de la pasada en curso
+    private ConjuntoCurvas conjunto;
+    private int curvas;
+    private BufferMuestras destino;
+    // Valores de una muestra que se agrega al buffer y de una evaluación
+    // fuera de la malla (al buscar discontinuidades)
+    private double[] fila = new double[0];
+    private double[] valoresSalto = new double[0];
+    private double paso;
+    private double minY;
+    private double maxY;
+    // Píxeles por unidad de y
+    private double escalaY;
+    // Tramos de ancho mínimo con salto en el tramo explorado
+    private int saltos;
+
+    /**
+     * Muestrea las curvas en la vista indicada.
+     *
+     * @param conjunto   Curvas a muestrear
+     * @param generacion Identifica las curvas (ver CacheMuestras)
+     * @param columnas   Ancho de la vista en píxeles
+     * @param filas      Alto de la vista en píxeles
+     * @param destino    Buffer donde se agregan las muestras, en orden de x
+     */
+    void muestrear(ConjuntoCurvas conjunto, long generacion, double minX, double maxX, double minY, double maxY,
+            int columnas, int filas, BufferMuestras destino) {
+        int nivel = Math.getExponent((maxX - minX) / columnas) - NIVELES_BAJO_PIXEL;
+        double paso = Math.scalb(1.0, nivel);
+        double desde = Math.floor(minX / paso / TRAMO_INICIAL) * TRAMO_INICIAL;
+        double hasta = Math.ceil(maxX / paso / TRAMO_INICIAL) * TRAMO_INICIAL;
+        this.conjunto = conjunto;
+        this.curvas = conjunto.getCantidad();
+        this.destino = destino;
+        if (fila.length < curvas) {
+            fila = new double[curvas];
+            valoresSalto = new double[curvas];
+        }
+        if (!(Math.abs(desde) < MAX_INDICE && Math.abs(hasta) < MAX_INDICE)) {
+            // Vista demasiado lejos del origen para la malla: una muestra por columna
+            muestrearPorColumnas(minX, maxX, columnas);
+            terminar();
+            return;
+        }
+
+        cache.preparar(generacion, nivel, (int) (hasta - desde) + 1, curvas);
+        this.paso = paso;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.escalaY = filas / (maxY - minY);
+
+        // 1. Explorar cada tramo inicial para saber cuáles son densos
+        long inicio = (long) desde;
+        int tramos = (int) ((hasta - desde) / TRAMO_INICIAL);
+        boolean[] densos = new boolean[tramos];
+        for (int i = 0; i < tramos; i++) {
+            long a = inicio + (long) i * TRAMO_INICIAL;
+            saltos = 0;
+            subdividir(a, posicion(a), a + TRAMO_INICIAL, posicion(a + TRAMO_INICIAL), false);
+            densos[i] = saltos >= SALTOS_TRAMO_DENSO;
+        }
+
+        // 2. Agregar las muestras (lo evaluado al explorar está en la caché)
+        agregar(inicio, posicion(inicio));
+        for (int i = 0; i < tramos; i++) {
+            long a = inicio + (long) i * TRAMO_INICIAL;
+            long b = a + TRAMO_INICIAL;
+            if (densos[i] || (i > 0 && densos[i - 1]) || (i + 1 < tramos && densos[i + 1])) {
+                for (long k = a + 1; k <= b; k++) {
+                    agregar(k, posicion(k));
+                }
+            } else {
+                subdividir(a, posicion(a), b, posicion(b), true);
+            }
+        }
+        terminar();
+    }
+
+    private void terminar() {
+        this.conjunto = null;
+        this.destino = null;
+    }
+
+    /**
+     * Divide el tramo (a, b] hasta que la cuerda baste para todas las curvas.
+     *
+     * @param pa      Posición de a en la caché (pb, la de b)
+     * @param agregar true para agregar sus muestras al buffer (la de a ya
+     *                está); false para solo explorarlo y contar los saltos
+     */
+    private void subdividir(long a, int pa, long b, int pb, boolean agregar) {
+        if (b - a > 1) {
+            long m = a + (b - a) / 2;
+            int pm = posicion(m);
+            if (!suficiente(pa, pm, pb)) {
+                subdividir(a, pa, m, pm, agregar);
+                subdividir(m, pm, b, pb, agregar);
+                return;
+            }
+        } else {
+            // Tramo de ancho mínimo: las curvas que siguen saltando se cortan
+            // en el medio si el salto es una discontinuidad
+            boolean corte = false;
+            for (int c = 0; c < curvas; c++) {
+                double ya = cache.valor(pa, c);
+                double yb = cache.valor(pb, c);
+                if (Double.isFinite(ya) && Double.isFinite(yb) && Math.abs(yb - ya) * escalaY > TOLERANCIA_PX
+                        && !fueraDeVista(ya, yb, yb)) {
+                    if (!agregar) {
+                        saltos++;
+                        break;
+                    }
+                    if (esDiscontinuidad(c, a * paso, ya, b * paso, yb)) {
+                        fila[c] = Double.NaN;
+                        corte = true;
+                        continue;
+                    }
+                }
+                // Las que no se cortan siguen por su cuerda
+                fila[c] = (ya + yb) / 2;
+            }
+            if (corte) {
+                destino.agregar((a + 0.5) * paso, fila, 0);
+            }
+        }
+        if (agregar) {
+            agregar(b, pb);
+        }
+    }
+
+    /**
+     * ¿Basta la cuerda de a a b? Sí si el punto medio está a menos de la
+     * tolerancia de ella, si los tres puntos quedan del mismo lado fuera de
+     * la vista, o si ninguno está definido. Si solo algunos lo están, hay que
+     * seguir dividiendo para encontrar el borde del dominio. Tiene que bastar
+     * para todas las curvas.
+     */
+    private boolean suficiente(int pa, int pm, int pb) {
+        for (int c = 0; c < curvas; c++) {
+            if (!suficiente(cache.valor(pa, c), cache.valor(pm, c), cache.valor(pb, c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean suficiente(double ya, double ym, double yb) {
+        boolean definidoA = Double.isFinite(ya);
+        boolean definidoM = Double.isFinite(ym);
+        boolean definidoB = Double.isFinite(yb);
+        if (!definidoA || !definidoM || !definidoB) {
+            return !definidoA && !definidoM && !definidoB;
+        }
+        if (fueraDeVista(ya, ym, yb)) {
+            return true;
+        }
+        return Math.abs(ym - (ya + yb) / 2) * escalaY <= TOLERANCIA_PX;
+    }
+
+    // Los tres valores quedan por encima o por debajo de la vista
+    private boolean fueraDeVista(double y1, double y2, double y3) {
+        return (y1 > maxY && y2 > maxY && y3 > maxY) || (y1 < minY && y2 < minY && y3 < minY);
+    }
+
+    /**
+     * Decide si el salto entre a y b es una discontinuidad: se biseca hacia
+     * la mitad con el mayor salto. En una función continua el salto baja de
+     * la tolerancia; en una discontinuidad (o una asíntota) no.
+     *
+     * @param curva Curva que salta
+     */
+    private boolean esDiscontinuidad(int curva, double a, double ya, double b, double yb) {
+        for (int i = 0; i < BISECCIONES_SALTO; i++) {
+            double m = (a + b) / 2;
+            conjunto.evaluar(m, valoresSalto, 0);
+            double ym = valoresSalto[curva];
+            if (!Double.isFinite(ym)) {
+                return true;
+            }
+            if (Math.abs(ym - ya) >= Math.abs(yb - ym)) {
+                b = m;
+                yb = ym;
+            } else {
+                a = m;
+                ya = ym;
+            }
+            if (Math.abs(yb - ya) * escalaY <= TOLERANCIA_PX) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int posicion(long k) {
+        return cache.posicion(k, conjunto);
+    }
+
+    // Agrega al buffer la muestra k, ya evaluada en la posición p de la caché
+    private void agregar(long k, int p) {
+        destino.agregar(k * paso, cache.getValores(), p * curvas);
+    }
+
+    private void muestrearPorColumnas(double minX, double maxX, int columnas) {
+        double paso = (maxX - minX) / columnas;
+        for (int i = 0; i <= columnas; i++) {
+            double x = minX + i * paso;
+            conjunto.evaluar(x, fila, 0);
+            destino.agregar(x, fila, 0);
+        }
+    }
+}
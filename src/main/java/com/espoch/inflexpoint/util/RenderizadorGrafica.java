@@ -0,0 +1,217 @@
+package com.espoch.inflexpoint.util;
+
+import com.espoch.inflexpoint.modelos.calculos.Evaluador;
+import com.espoch.inflexpoint.modelos.calculos.ResultadoAnalisis;
+import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Dibuja gráficas sin JavaFX (sin ventana ni hilo de la interfaz), para
+ * generarlas en lote, por ejemplo en un servidor para reportes. Produce lo
+ * mismo que GraficadorCanvas: la cuadrícula se dibuja aquí y el resto (ejes,
+ * curvas, puntos críticos y de inflexión y título) con el mismo
+ * DibujoGrafica, después del mismo muestreo adaptativo. La salida es una
+ * imagen PNG o un SVG que se escribe a medida que se dibuja.
+ * También dibuja muestras ya calculadas (arreglos de x e y), sin evaluar nada.
+ * No es seguro para usar desde varios hilos: cada hilo debe tener el suyo.
+ * Entre gráficas reutiliza la imagen, el buffer de muestras y la caché, así
+ * que conviene usar un renderizador por hilo para muchas gráficas. En un
+ * servidor sin pantalla la JVM debe correr con -Djava.awt.headless=true.
+ */
+public final class RenderizadorGrafica {
+
+    private final int ancho;
+    private final int alto;
+
+    // Rango visible
+    private double minX = -10.0;
+    private double maxX = 10.0;
+    private double minY = -10.0;
+    private double maxY = 10.0;
+
+    // Curvas elegidas (como en GraficadorCanvas.mostrarCurvas)
+    private boolean mostrarFuncion = true;
+    private boolean mostrarPrimeraDerivada;
+    private boolean mostrarSegundaDerivada;
+
+    private final MuestreoAdaptativo muestreo = new MuestreoAdaptativo();
+    private final BufferMuestras muestras;
+    private long generacion;
+    // Se crea con la primera imagen
+    private LienzoImagen imagen;
+    private final DibujoGrafica dibujo = new DibujoGrafica();
+
+    /**
+     * @param ancho Ancho de las gráficas en píxeles
+     * @param alto  Alto de las gráficas en píxeles
+     */
+    public RenderizadorGrafica(int ancho, int alto) {
+        if (ancho <= 0 || alto <= 0 || ancho > 4000 || alto > 4000) {
+            throw new IllegalArgumentException("Tamaño de gráfica inválido: " + ancho + "x" + alto);
+        }
+        this.ancho = ancho;
+        this.alto = alto;
+        this.muestras = new BufferMuestras(ancho + 1);
+    }
+
+    // Rango visible de las siguientes gráficas (por defecto [-10, 10] en ambos ejes)
+    public void setRango(double minX, double maxX, double minY, double maxY) {
+        if (!(minX < maxX && minY < maxY)) {
+            throw new IllegalArgumentException("Rango de gráfica inválido");
+        }
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    // Elige cuáles de f(x), f'(x) y f''(x) se grafican (por defecto solo f)
+    public void mostrarCurvas(boolean funcion, boolean primeraDerivada, boolean segundaDerivada) {
+        this.mostrarFuncion = funcion;
+        this.mostrarPrimeraDerivada = primeraDerivada;
+        this.mostrarSegundaDerivada = segundaDerivada;
+    }
+
+    /**
+     * Grafica una función y escribe la imagen como PNG.
+     *
+     * @param resultado Puntos a marcar (puede ser null)
+     * @param salida    Destino del PNG (no se cierra)
+     */
+    public void escribirPng(String expresion, ResultadoAnalisis resultado, OutputStream salida)
+            throws ExpresionInvalidaException, IOException {
+        LienzoImagen lienzoImagen = lienzoImagen();
+        dibujarFuncion(lienzoImagen, expresion, resultado);
+        lienzoImagen.escribirPng(salida);
+    }
+
+    /**
+     * Grafica una función y la escribe como SVG.
+     *
+     * @param resultado Puntos a marcar (puede ser null)
+     * @param salida    Destino del SVG (no se cierra)
+     */
+    public void escribirSvg(String expresion, ResultadoAnalisis resultado, Writer salida)
+            throws ExpresionInvalidaException, IOException {
+        dibujarFuncion(new LienzoSvg(salida, ancho, alto), expresion, resultado);
+    }
+
+    /**
+     * Dibuja muestras ya calculadas (una curva) y escribe la imagen como PNG.
+     *
+     * @param x         Abscisas, en orden creciente
+     * @param y         Ordenadas; NaN corta la curva
+     * @param cantidad  Muestras a usar de los arreglos
+     * @param titulo    Texto arriba a la izquierda (puede ser null)
+     * @param resultado Puntos a marcar (puede ser null)
+     * @param salida    Destino del PNG (no se cierra)
+     */
+    public void escribirPng(double[] x, double[] y, int cantidad, String titulo, ResultadoAnalisis resultado,
+            OutputStream salida) throws IOException {
+        LienzoImagen lienzoImagen = lienzoImagen();
+        dibujarMuestras(lienzoImagen, x, y, cantidad, titulo, resultado);
+        lienzoImagen.escribirPng(salida);
+    }
+
+    /**
+     * Dibuja muestras ya calculadas (una curva) y las escribe como SVG.
+     * Los parámetros son los de la versión PNG.
+     */
+    public void escribirSvg(double[] x, double[] y, int cantidad, String titulo, ResultadoAnalisis resultado,
+            Writer salida) throws IOException {
+        dibujarMuestras(new LienzoSvg(salida, ancho, alto), x, y, cantidad, titulo, resultado);
+    }
+
+    private LienzoImagen lienzoImagen() {
+        if (imagen == null) {
+            imagen = new LienzoImagen(ancho, alto);
+        }
+        return imagen;
+    }
+
+    // Muestrea la función (y las derivadas elegidas) y dibuja la gráfica
+    private void dibujarFuncion(Lienzo lienzo, String expresion, ResultadoAnalisis resultado)
+            throws ExpresionInvalidaException, IOException {
+        Evaluador evaluador = new Evaluador(expresion);
+        ConjuntoCurvas curvas = new ConjuntoCurvas(evaluador, mostrarFuncion, mostrarPrimeraDerivada,
+                mostrarSegundaDerivada, new Evaluador[0]);
+
+        String[] colores = new String[curvas.getCantidad()];
+        String[] nombres = new String[colores.length];
+        int c = 0;
+        if (mostrarFuncion) {
+            colores[c] = GeometriaGrafica.COLOR_FUNCION;
+            nombres[c++] = "f(x)";
+        }
+        if (mostrarPrimeraDerivada) {
+            colores[c] = GeometriaGrafica.COLOR_PRIMERA_DERIVADA;
+            nombres[c++] = "f'(x)";
+        }
+        if (mostrarSegundaDerivada) {
+            colores[c] = GeometriaGrafica.COLOR_SEGUNDA_DERIVADA;
+            nombres[c] = "f''(x)";
+        }
+
+        int cantidad = 0;
+        if (colores.length > 0) {
+            // Cada gráfica es otra función: la caché se descarta
+            generacion++;
+            muestras.reiniciar(generacion, minX, maxX, colores.length);
+            muestreo.muestrear(curvas, generacion, minX, maxX, minY, maxY, ancho, alto, muestras);
+            cantidad = muestras.getTamanio();
+        }
+        dibujar(lienzo, muestras.getArregloX(), muestras.getArregloY(), cantidad, colores, nombres,
+                "f(x) = " + expresion, resultado);
+    }
+
+    private void dibujarMuestras(Lienzo lienzo, double[] x, double[] y, int cantidad, String titulo,
+            ResultadoAnalisis resultado) throws IOException {
+        if (cantidad < 0 || cantidad > x.length || cantidad > y.length) {
+            throw new IllegalArgumentException("Cantidad de muestras inválida: " + cantidad);
+        }
+        dibujar(lienzo, x, y, cantidad, new String[] { GeometriaGrafica.COLOR_FUNCION }, new String[0],
+                titulo, resultado);
+    }
+
+    /**
+     * Dibuja la gráfica completa: fondo y cuadrícula, y encima lo mismo que
+     * GraficadorCanvas (ver DibujoGrafica.dibujar).
+     */
+    private void dibujar(Lienzo lienzo, double[] x, double[] y, int cantidad, String[] colores, String[] nombres,
+            String titulo, ResultadoAnalisis resultado) throws IOException {
+        lienzo.opacidad(1.0);
+        lienzo.fondo(DibujoGrafica.COLOR_FONDO);
+        dibujarCuadricula(lienzo);
+        dibujo.setVista(minX, maxX, minY, maxY, ancho, alto);
+        dibujo.dibujar(lienzo, x, y, cantidad, colores, nombres, titulo, resultado);
+        lienzo.terminar();
+    }
+
+    private void dibujarCuadricula(Lienzo lienzo) {
+        double stepX = GeometriaGrafica.calcularStep(maxX - minX);
+        double stepY = GeometriaGrafica.calcularStep(maxY - minY);
+
+        // Líneas verticales
+        for (double x = Math.ceil(minX / stepX) * stepX; x <= maxX; x += stepX) {
+            double screenX = xAPantalla(x);
+            lienzo.linea(screenX, 0, screenX, alto, DibujoGrafica.COLOR_CUADRICULA, 0.5);
+        }
+
+        // Líneas horizontales
+        for (double y = Math.ceil(minY / stepY) * stepY; y <= maxY; y += stepY) {
+            double screenY = yAPantalla(y);
+            lienzo.linea(0, screenY, ancho, screenY, DibujoGrafica.COLOR_CUADRICULA, 0.5);
+        }
+    }
+
+    private double xAPantalla(double x) {
+        return GeometriaGrafica.xAPantalla(x, minX, maxX, ancho);
+    }
+
+    private double yAPantalla(double y) {
+        return GeometriaGrafica.yAPantalla(y, minY, maxY, alto);
+    }
+}
@@ -1,158 +1,73 @@
 package com.espoch.inflexpoint.util;
 
+import com.espoch.inflexpoint.modelos.calculos.Evaluador;
 import com.espoch.inflexpoint.modelos.excepciones.ExpresionInvalidaException;
 
 /**
  * Utilidad para validar expresiones matemáticas antes de su evaluación.
  * Responsabilidades:
- * - Verificar paréntesis balanceados
- * - Validar caracteres permitidos
- * - Detectar sintaxis básica incorrecta
+ * - Verificar caracteres, paréntesis y sintaxis (lo hace el Evaluador al
+ * compilar la expresión, en una sola pasada y con la posición del error)
+ * - Detectar indeterminaciones globales sobre la expresión ya compilada
  */
 public class ValidadorExpresion {
 
-    // Caracteres permitidos en expresiones
-    private static final String CARACTERES_PERMITIDOS = "0123456789+-*/^().abcdefghijklmnopqrstuvwxyz ";
-
     /**
-     * Valida una expresión matemática.
-     * 
+     * Valida una expresión matemática y retorna su evaluador, para que el
+     * análisis no vuelva a leerla.
+     *
      * @param expresion La expresión a validar
+     * @return El evaluador de la expresión ya compilada
      * @throws ExpresionInvalidaException si la expresión es inválida
      */
-    public static void validar(String expresion) throws ExpresionInvalidaException {
-        if (expresion == null || expresion.trim().isEmpty()) { // Eliminar espacios en blanco al inicio y final
-            throw new ExpresionInvalidaException("La expresión no puede estar vacía");
-        }
-
-        validarCaracteres(expresion);
-        validarParentesis(expresion);
-        validarSintaxisBasica(expresion);
-        validarIndeterminacionGlobal(expresion);
-    }
-
-    /**
-     * Verifica si la expresión es una indeterminación global (ej. 1/0, x/(x-x)).
-     */
-    private static void validarIndeterminacionGlobal(String expresion) throws ExpresionInvalidaException {
-        try {
-            com.espoch.inflexpoint.modelos.calculos.Evaluador eval = new com.espoch.inflexpoint.modelos.calculos.Evaluador(
-                    expresion);
-            double[] puntosPrueba = { 0.5, 1.0, 2.0, 5.0, Math.PI, 0.1, -1.0, -0.5 };
-            boolean algunDefinido = false;
-            boolean algunInfinito = false;
-            boolean algunNaN = false;
-
-            for (double x : puntosPrueba) {
-                double val = eval.evaluar(x);
-                if (Double.isFinite(val)) {
-                    algunDefinido = true;
-                    break;
-                }
-                if (Double.isInfinite(val))
-                    algunInfinito = true;
-                if (Double.isNaN(val))
-                    algunNaN = true;
-            }
-
-            if (!algunDefinido) {
-                if (algunInfinito && !algunNaN) {
-                    throw new ExpresionInvalidaException(
-                            "Indeterminación: La expresión resulta en infinito para los puntos de prueba (posible división por cero o asíntota vertical)");
-                } else {
-                    throw new ExpresionInvalidaException(
-                            "Indeterminación: La expresión no está definida en los puntos de prueba (ej. logaritmo de negativo, raíz negativa o división 0/0)");
-                }
-            }
-        } catch (ExpresionInvalidaException e) {
-            // Si es un error de sintaxis que el evaluador ya captó, lo dejamos pasar para
-            // que lo maneje el flujo normal
-            if (e.getMessage().contains("Indeterminación"))
-                throw e;
-        } catch (Exception e) {
-            // Ignorar errores durante la prueba numérica, el flujo principal los captará
-        }
+    public static Evaluador validar(String expresion) throws ExpresionInvalidaException {
+        Evaluador evaluador = new Evaluador(expresion);
+        validarIndeterminacionGlobal(evaluador);
+        return evaluador;
     }
 
     /**
-     * Verifica que todos los caracteres sean permitidos.
+     * Valida una expresión ya compilada (solo las indeterminaciones).
+     *
+     * @param compilado Evaluador de la expresión
+     * @return Un evaluador propio de la expresión (copia del recibido)
+     * @throws ExpresionInvalidaException si la expresión es una indeterminación
      */
-    private static void validarCaracteres(String expresion) throws ExpresionInvalidaException {
-        String expr = expresion.toLowerCase().replace(" ", "");
-
-        for (int i = 0; i < expr.length(); i++) {
-            char caracter = expr.charAt(i);
-            if (CARACTERES_PERMITIDOS.indexOf(caracter) == -1) { // Busca el caracter en el string
-                throw new ExpresionInvalidaException("Carácter no permitido: '" + caracter + "' en posición " + i);
-            }
-        }
+    public static Evaluador validar(Evaluador compilado) throws ExpresionInvalidaException {
+        Evaluador evaluador = compilado.copiar();
+        validarIndeterminacionGlobal(evaluador);
+        return evaluador;
     }
 
     /**
-     * Verifica que los paréntesis estén balanceados.
-     */
-    private static void validarParentesis(String expresion) throws ExpresionInvalidaException {
-        int balanceParentesis = 0;
-
-        for (int i = 0; i < expresion.length(); i++) {
-            char caracter = expresion.charAt(i);
-            if (caracter == '(') {
-                balanceParentesis++;
-            } else if (caracter == ')') {
-                balanceParentesis--;
-            }
-
-            // Si balanceParentesis es negativo, hay más ')' que '('
-            if (balanceParentesis < 0) {
-                throw new ExpresionInvalidaException("Paréntesis de cierre sin apertura en posición " + i);
-            }
-        }
-
-        // Muestra la cantidad de paréntesis faltantes
-        if (balanceParentesis > 0) {
-            throw new ExpresionInvalidaException(
-                    "Faltan " + balanceParentesis + " paréntesis de cierre");
-        }
-    }
-
-    /**
-     * Valida sintaxis básica (operadores consecutivos, etc).
+     * Verifica si la expresión es una indeterminación global (ej. 1/0, x/(x-x)).
      */
-    private static void validarSintaxisBasica(String expresion) throws ExpresionInvalidaException {
-        String expr = expresion.replace(" ", "");
-
-        // Verificar operadores consecutivos (excepto +- y -+)
-        for (int i = 0; i < expr.length() - 1; i++) {
-            char actual = expr.charAt(i);
-            char siguiente = expr.charAt(i + 1);
-
-            // Operadores binarios consecutivos inválidos
-            if (esOperadorBinario(actual) && esOperadorBinario(siguiente)) {
-                // Permitir casos como "+-" o "-+" que son válidos
-                if (!((actual == '+' || actual == '-') && (siguiente == '+' || siguiente == '-'))) {
-                    // Permitir unarios al inicio (i=0) o después de otro operador si es +/-
-                    if (i > 0 || !((actual == '+' || actual == '-'))) {
-                        throw new ExpresionInvalidaException(
-                                "Operadores consecutivos inválidos: '" + actual + siguiente + "' en posición " + i);
-                    }
-                }
+    private static void validarIndeterminacionGlobal(Evaluador eval) throws ExpresionInvalidaException {
+        double[] puntosPrueba = { 0.5, 1.0, 2.0, 5.0, Math.PI, 0.1, -1.0, -0.5 };
+        boolean algunDefinido = false;
+        boolean algunInfinito = false;
+        boolean algunNaN = false;
+
+        for (double x : puntosPrueba) {
+            double val = eval.evaluar(x);
+            if (Double.isFinite(val)) {
+                algunDefinido = true;
+                break;
             }
+            if (Double.isInfinite(val))
+                algunInfinito = true;
+            if (Double.isNaN(val))
+                algunNaN = true;
         }
 
-        // Verificar que no termine con operador binario
-        if (!expr.isEmpty()) {
-            char ultimo = expr.charAt(expr.length() - 1);
-            if (esOperadorBinario(ultimo) && ultimo != ')') {
+        if (!algunDefinido) {
+            if (algunInfinito && !algunNaN) {
+                throw new ExpresionInvalidaException(
+                        "Indeterminación: La expresión resulta en infinito para los puntos de prueba (posible división por cero o asíntota vertical)");
+            } else {
                 throw new ExpresionInvalidaException(
-                        "La expresión no puede terminar con operador: '" + ultimo + "'");
+                        "Indeterminación: La expresión no está definida en los puntos de prueba (ej. logaritmo de negativo, raíz negativa o división 0/0)");
             }
         }
     }
-
-    /**
-     * Verifica si un carácter es un operador binario.
-     */
-    private static boolean esOperadorBinario(char c) {
-        return c == '+' || c == '-' || c == '*' || c == '/' || c == '^';
-    }
 }
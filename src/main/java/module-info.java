@@ -3,6 +3,7 @@ module com.espoch.inflexpoint {
     requires transitive javafx.fxml;
     requires javafx.graphics;
     requires javafx.web;
+    requires java.desktop;
 
     opens com.espoch.inflexpoint.app to javafx.fxml;
     opens com.espoch.inflexpoint.controladores.vistaprincipal to javafx.fxml;
@@ -17,4 +18,5 @@ module com.espoch.inflexpoint {
     exports com.espoch.inflexpoint.modelos.dao.interfaces;
     exports com.espoch.inflexpoint.modelos.dao.implementaciones;
     exports com.espoch.inflexpoint.modelos.excepciones;
+    exports com.espoch.inflexpoint.util;
 }